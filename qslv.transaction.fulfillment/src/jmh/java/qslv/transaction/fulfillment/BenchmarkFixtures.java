@@ -0,0 +1,155 @@
+package qslv.transaction.fulfillment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.data.Account;
+import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.CommitReservationRequest;
+import qslv.transaction.request.ReservationRequest;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.request.TransferAndTransactRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.CommitReservationResponse;
+import qslv.transaction.response.ReservationResponse;
+import qslv.transaction.response.TransactionResponse;
+import qslv.transaction.response.TransferAndTransactResponse;
+
+/*
+ * Messages and in-memory DAOs shared by the benchmarks. The DAOs answer immediately, so a
+ * benchmark measures this service's own code: validation, the saga logic, header building,
+ * serialization, and the allocations they make.
+ */
+class BenchmarkFixtures {
+
+	static ConfigProperties config() {
+		ConfigProperties config = new ConfigProperties();
+		config.setAitid("723842");
+		config.setPostTransactionUrl("http://localhost:9091/Transaction");
+		config.setKafkaTimeout(1000);
+		return config;
+	}
+
+	static TraceableMessage<TransactionRequest> message(boolean protectAgainstOverdraft) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setBusinessTaxonomyId("38923748273482");
+		message.setCorrelationId("2387429837428374");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("2345");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("23874923749823");
+		message.getPayload().setDebitCardNumber("27834728934729374");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{\"merchant\":\"benchmark\"}");
+		message.getPayload().setTransactionAmount(-2300L);
+		message.getPayload().setProtectAgainstOverdraft(protectAgainstOverdraft);
+		message.getPayload().setAuthorizeAgainstBalance(true);
+		return message;
+	}
+
+	static TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply(TraceableMessage<TransactionRequest> message) {
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		reply.getPayload().setResponse(new TransactionResponse(TransactionResponse.SUCCESS, resource(message.getPayload().getAccountNumber(), TransactionResource.NORMAL)));
+		reply.setMessageCompletionTime(LocalDateTime.now());
+		return reply;
+	}
+
+	static TransactionResource resource(String accountNumber, String typeCode) {
+		TransactionResource resource = new TransactionResource();
+		resource.setAccountNumber(accountNumber);
+		resource.setTransactionUuid(UUID.randomUUID());
+		resource.setTransactionTypeCode(typeCode);
+		resource.setTransactionAmount(-2300L);
+		return resource;
+	}
+
+	/**
+	 * Answers recordTransaction with SUCCESS, or with INSUFFICIENT_FUNDS when insufficientFunds is
+	 * set, and every overdraft step with SUCCESS.
+	 */
+	static class StubTransactionDao extends TransactionDao {
+		private final boolean insufficientFunds;
+
+		StubTransactionDao(boolean insufficientFunds) {
+			this.insufficientFunds = insufficientFunds;
+		}
+
+		@Override
+		public TransactionResponse recordTransaction(TraceableMessage<?> message, TransactionRequest request) {
+			TransactionResource resource = resource(request.getAccountNumber(), TransactionResource.NORMAL);
+			if (insufficientFunds) {
+				resource.setTransactionTypeCode(TransactionResource.REJECTED_TRANSACTION);
+				return new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS, resource);
+			}
+			return new TransactionResponse(TransactionResponse.SUCCESS, resource);
+		}
+
+		@Override
+		public ReservationResponse recordReservation(TraceableMessage<?> message, ReservationRequest request) {
+			ReservationResponse response = new ReservationResponse();
+			response.setStatus(ReservationResponse.SUCCESS);
+			response.setResource(resource(request.getAccountNumber(), TransactionResource.RESERVATION));
+			return response;
+		}
+
+		@Override
+		public TransferAndTransactResponse transferAndTransact(TraceableMessage<?> message, TransferAndTransactRequest request) {
+			TransferAndTransactResponse response = new TransferAndTransactResponse();
+			response.setStatus(TransferAndTransactResponse.SUCCESS);
+			ArrayList<TransactionResource> transactions = new ArrayList<>(2);
+			transactions.add(resource(request.getTransactionRequest().getAccountNumber(), TransactionResource.NORMAL));
+			transactions.add(resource(request.getTransactionRequest().getAccountNumber(), TransactionResource.NORMAL));
+			response.setTransactions(transactions);
+			return response;
+		}
+
+		@Override
+		public CommitReservationResponse commitReservation(TraceableMessage<?> message, CommitReservationRequest request) {
+			CommitReservationResponse response = new CommitReservationResponse();
+			response.setStatus(CommitReservationResponse.SUCCESS);
+			response.setResource(resource("overdraft", TransactionResource.NORMAL));
+			return response;
+		}
+	}
+
+	/**
+	 * One effective overdraft instruction for every account.
+	 */
+	static class StubJdbcDao extends JdbcDao {
+		private final List<OverdraftInstruction> instructions;
+
+		StubJdbcDao() {
+			OverdraftInstruction instruction = new OverdraftInstruction();
+			instruction.setEffectiveEnd(LocalDateTime.now().plusYears(1L));
+			instruction.setEffectiveStart(LocalDateTime.now().minusYears(1L));
+			instruction.setInstructionLifecycleStatus("EF");
+			instruction.setOverdraftAccount(new Account());
+			instruction.getOverdraftAccount().setAccountLifeCycleStatus("EF");
+			instruction.getOverdraftAccount().setAccountNumber("overdraft");
+			instructions = Collections.singletonList(instruction);
+		}
+
+		@Override
+		public List<OverdraftInstruction> getOverdraftInstructions(String accountNumber) {
+			return instructions;
+		}
+	}
+
+	/**
+	 * Keeps the last reply instead of sending it, so the benchmark can return it.
+	 */
+	static class StubKafkaProducerDao extends KafkaProducerDao {
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> last;
+
+		@Override
+		public void produceResponse(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) {
+			last = message;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.Acknowledgment;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * FulfillmentController.fulfillTransaction from validation to the reply, with in-memory DAOs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FulfillmentControllerBenchmark {
+	FulfillmentController controller;
+	BenchmarkFixtures.StubKafkaProducerDao kafkaDao;
+	TraceableMessage<TransactionRequest> message;
+	Acknowledgment acknowledgment = () -> {};
+
+	@Setup
+	public void setup() throws Exception {
+		ConfigProperties config = BenchmarkFixtures.config();
+
+		FulfillmentService fulfillmentService = new FulfillmentService();
+		fulfillmentService.setConfig(config);
+		fulfillmentService.setTransactionDao(new BenchmarkFixtures.StubTransactionDao(false));
+		fulfillmentService.setJdbcDao(new BenchmarkFixtures.StubJdbcDao());
+		fulfillmentService.init();
+
+		ProcessedRequestIndex processedIndex = new ProcessedRequestIndex();
+		processedIndex.setConfig(config);
+		processedIndex.init();
+		AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter();
+		concurrencyLimiter.setConfig(config);
+
+		kafkaDao = new BenchmarkFixtures.StubKafkaProducerDao();
+		controller = new FulfillmentController();
+		controller.setConfig(config);
+		controller.setStageTimers(new StageTimers());
+		controller.setAgeMetrics(new MessageAgeMetrics());
+		controller.setStaleFilter(new StaleMessageFilter());
+		controller.setFulfillmentService(fulfillmentService);
+		controller.setKafkaDao(kafkaDao);
+		controller.setProcessedIndex(processedIndex);
+		controller.setConcurrencyLimiter(concurrencyLimiter);
+
+		message = BenchmarkFixtures.message(false);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> fulfillTransaction() {
+		controller.fulfillTransaction(message, acknowledgment);
+		return kafkaDao.last;
+	}
+}
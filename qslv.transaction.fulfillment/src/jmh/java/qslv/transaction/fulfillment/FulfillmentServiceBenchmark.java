@@ -0,0 +1,54 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * FulfillmentService.processTransaction with in-memory DAOs. The direct path is one
+ * recordTransaction; the overdraft path is an insufficient funds answer followed by
+ * reservation, transfer-and-transact and commit against one overdraft account.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FulfillmentServiceBenchmark {
+	@Param({ "direct", "overdraft" })
+	String path;
+
+	FulfillmentService fulfillmentService;
+	TraceableMessage<TransactionRequest> message;
+
+	@Setup
+	public void setup() {
+		boolean overdraft = "overdraft".equals(path);
+		fulfillmentService = new FulfillmentService();
+		fulfillmentService.setConfig(BenchmarkFixtures.config());
+		fulfillmentService.setTransactionDao(new BenchmarkFixtures.StubTransactionDao(overdraft));
+		fulfillmentService.setJdbcDao(new BenchmarkFixtures.StubJdbcDao());
+		fulfillmentService.init();
+		message = BenchmarkFixtures.message(overdraft);
+	}
+
+	@Benchmark
+	public TransactionResponse processTransaction() {
+		return fulfillmentService.processTransaction(message, message.getPayload());
+	}
+}
@@ -0,0 +1,105 @@
+package qslv.transaction.fulfillment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import qslv.common.kafka.JacksonAvroDeserializer;
+import qslv.common.kafka.JacksonAvroSerializer;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * JacksonAvroSerializer / JacksonAvroDeserializer of the reply message, configured as
+ * KafkaProducerConfig and TestConfig do, against the specialized TransactionMessageCodec
+ * (qslv.kafka-json-codec=true) and its compact reply (qslv.kafka-compact-reply-aits).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplySerdeBenchmark {
+	private static final String TOPIC = "transaction.reply.queue";
+
+	JacksonAvroSerializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> serializer;
+	JacksonAvroDeserializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> deserializer;
+	TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply;
+	byte[] serialized;
+	byte[] encoded;
+	byte[] compact;
+
+	@Setup
+	public void setup() {
+		Map<String, Object> configs = new HashMap<>();
+		configs.put("schema.registry.url", "http://localhost:8081");
+
+		serializer = new JacksonAvroSerializer<>();
+		JavaType type = serializer.getTypeFactory().constructParametricType(TraceableMessage.class,
+				serializer.getTypeFactory().constructParametricType(ResponseMessage.class, TransactionRequest.class, TransactionResponse.class));
+		serializer.configure(configs, false, type);
+		deserializer = new JacksonAvroDeserializer<>();
+		deserializer.configure(configs);
+
+		reply = BenchmarkFixtures.reply(BenchmarkFixtures.message(false));
+		serialized = serializer.serialize(TOPIC, reply);
+		encoded = TransactionMessageCodec.writeReply(reply);
+		compact = TransactionMessageCodec.writeCompactReply(reply);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.serialize(TOPIC, reply);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> deserialize() {
+		return deserializer.deserialize(TOPIC, serialized);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> roundTrip() {
+		return deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, reply));
+	}
+
+	@Benchmark
+	public byte[] serializeCodec() {
+		return TransactionMessageCodec.writeReply(reply);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> deserializeCodec() {
+		return TransactionMessageCodec.readReply(encoded);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> roundTripCodec() {
+		return TransactionMessageCodec.readReply(TransactionMessageCodec.writeReply(reply));
+	}
+
+	@Benchmark
+	public byte[] serializeCompact() {
+		return TransactionMessageCodec.writeCompactReply(reply);
+	}
+
+	@Benchmark
+	public TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> deserializeCompact() {
+		return TransactionMessageCodec.readReply(compact);
+	}
+}
@@ -0,0 +1,79 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * TransactionDao request building and the full callService round trip (retry, circuit breaker,
+ * bulkhead, RestTemplate, Jackson) against the loopback TransactionServiceStub with no latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDaoBenchmark {
+	TransactionServiceStub stub;
+	TransactionDao transactionDao;
+	TraceableMessage<TransactionRequest> message;
+
+	@Setup
+	public void setup() throws Exception {
+		stub = new TransactionServiceStub(0L).start();
+		ConfigProperties config = BenchmarkFixtures.config();
+		config.setPostTransactionUrl(stub.url("/Transaction"));
+
+		RestTemplateProxy restTemplateProxy = new RestTemplateProxy();
+		restTemplateProxy.setRestTemplate(new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+				HttpClients.custom().setMaxConnTotal(64).setMaxConnPerRoute(64).build())));
+		transactionDao = new TransactionDao();
+		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
+		transactionDao.setRetryTemplate(new RetryTemplate());
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
+		transactionDao.setRestTemplateProxy(restTemplateProxy);
+		transactionDao.init();
+
+		message = BenchmarkFixtures.message(false);
+	}
+
+	@TearDown
+	public void teardown() {
+		transactionDao.shutdown();
+		stub.stop();
+	}
+
+	@Benchmark
+	public HttpHeaders buildHeaders() {
+		return TransactionDao.buildHeaders("723842", message);
+	}
+
+	@Benchmark
+	public TransactionResponse recordTransaction() {
+		return transactionDao.recordTransaction(message, message.getPayload());
+	}
+}
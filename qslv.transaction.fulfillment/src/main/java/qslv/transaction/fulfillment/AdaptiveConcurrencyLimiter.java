@@ -0,0 +1,195 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Adaptive limit on fulfillments in flight (qslv.adaptive-limit=true), in the style of the
+ * gradient limit from Netflix concurrency-limits. Every completed fulfillment is an RTT
+ * sample. A long-term average of the RTT is the baseline. The limit is scaled by
+ * baseline x tolerance / sample, clamped to [0.5, 1], and then grown by sqrt(limit), so it
+ * grows while latency stays flat and shrinks as soon as latency climbs. A recoverable failure
+ * cuts the limit by 10%.
+ *
+ * The limiter never blocks the caller. When in-flight work reaches the limit, the request
+ * listener container is paused; it is resumed once in-flight work drops below the limit again.
+ * Records already fetched are still fulfilled, so the limit is enforced at poll granularity.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+	private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+	public static final String LISTENER_ID = "qslv-transaction-request";
+	private static final double SMOOTHING = 0.2;
+	private static final double BACKOFF = 0.9;
+	private static final int LONG_WINDOW = 600;
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired(required = false)
+	private KafkaListenerEndpointRegistry listenerRegistry;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile double limit;
+	private double longRtt = 0.0;
+	private long samples = 0;
+	private volatile boolean paused = false;
+	private Counter pauses;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setListenerRegistry(KafkaListenerEndpointRegistry listenerRegistry) {
+		this.listenerRegistry = listenerRegistry;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (false == isEnabled()) {
+			return;
+		}
+		limit = config.getAdaptiveLimitInitial();
+		MeterRegistry registry = (meterRegistry == null) ? new SimpleMeterRegistry() : meterRegistry;
+		Gauge.builder("qslv.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Adaptive limit on fulfillments in flight").register(registry);
+		Gauge.builder("qslv.concurrency.in.flight", inFlight, AtomicInteger::get)
+				.description("Fulfillments in flight").register(registry);
+		pauses = Counter.builder("qslv.concurrency.pauses")
+				.description("Request listener pauses at the adaptive limit").register(registry);
+		log.info("Adaptive concurrency limit {} in [{}, {}].", config.getAdaptiveLimitInitial(),
+				config.getAdaptiveLimitMin(), config.getAdaptiveLimitMax());
+	}
+
+	public boolean isEnabled() {
+		return config.isAdaptiveLimit();
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Count one fulfillment in flight.
+	 * @return the start time to hand back to onSuccess, onDropped or onIgnore.
+	 */
+	public long acquire() {
+		if (inFlight.incrementAndGet() >= (int) limit) {
+			pause();
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * The fulfillment completed; its elapsed time is an RTT sample.
+	 */
+	public void onSuccess(long started) {
+		int current = inFlight.getAndDecrement();
+		sample(System.nanoTime() - started, current);
+		resumeBelowLimit();
+	}
+
+	/**
+	 * The fulfillment failed with a recoverable error; the downstream is overloaded or unavailable.
+	 */
+	public void onDropped(long started) {
+		inFlight.decrementAndGet();
+		synchronized (this) {
+			limit = Math.max(config.getAdaptiveLimitMin(), limit * BACKOFF);
+		}
+		resumeBelowLimit();
+	}
+
+	/**
+	 * The fulfillment failed for a reason that says nothing about downstream latency.
+	 */
+	public void onIgnore(long started) {
+		inFlight.decrementAndGet();
+		resumeBelowLimit();
+	}
+
+	synchronized void sample(long rtt, int current) {
+		samples++;
+		longRtt = (samples == 1) ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+
+		// after a long stretch of high latency, let the baseline come down faster
+		if (longRtt / rtt > 2.0) {
+			longRtt *= 0.95;
+		}
+		// the limit was not the constraint, so the sample says nothing about a higher limit
+		if (current < limit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, config.getAdaptiveLimitRttTolerance() / 100.0 * longRtt / rtt));
+		double newLimit = limit * gradient + Math.sqrt(limit);
+		newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+		limit = Math.max(config.getAdaptiveLimitMin(), Math.min(config.getAdaptiveLimitMax(), newLimit));
+		log.trace("rtt {} long rtt {} gradient {} limit {}", rtt, (long) longRtt, gradient, limit);
+	}
+
+	private void pause() {
+		if (paused) {
+			return;
+		}
+		MessageListenerContainer container = container();
+		synchronized (this) {
+			if (paused) {
+				return;
+			}
+			paused = true;
+			if (container != null) {
+				container.pause();
+			}
+		}
+		if (pauses != null) {
+			pauses.increment();
+		}
+		log.debug("Pause request listener at {} in flight, limit {}.", inFlight.get(), (int) limit);
+	}
+
+	private void resumeBelowLimit() {
+		if (false == paused || inFlight.get() >= (int) limit) {
+			return;
+		}
+		MessageListenerContainer container = container();
+		synchronized (this) {
+			if (false == paused) {
+				return;
+			}
+			paused = false;
+			if (container != null) {
+				container.resume();
+			}
+		}
+		log.debug("Resume request listener at {} in flight, limit {}.", inFlight.get(), (int) limit);
+	}
+
+	private MessageListenerContainer container() {
+		return (listenerRegistry == null) ? null : listenerRegistry.getListenerContainer(LISTENER_ID);
+	}
+}
@@ -0,0 +1,63 @@
+package qslv.transaction.fulfillment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Reply serializer negotiated per caller. Replies to a producerAit listed in
+ * qslv.kafka-compact-reply-aits are written with TransactionMessageCodec.writeCompactReply and
+ * tagged REPLY_FORMAT_HEADER=COMPACT_REPLY. They also carry CODEC_HEADER=CODEC, so
+ * TransactionMessageDeserializer reads them with readReply whichever codec the other replies
+ * use. Every other reply goes to the wrapped serializer unchanged. The format is chosen on the
+ * reply itself, so the record key is not affected.
+ */
+public class CompactReplySerializer implements Serializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> {
+	private static final byte[] COMPACT = TransactionMessageCodec.COMPACT_REPLY.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] CODEC = TransactionMessageCodec.CODEC.getBytes(StandardCharsets.UTF_8);
+	private final Serializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> delegate;
+	private final Set<String> compactAits;
+
+	public CompactReplySerializer(Serializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> delegate,
+			Collection<String> compactAits) {
+		this.delegate = delegate;
+		this.compactAits = new HashSet<>(compactAits);
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		delegate.configure(configs, isKey);
+	}
+
+	@Override
+	public byte[] serialize(String topic, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> data) {
+		// no headers to mark the format with, so the full format is the only safe choice
+		return delegate.serialize(topic, data);
+	}
+
+	@Override
+	public byte[] serialize(String topic, Headers headers, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> data) {
+		if (data != null && headers != null && compactAits.contains(data.getProducerAit())) {
+			headers.remove(TransactionMessageCodec.CODEC_HEADER);
+			headers.add(TransactionMessageCodec.CODEC_HEADER, CODEC);
+			headers.add(TransactionMessageCodec.REPLY_FORMAT_HEADER, COMPACT);
+			return TransactionMessageCodec.writeCompactReply(data);
+		}
+		return delegate.serialize(topic, headers, data);
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
@@ -1,5 +1,10 @@
 package qslv.transaction.fulfillment;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,8 +17,12 @@ public class ConfigProperties {
 
 	private String aitid;
 	private String commitReservationUrl;
+	private String cancelReservationUrl;
 	private String postReservationUrl;
 	private String postTransactionUrl;
+	private String postTransactionBatchUrl;
+	private int transactionBatchMaxSize = 50;
+	private int transactionBatchWindow = 5;
 	private String transferAndTransactUrl;
 	private int restConnectionRequestTimeout = 1000;
 	private int restConnectTimeout = 1000;
@@ -21,11 +30,55 @@ public class ConfigProperties {
 	private int restAttempts = 3;
 	private int restBackoffDelay = 100;
 	private int restBackoffDelayMax = 500; 
+	private int restPoolMaxTotal = 200;
+	private int restPoolMaxPerRoute = 100;
+	private int restPoolValidateAfterInactivity = 2000;
+	private int restPoolIdleTimeout = 30000;
+	private int restKeepAlive = 30000;
+	private int restBreakerWindowSize = 100;
+	private int restBreakerMinimumCalls = 20;
+	private int restBreakerFailureRate = 50;
+	private int restBreakerSlowCallRate = 100;
+	private int restBreakerSlowCallDuration = 1000;
+	private int restBreakerOpenDuration = 10000;
+	private int restBreakerHalfOpenCalls = 5;
+	private int restBulkheadMaxConcurrent = 100;
+	private int restBulkheadMaxWait = 0;
 	private String kafkaTransactionRequestQueue;
 	private String kafkaTransactionReplyQueue;
 	private String kafkaProducerPropertiesPath;
 	private String kafkaConsumerPropertiesPath;
 	private int kafkaTimeout;
+	private boolean kafkaBatchListener = false;
+	private int kafkaParallelWorkers = 0;
+	private int kafkaParallelMaxInFlight = 1000;
+	private boolean kafkaAsyncReply = false;
+	private boolean kafkaJsonCodec = false;
+	private List<String> kafkaCompactReplyAits = new ArrayList<>();
+	private String kafkaReplyCompressionType = "none";
+	private String kafkaTransactionalIdPrefix;
+	private boolean virtualThreads = false;
+	private boolean reactiveRest = false;
+	private int overdraftCacheMaxEntries = 0;
+	private int overdraftCacheTtl = 60000;
+	private String kafkaOverdraftInvalidationQueue;
+	private boolean overdraftPrefetch = false;
+	private int overdraftPrefetchThreads = 8;
+	private int overdraftParallelReservations = 1;
+	private int processedIndexCapacity = 0;
+	private String processedIndexFile;
+	private int processedIndexFileSize = 64 * 1024 * 1024;
+	private List<Long> kafkaRetryDelays = new ArrayList<>();
+	private boolean adaptiveLimit = false;
+	private int adaptiveLimitInitial = 20;
+	private int adaptiveLimitMin = 1;
+	private int adaptiveLimitMax = 200;
+	private int adaptiveLimitRttTolerance = 150;
+	private int sloMessageAge = 1000;
+	private double sloTarget = 99.0;
+	private int sloWindow = 300000;
+	private long staleMessageMaxAge = 0L;
+	private Map<String, Long> staleMessageMaxAgeByTaxonomy = new HashMap<>();
 
 	public String getAitid() {
 		return aitid;
@@ -155,4 +208,392 @@ public class ConfigProperties {
 		this.kafkaConsumerPropertiesPath = kafkaConsumerPropertiesPath;
 	}
 
+	public boolean isKafkaBatchListener() {
+		return kafkaBatchListener;
+	}
+
+	public void setKafkaBatchListener(boolean kafkaBatchListener) {
+		this.kafkaBatchListener = kafkaBatchListener;
+	}
+
+	public int getKafkaParallelWorkers() {
+		return kafkaParallelWorkers;
+	}
+
+	public void setKafkaParallelWorkers(int kafkaParallelWorkers) {
+		this.kafkaParallelWorkers = kafkaParallelWorkers;
+	}
+
+	public int getKafkaParallelMaxInFlight() {
+		return kafkaParallelMaxInFlight;
+	}
+
+	public void setKafkaParallelMaxInFlight(int kafkaParallelMaxInFlight) {
+		this.kafkaParallelMaxInFlight = kafkaParallelMaxInFlight;
+	}
+
+	public boolean isKafkaAsyncReply() {
+		return kafkaAsyncReply;
+	}
+
+	public void setKafkaAsyncReply(boolean kafkaAsyncReply) {
+		this.kafkaAsyncReply = kafkaAsyncReply;
+	}
+
+	public String getKafkaTransactionalIdPrefix() {
+		return kafkaTransactionalIdPrefix;
+	}
+
+	public void setKafkaTransactionalIdPrefix(String kafkaTransactionalIdPrefix) {
+		this.kafkaTransactionalIdPrefix = kafkaTransactionalIdPrefix;
+	}
+
+	public boolean isKafkaTransactional() {
+		return kafkaTransactionalIdPrefix != null && false == kafkaTransactionalIdPrefix.isEmpty();
+	}
+
+	public int getRestPoolMaxTotal() {
+		return restPoolMaxTotal;
+	}
+
+	public void setRestPoolMaxTotal(int restPoolMaxTotal) {
+		this.restPoolMaxTotal = restPoolMaxTotal;
+	}
+
+	public int getRestPoolMaxPerRoute() {
+		return restPoolMaxPerRoute;
+	}
+
+	public void setRestPoolMaxPerRoute(int restPoolMaxPerRoute) {
+		this.restPoolMaxPerRoute = restPoolMaxPerRoute;
+	}
+
+	public int getRestPoolValidateAfterInactivity() {
+		return restPoolValidateAfterInactivity;
+	}
+
+	public void setRestPoolValidateAfterInactivity(int restPoolValidateAfterInactivity) {
+		this.restPoolValidateAfterInactivity = restPoolValidateAfterInactivity;
+	}
+
+	public int getRestPoolIdleTimeout() {
+		return restPoolIdleTimeout;
+	}
+
+	public void setRestPoolIdleTimeout(int restPoolIdleTimeout) {
+		this.restPoolIdleTimeout = restPoolIdleTimeout;
+	}
+
+	public int getRestKeepAlive() {
+		return restKeepAlive;
+	}
+
+	public void setRestKeepAlive(int restKeepAlive) {
+		this.restKeepAlive = restKeepAlive;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public int getOverdraftCacheMaxEntries() {
+		return overdraftCacheMaxEntries;
+	}
+
+	public void setOverdraftCacheMaxEntries(int overdraftCacheMaxEntries) {
+		this.overdraftCacheMaxEntries = overdraftCacheMaxEntries;
+	}
+
+	public int getOverdraftCacheTtl() {
+		return overdraftCacheTtl;
+	}
+
+	public void setOverdraftCacheTtl(int overdraftCacheTtl) {
+		this.overdraftCacheTtl = overdraftCacheTtl;
+	}
+
+	public String getKafkaOverdraftInvalidationQueue() {
+		return kafkaOverdraftInvalidationQueue;
+	}
+
+	public void setKafkaOverdraftInvalidationQueue(String kafkaOverdraftInvalidationQueue) {
+		this.kafkaOverdraftInvalidationQueue = kafkaOverdraftInvalidationQueue;
+	}
+
+	public boolean isOverdraftPrefetch() {
+		return overdraftPrefetch;
+	}
+
+	public void setOverdraftPrefetch(boolean overdraftPrefetch) {
+		this.overdraftPrefetch = overdraftPrefetch;
+	}
+
+	public int getOverdraftPrefetchThreads() {
+		return overdraftPrefetchThreads;
+	}
+
+	public void setOverdraftPrefetchThreads(int overdraftPrefetchThreads) {
+		this.overdraftPrefetchThreads = overdraftPrefetchThreads;
+	}
+
+	public String getCancelReservationUrl() {
+		return cancelReservationUrl;
+	}
+
+	public void setCancelReservationUrl(String cancelReservationUrl) {
+		this.cancelReservationUrl = cancelReservationUrl;
+	}
+
+	public int getOverdraftParallelReservations() {
+		return overdraftParallelReservations;
+	}
+
+	public void setOverdraftParallelReservations(int overdraftParallelReservations) {
+		this.overdraftParallelReservations = overdraftParallelReservations;
+	}
+
+	public int getProcessedIndexCapacity() {
+		return processedIndexCapacity;
+	}
+
+	public void setProcessedIndexCapacity(int processedIndexCapacity) {
+		this.processedIndexCapacity = processedIndexCapacity;
+	}
+
+	public String getProcessedIndexFile() {
+		return processedIndexFile;
+	}
+
+	public void setProcessedIndexFile(String processedIndexFile) {
+		this.processedIndexFile = processedIndexFile;
+	}
+
+	public int getProcessedIndexFileSize() {
+		return processedIndexFileSize;
+	}
+
+	public void setProcessedIndexFileSize(int processedIndexFileSize) {
+		this.processedIndexFileSize = processedIndexFileSize;
+	}
+
+	public List<Long> getKafkaRetryDelays() {
+		return kafkaRetryDelays;
+	}
+
+	public void setKafkaRetryDelays(List<Long> kafkaRetryDelays) {
+		this.kafkaRetryDelays = kafkaRetryDelays;
+	}
+
+	public int getRestBreakerWindowSize() {
+		return restBreakerWindowSize;
+	}
+
+	public void setRestBreakerWindowSize(int restBreakerWindowSize) {
+		this.restBreakerWindowSize = restBreakerWindowSize;
+	}
+
+	public int getRestBreakerMinimumCalls() {
+		return restBreakerMinimumCalls;
+	}
+
+	public void setRestBreakerMinimumCalls(int restBreakerMinimumCalls) {
+		this.restBreakerMinimumCalls = restBreakerMinimumCalls;
+	}
+
+	public int getRestBreakerFailureRate() {
+		return restBreakerFailureRate;
+	}
+
+	public void setRestBreakerFailureRate(int restBreakerFailureRate) {
+		this.restBreakerFailureRate = restBreakerFailureRate;
+	}
+
+	public int getRestBreakerSlowCallRate() {
+		return restBreakerSlowCallRate;
+	}
+
+	public void setRestBreakerSlowCallRate(int restBreakerSlowCallRate) {
+		this.restBreakerSlowCallRate = restBreakerSlowCallRate;
+	}
+
+	public int getRestBreakerSlowCallDuration() {
+		return restBreakerSlowCallDuration;
+	}
+
+	public void setRestBreakerSlowCallDuration(int restBreakerSlowCallDuration) {
+		this.restBreakerSlowCallDuration = restBreakerSlowCallDuration;
+	}
+
+	public int getRestBreakerOpenDuration() {
+		return restBreakerOpenDuration;
+	}
+
+	public void setRestBreakerOpenDuration(int restBreakerOpenDuration) {
+		this.restBreakerOpenDuration = restBreakerOpenDuration;
+	}
+
+	public int getRestBreakerHalfOpenCalls() {
+		return restBreakerHalfOpenCalls;
+	}
+
+	public void setRestBreakerHalfOpenCalls(int restBreakerHalfOpenCalls) {
+		this.restBreakerHalfOpenCalls = restBreakerHalfOpenCalls;
+	}
+
+	public int getRestBulkheadMaxConcurrent() {
+		return restBulkheadMaxConcurrent;
+	}
+
+	public void setRestBulkheadMaxConcurrent(int restBulkheadMaxConcurrent) {
+		this.restBulkheadMaxConcurrent = restBulkheadMaxConcurrent;
+	}
+
+	public int getRestBulkheadMaxWait() {
+		return restBulkheadMaxWait;
+	}
+
+	public void setRestBulkheadMaxWait(int restBulkheadMaxWait) {
+		this.restBulkheadMaxWait = restBulkheadMaxWait;
+	}
+
+	public boolean isAdaptiveLimit() {
+		return adaptiveLimit;
+	}
+
+	public void setAdaptiveLimit(boolean adaptiveLimit) {
+		this.adaptiveLimit = adaptiveLimit;
+	}
+
+	public int getAdaptiveLimitInitial() {
+		return adaptiveLimitInitial;
+	}
+
+	public void setAdaptiveLimitInitial(int adaptiveLimitInitial) {
+		this.adaptiveLimitInitial = adaptiveLimitInitial;
+	}
+
+	public int getAdaptiveLimitMin() {
+		return adaptiveLimitMin;
+	}
+
+	public void setAdaptiveLimitMin(int adaptiveLimitMin) {
+		this.adaptiveLimitMin = adaptiveLimitMin;
+	}
+
+	public int getAdaptiveLimitMax() {
+		return adaptiveLimitMax;
+	}
+
+	public void setAdaptiveLimitMax(int adaptiveLimitMax) {
+		this.adaptiveLimitMax = adaptiveLimitMax;
+	}
+
+	public int getAdaptiveLimitRttTolerance() {
+		return adaptiveLimitRttTolerance;
+	}
+
+	public void setAdaptiveLimitRttTolerance(int adaptiveLimitRttTolerance) {
+		this.adaptiveLimitRttTolerance = adaptiveLimitRttTolerance;
+	}
+
+	public String getPostTransactionBatchUrl() {
+		return postTransactionBatchUrl;
+	}
+
+	public void setPostTransactionBatchUrl(String postTransactionBatchUrl) {
+		this.postTransactionBatchUrl = postTransactionBatchUrl;
+	}
+
+	public int getTransactionBatchMaxSize() {
+		return transactionBatchMaxSize;
+	}
+
+	public void setTransactionBatchMaxSize(int transactionBatchMaxSize) {
+		this.transactionBatchMaxSize = transactionBatchMaxSize;
+	}
+
+	public int getTransactionBatchWindow() {
+		return transactionBatchWindow;
+	}
+
+	public void setTransactionBatchWindow(int transactionBatchWindow) {
+		this.transactionBatchWindow = transactionBatchWindow;
+	}
+
+	public int getSloMessageAge() {
+		return sloMessageAge;
+	}
+
+	public void setSloMessageAge(int sloMessageAge) {
+		this.sloMessageAge = sloMessageAge;
+	}
+
+	public double getSloTarget() {
+		return sloTarget;
+	}
+
+	public void setSloTarget(double sloTarget) {
+		this.sloTarget = sloTarget;
+	}
+
+	public int getSloWindow() {
+		return sloWindow;
+	}
+
+	public void setSloWindow(int sloWindow) {
+		this.sloWindow = sloWindow;
+	}
+
+	public long getStaleMessageMaxAge() {
+		return staleMessageMaxAge;
+	}
+
+	public void setStaleMessageMaxAge(long staleMessageMaxAge) {
+		this.staleMessageMaxAge = staleMessageMaxAge;
+	}
+
+	public Map<String, Long> getStaleMessageMaxAgeByTaxonomy() {
+		return staleMessageMaxAgeByTaxonomy;
+	}
+
+	public void setStaleMessageMaxAgeByTaxonomy(Map<String, Long> staleMessageMaxAgeByTaxonomy) {
+		this.staleMessageMaxAgeByTaxonomy = staleMessageMaxAgeByTaxonomy;
+	}
+
+	public boolean isKafkaJsonCodec() {
+		return kafkaJsonCodec;
+	}
+
+	public void setKafkaJsonCodec(boolean kafkaJsonCodec) {
+		this.kafkaJsonCodec = kafkaJsonCodec;
+	}
+
+	public List<String> getKafkaCompactReplyAits() {
+		return kafkaCompactReplyAits;
+	}
+
+	public void setKafkaCompactReplyAits(List<String> kafkaCompactReplyAits) {
+		this.kafkaCompactReplyAits = kafkaCompactReplyAits;
+	}
+
+	public String getKafkaReplyCompressionType() {
+		return kafkaReplyCompressionType;
+	}
+
+	public void setKafkaReplyCompressionType(String kafkaReplyCompressionType) {
+		this.kafkaReplyCompressionType = kafkaReplyCompressionType;
+	}
+
+	public boolean isReactiveRest() {
+		return reactiveRest;
+	}
+
+	public void setReactiveRest(boolean reactiveRest) {
+		this.reactiveRest = reactiveRest;
+	}
+
 }
@@ -0,0 +1,42 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import qslv.common.kafka.TraceableMessage;
+
+/*
+ * Writes the envelope headers of every record and serializes the value with the wrapped serializer.
+ */
+public class EnvelopeHeaderSerializer<T extends TraceableMessage<?>> implements Serializer<T> {
+	private final Serializer<T> delegate;
+
+	public EnvelopeHeaderSerializer(Serializer<T> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		delegate.configure(configs, isKey);
+	}
+
+	@Override
+	public byte[] serialize(String topic, T data) {
+		return delegate.serialize(topic, data);
+	}
+
+	@Override
+	public byte[] serialize(String topic, Headers headers, T data) {
+		if (data != null) {
+			EnvelopeHeaders.write(headers, data);
+		}
+		return delegate.serialize(topic, headers, data);
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
@@ -0,0 +1,74 @@
+package qslv.transaction.fulfillment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import qslv.common.kafka.TraceableMessage;
+
+/*
+ * The TraceableMessage envelope copied into record headers, so a consumer can validate, route
+ * and shed a record without decoding its body. Values are UTF-8 text; the creation and
+ * completion times are ISO local date-times like the envelope itself. A record carries
+ * envelope headers when it has CORRELATION_ID.
+ */
+public final class EnvelopeHeaders {
+	public static final String PRODUCER_AIT = "qslv-producer-ait";
+	public static final String CORRELATION_ID = "qslv-correlation-id";
+	public static final String BUSINESS_TAXONOMY_ID = "qslv-business-taxonomy-id";
+	public static final String MESSAGE_CREATION_TIME = "qslv-message-creation-time";
+	public static final String MESSAGE_COMPLETION_TIME = "qslv-message-completion-time";
+
+	private EnvelopeHeaders() {
+	}
+
+	public static void write(Headers headers, TraceableMessage<?> message) {
+		put(headers, PRODUCER_AIT, message.getProducerAit());
+		put(headers, CORRELATION_ID, message.getCorrelationId());
+		put(headers, BUSINESS_TAXONOMY_ID, message.getBusinessTaxonomyId());
+		put(headers, MESSAGE_CREATION_TIME, message.getMessageCreationTime() == null ? null : message.getMessageCreationTime().toString());
+		put(headers, MESSAGE_COMPLETION_TIME, message.getMessageCompletionTime() == null ? null : message.getMessageCompletionTime().toString());
+	}
+
+	public static boolean isPresent(Headers headers) {
+		return headers != null && headers.lastHeader(CORRELATION_ID) != null;
+	}
+
+	/**
+	 * Copy the envelope from headers into message. A missing or unreadable field is left null,
+	 * for validation to reject.
+	 */
+	public static void read(Headers headers, TraceableMessage<?> message) {
+		message.setProducerAit(get(headers, PRODUCER_AIT));
+		message.setCorrelationId(get(headers, CORRELATION_ID));
+		message.setBusinessTaxonomyId(get(headers, BUSINESS_TAXONOMY_ID));
+		message.setMessageCreationTime(dateTime(get(headers, MESSAGE_CREATION_TIME)));
+		message.setMessageCompletionTime(dateTime(get(headers, MESSAGE_COMPLETION_TIME)));
+	}
+
+	private static void put(Headers headers, String name, String value) {
+		headers.remove(name);
+		if (value != null) {
+			headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String get(Headers headers, String name) {
+		Header header = headers.lastHeader(name);
+		return (header == null || header.value() == null) ? null : new String(header.value(), StandardCharsets.UTF_8);
+	}
+
+	private static LocalDateTime dateTime(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return LocalDateTime.parse(value);
+		} catch (DateTimeParseException ex) {
+			return null;
+		}
+	}
+}
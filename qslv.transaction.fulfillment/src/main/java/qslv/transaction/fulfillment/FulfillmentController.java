@@ -1,9 +1,12 @@
 package qslv.transaction.fulfillment;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.NonTransientDataAccessResourceException;
 import org.springframework.dao.TransientDataAccessException;
@@ -26,69 +29,272 @@ public class FulfillmentController {
 	FulfillmentService fulfillmentService;
 	@Autowired
 	private KafkaProducerDao kafkaDao;
+	@Autowired
+	private ProcessedRequestIndex processedIndex;
+	@Autowired
+	private AdaptiveConcurrencyLimiter concurrencyLimiter;
+	@Autowired
+	private StageTimers stageTimers;
+	@Autowired
+	private MessageAgeMetrics ageMetrics;
+	@Autowired
+	private StaleMessageFilter staleFilter;
+	@Autowired
+	private QuarantineRouter quarantine;
 
 	public void setKafkaDao(KafkaProducerDao kafkaDao) {
 		this.kafkaDao = kafkaDao;
 	}
+	public void setProcessedIndex(ProcessedRequestIndex processedIndex) {
+		this.processedIndex = processedIndex;
+	}
+	public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
 	public void setConfig(ConfigProperties config) {
 		this.config = config;
 	}
 	public void setFulfillmentService(FulfillmentService fulfillmentService) {
 		this.fulfillmentService = fulfillmentService;
 	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+	public void setAgeMetrics(MessageAgeMetrics ageMetrics) {
+		this.ageMetrics = ageMetrics;
+	}
+	public void setStaleFilter(StaleMessageFilter staleFilter) {
+		this.staleFilter = staleFilter;
+	}
+	public void setQuarantine(QuarantineRouter quarantine) {
+		this.quarantine = quarantine;
+	}
 
 	public void fulfillTransaction(TraceableMessage<TransactionRequest> message, Acknowledgment acknowledgment) {
-		log.warn("ENTRY FulfillmentController::fulfillTransaction");
-		
-		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> traceableResponse = 
-				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		log.trace("ENTRY FulfillmentController::fulfillTransaction");
+
+		if (processMessage(message)) {
+			stageTimers.acknowledge(acknowledgment, config.getKafkaTransactionRequestQueue());
+		} else {
+			acknowledgment.nack(10000L);
+		}
+		log.trace("EXIT FulfillmentController::fulfillTransaction");
+	}
+
+	/**
+	 * Fulfill one request and produce its reply without touching the Kafka offset.
+	 * @return true when the message is finished and its offset may be committed,
+	 * false when a recoverable failure means the message must be redelivered.
+	 */
+	public boolean processMessage(TraceableMessage<TransactionRequest> message) {
+		return fulfill(message, false, false).join();
+	}
 
+	/**
+	 * Same as processMessage, but the reply is handed to the producer without waiting for the broker.
+	 * The future completes with true once the reply is confirmed, or immediately with false when
+	 * the message must be redelivered.
+	 */
+	public CompletableFuture<Boolean> processMessageAsync(TraceableMessage<TransactionRequest> message) {
+		return fulfill(message, true, false);
+	}
+
+	/**
+	 * Same as processMessageAsync, and with qslv.reactive-rest=true the POST /Transaction does not
+	 * hold the calling thread either; a recoverable failure can then complete the future with
+	 * false later. The caller keeps requests for one account in order.
+	 */
+	public CompletableFuture<Boolean> processMessageNonBlocking(TraceableMessage<TransactionRequest> message) {
+		return fulfill(message, true, true);
+	}
+
+	private CompletableFuture<Boolean> fulfill(TraceableMessage<TransactionRequest> message, boolean asyncReply, boolean nonBlocking) {
+		long entered = ageMetrics.received(message.getMessageCreationTime());
+		// lets PayloadDebugFilter switch on debug logging for this message only
+		MDC.put(PayloadDebugFilter.MDC_KEY, message.getCorrelationId());
 		try {
-			validateMessage(message);
-			validateTransactionRequest(message.getPayload());	
+			return fulfill(message, asyncReply, nonBlocking, entered).thenApply(done -> {
+				if (done) {
+					ageMetrics.replied(message.getMessageCreationTime(), entered);
+				}
+				return done;
+			});
+		} finally {
+			MDC.remove(PayloadDebugFilter.MDC_KEY);
+		}
+	}
 
-			TransactionResponse transactionResponse = fulfillmentService.processTransaction(message, message.getPayload());
+	private CompletableFuture<Boolean> fulfill(TraceableMessage<TransactionRequest> message, boolean asyncReply, boolean nonBlocking, long entered) {
+		// the stale check reads only the envelope, so an expired request is answered without decoding its body
+		if (staleFilter.isEnabled() && staleFilter.isExpired(message.getBusinessTaxonomyId(), message.getMessageCreationTime())) {
+			log.warn("Request with Correlation Id {} created {} expired. Not fulfilled.", message.getCorrelationId(), message.getMessageCreationTime());
+			TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> expiredResponse =
+					new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>((TransactionRequest) null));
+			expiredResponse.getPayload().setStatus(StaleMessageFilter.EXPIRED);
+			expiredResponse.getPayload().setErrorMessage("EXPIRED");
+			expiredResponse.setMessageCompletionTime(LocalDateTime.now());
+			try {
+				return produce(expiredResponse, asyncReply);
+			} catch (RuntimeException ex) {
+				log.warn("EXPIRED reply not produced. Keep message on Kafka. {}", ex.getLocalizedMessage());
+				return CompletableFuture.completedFuture(false);
+			}
+		}
 
-			traceableResponse.getPayload().setResponse( transactionResponse );
-			traceableResponse.setMessageCompletionTime(LocalDateTime.now());
+		log.debug("Fulfill {}", LogSafe.payload(message));
 
-			kafkaDao.produceResponse(traceableResponse);
-			ServiceLevelIndicator.logAsyncServiceElapsedTime(log, "TransferFulfillment::fulfillCancel", 
-					config.getAitid(), message.getMessageCreationTime());
-		} catch (TransientDataAccessException ex) {
-			log.warn("Recoverable error. Return message to Kafka and sleep for {} ms.", config.getKafkaTimeout());
-			acknowledgment.nack(10000L);
-			return;	
+		try {
+			validate(message);
 
+			TransactionResponse transactionResponse = processedIndex.isEnabled()
+					? processedIndex.get(message.getPayload().getRequestUuid()) : null;
+			if (transactionResponse != null) {
+				log.debug("Request {} already fulfilled. Reply from the processed request index.", message.getPayload().getRequestUuid());
+				TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> traceableResponse = response(message);
+				traceableResponse.getPayload().setResponse( transactionResponse );
+				traceableResponse.setMessageCompletionTime(LocalDateTime.now());
+				return produce(traceableResponse, asyncReply);
+			}
+
+			if (nonBlocking) {
+				return processTransactionAsync(message)
+						.thenCompose(fulfilled -> reply(message, fulfilled, asyncReply))
+						.handle((done, ex) -> (ex == null) ? CompletableFuture.completedFuture(done)
+								: failed(message, (ex instanceof CompletionException) ? ex.getCause() : ex, asyncReply))
+						.thenCompose(done -> done);
+			}
+			transactionResponse = processTransaction(message);
+			return reply(message, transactionResponse, asyncReply);
 		} catch (Exception ex) {
-			log.error("Unrecoverable exception thrown. {}", ex.getLocalizedMessage());
+			return failed(message, ex, asyncReply);
+		}
+	}
+
+	private CompletableFuture<Boolean> reply(TraceableMessage<TransactionRequest> message,
+			TransactionResponse transactionResponse, boolean asyncReply) {
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> traceableResponse = response(message);
+		traceableResponse.getPayload().setResponse( transactionResponse );
+		traceableResponse.setMessageCompletionTime(LocalDateTime.now());
+
+		CompletableFuture<Boolean> replied = produce(traceableResponse, asyncReply);
+		if (processedIndex.isEnabled()) {
+			// only a reply the broker has accepted makes a redelivery a duplicate
+			replied = replied.thenApply(done -> {
+				processedIndex.put(message.getPayload().getRequestUuid(), transactionResponse);
+				return done;
+			});
+		}
+		ServiceLevelIndicator.logAsyncServiceElapsedTime(log, "TransferFulfillment::fulfillCancel", 
+				config.getAitid(), message.getMessageCreationTime());
+		return replied;
+	}
 
-			traceableResponse.getPayload().setErrorMessage(ex.getLocalizedMessage());
+	private CompletableFuture<Boolean> failed(TraceableMessage<TransactionRequest> message, Throwable ex, boolean asyncReply) {
+		if (ex instanceof TransientDataAccessException) {
+			log.warn("Recoverable error. Return message to Kafka and sleep for {} ms.", config.getKafkaTimeout());
+			return CompletableFuture.completedFuture(false);
+		}
+		if (ex instanceof MalformedMessageException && QuarantineRouter.isUndecodable(message)) {
+			// the body failed to decode only now; it goes where the poll thread would have sent it
+			return CompletableFuture.completedFuture(quarantine.route((LazyTraceableMessage) message));
+		}
+		log.error("Unrecoverable exception thrown. {}", ex.getLocalizedMessage());
+
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> traceableResponse = response(message);
+		traceableResponse.getPayload().setErrorMessage(ex.getLocalizedMessage());
+		traceableResponse.getPayload().setStatus(ResponseMessage.INTERNAL_ERROR);
+		if ( ex instanceof MalformedMessageException ) {
+			traceableResponse.getPayload().setStatus(ResponseMessage.MALFORMED_MESSAGE);
+		} else {
 			traceableResponse.getPayload().setStatus(ResponseMessage.INTERNAL_ERROR);
-			if ( ex instanceof MalformedMessageException ) {
-				traceableResponse.getPayload().setStatus(ResponseMessage.MALFORMED_MESSAGE);
+		}
+		
+		try {
+			return produce(traceableResponse, asyncReply);
+		} catch (Exception iex) {
+			log.error("Additional unexpected exception caught while processing unexpected exception. Keep message on Kafka. {}", iex.getLocalizedMessage());
+			return CompletableFuture.completedFuture(false);
+		}
+	}
+
+	/*
+	 * The reply echoes the request only once something has decoded it, so a message rejected on
+	 * its envelope is answered without decoding the body.
+	 */
+	private static TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> response(TraceableMessage<TransactionRequest> message) {
+		TransactionRequest request = (message instanceof LazyTraceableMessage && false == ((LazyTraceableMessage) message).isDecoded())
+				? null : message.getPayload();
+		return new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(request));
+	}
+
+	private TransactionResponse processTransaction(TraceableMessage<TransactionRequest> message) {
+		if (false == concurrencyLimiter.isEnabled()) {
+			return fulfillmentService.processTransaction(message, message.getPayload());
+		}
+		long started = concurrencyLimiter.acquire();
+		try {
+			TransactionResponse transactionResponse = fulfillmentService.processTransaction(message, message.getPayload());
+			concurrencyLimiter.onSuccess(started);
+			return transactionResponse;
+		} catch (TransientDataAccessException ex) {
+			concurrencyLimiter.onDropped(started);
+			throw ex;
+		} catch (RuntimeException ex) {
+			concurrencyLimiter.onIgnore(started);
+			throw ex;
+		}
+	}
+
+	private CompletableFuture<TransactionResponse> processTransactionAsync(TraceableMessage<TransactionRequest> message) {
+		CompletableFuture<TransactionResponse> processed;
+		long started = concurrencyLimiter.isEnabled() ? concurrencyLimiter.acquire() : 0L;
+		try {
+			processed = fulfillmentService.processTransactionAsync(message, message.getPayload());
+		} catch (RuntimeException ex) {
+			processed = new CompletableFuture<>();
+			processed.completeExceptionally(ex);
+		}
+		if (false == concurrencyLimiter.isEnabled()) {
+			return processed;
+		}
+		return processed.whenComplete((transactionResponse, ex) -> {
+			Throwable cause = (ex instanceof CompletionException) ? ex.getCause() : ex;
+			if (ex == null) {
+				concurrencyLimiter.onSuccess(started);
+			} else if (cause instanceof TransientDataAccessException) {
+				concurrencyLimiter.onDropped(started);
 			} else {
-				traceableResponse.getPayload().setStatus(ResponseMessage.INTERNAL_ERROR);
-			}
-			
-			try {
-				kafkaDao.produceResponse(traceableResponse);
-			} catch (Exception iex) {
-				log.error("Additional unexpected exception caught while processing unexpected exception. Keep message on Kafka. {}", iex.getLocalizedMessage());
-				acknowledgment.nack(10000L);
-				return;	
+				concurrencyLimiter.onIgnore(started);
 			}
-		}
+		});
+	}
 
-		acknowledgment.acknowledge();
-		log.warn("EXIT FulfillmentController::fulfillTransaction");
+	private CompletableFuture<Boolean> produce(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> traceableResponse, boolean asyncReply) {
+		if (asyncReply) {
+			return kafkaDao.produceResponseAsync(traceableResponse).thenApply(result -> true);
+		}
+		kafkaDao.produceResponse(traceableResponse);
+		return CompletableFuture.completedFuture(true);
 	}
+
 	public class MalformedMessageException extends RuntimeException {
 		private static final long serialVersionUID = 1L;
 		public MalformedMessageException(String msg) {
 			super(msg);
 		}
 	}
+	private void validate(TraceableMessage<TransactionRequest> message) {
+		long start = System.nanoTime();
+		try {
+			validateMessage(message);
+			validateTransactionRequest(message.getPayload());
+		} catch (RuntimeException ex) {
+			stageTimers.record(StageTimers.VALIDATE, "local", StageTimers.outcome(ex), start);
+			throw ex;
+		}
+		stageTimers.record(StageTimers.VALIDATE, "local", StageTimers.SUCCESS, start);
+	}
+
 	private void validateTransactionRequest( TransactionRequest request) {
 		if (request.getRequestUuid() == null) {
 			throw new MalformedMessageException("Malformed message payload. Missing From Request UUID.");
@@ -0,0 +1,49 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Worker pools for fulfillment. The code is compiled for Java 8, so the Java 21 virtual thread
+ * executor is looked up reflectively and only when qslv.virtual-threads=true.
+ */
+final class FulfillmentExecutors {
+
+	private FulfillmentExecutors() {
+	}
+
+	static ExecutorService newWorkerExecutor(ConfigProperties config) {
+		if (config.isVirtualThreads()) {
+			return newVirtualThreadPerTaskExecutor();
+		}
+		return Executors.newFixedThreadPool(config.getKafkaParallelWorkers(), namedThreads("fulfillment-worker"));
+	}
+
+	static boolean virtualThreadsAvailable() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException ex) {
+			return false;
+		}
+	}
+
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("qslv.virtual-threads requires Java 21 or later. Running " + System.getProperty("java.version"), ex);
+		}
+	}
+
+	static ThreadFactory namedThreads(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
@@ -1,14 +1,26 @@
 package qslv.transaction.fulfillment;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import qslv.common.kafka.TraceableMessage;
 import qslv.data.Account;
 import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.CancelReservationRequest;
 import qslv.transaction.request.CommitReservationRequest;
 import qslv.transaction.request.ReservationRequest;
 import qslv.transaction.request.TransactionRequest;
@@ -27,6 +39,21 @@ public class FulfillmentService {
 	JdbcDao jdbcDao;
 	@Autowired
 	private TransactionDao transactionDao;
+	@Autowired
+	private ConfigProperties config;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+	@Autowired(required = false)
+	private ReactiveTransactionDao reactiveTransactionDao;
+
+	// Overdraft instruction prefetch (qslv.overdraft-prefetch). Null when the mode is off.
+	private ExecutorService prefetchExecutor;
+	private Counter prefetchUsed;
+	private Counter prefetchWasted;
+	// Concurrent overdraft reservations (qslv.overdraft-parallel-reservations > 1). Null when sequential.
+	private ExecutorService reservationExecutor;
+	// Overdraft steps after a non-blocking POST /Transaction (qslv.reactive-rest). Null when the mode is off.
+	private ExecutorService overdraftExecutor;
 
 	public void setJdbcDao(JdbcDao jdbcDao) {
 		this.jdbcDao = jdbcDao;
@@ -34,15 +61,117 @@ public class FulfillmentService {
 	public void setTransactionDao(TransactionDao transactionDao) {
 		this.transactionDao = transactionDao;
 	}
-	
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	public void setReactiveTransactionDao(ReactiveTransactionDao reactiveTransactionDao) {
+		this.reactiveTransactionDao = reactiveTransactionDao;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (config.isOverdraftPrefetch()) {
+			log.info("Overdraft instruction prefetch with {} threads.", config.getOverdraftPrefetchThreads());
+			MeterRegistry registry = (meterRegistry == null) ? new SimpleMeterRegistry() : meterRegistry;
+			prefetchUsed = Counter.builder("qslv.overdraft.prefetch").tag("result", "used")
+					.description("Prefetched overdraft instructions that were needed").register(registry);
+			prefetchWasted = Counter.builder("qslv.overdraft.prefetch").tag("result", "wasted")
+					.description("Prefetched overdraft instructions that were thrown away").register(registry);
+			prefetchExecutor = Executors.newFixedThreadPool(config.getOverdraftPrefetchThreads(), FulfillmentExecutors.namedThreads("overdraft-prefetch"));
+		}
+		if (config.getOverdraftParallelReservations() > 1) {
+			log.info("Overdraft reservations {} accounts at a time.", config.getOverdraftParallelReservations());
+			// one window per fulfillment that can be in flight at once
+			int fulfillments = config.isVirtualThreads() ? config.getKafkaParallelMaxInFlight() : Math.max(1, config.getKafkaParallelWorkers());
+			reservationExecutor = Executors.newFixedThreadPool(config.getOverdraftParallelReservations() * fulfillments,
+					FulfillmentExecutors.namedThreads("overdraft-reservation"));
+		}
+		if (reactiveTransactionDao != null) {
+			log.info("Non-blocking POST /Transaction.");
+			if (config.getKafkaParallelWorkers() <= 0 && false == config.isVirtualThreads()) {
+				log.warn("qslv.reactive-rest without the parallel engine. Every POST /Transaction still holds a listener thread.");
+			}
+			overdraftExecutor = config.isVirtualThreads() ? FulfillmentExecutors.newVirtualThreadPerTaskExecutor()
+					: Executors.newFixedThreadPool(Math.max(1, config.getKafkaParallelWorkers()), FulfillmentExecutors.namedThreads("overdraft-worker"));
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (prefetchExecutor != null) {
+			prefetchExecutor.shutdown();
+		}
+		if (reservationExecutor != null) {
+			reservationExecutor.shutdown();
+		}
+		if (overdraftExecutor != null) {
+			overdraftExecutor.shutdown();
+		}
+	}
+
 	public TransactionResponse processTransaction(final TraceableMessage<?> tracedata, TransactionRequest request) {
 		log.trace("FulfillmentService.processTransaction ENTRY");
-		TransactionResponse response = transactionDao.recordTransaction(tracedata, request);
-		
+
+		// the overdraft query overlaps the POST /Transaction round trip instead of following it
+		CompletableFuture<List<OverdraftInstruction>> prefetch = null;
+		if (prefetchExecutor != null && request.isProtectAgainstOverdraft()) {
+			prefetch = CompletableFuture.supplyAsync(() -> jdbcDao.getOverdraftInstructions(request.getAccountNumber()), prefetchExecutor);
+		}
+
+		TransactionResponse response;
+		try {
+			response = transactionDao.recordTransaction(tracedata, request);
+		} catch (RuntimeException ex) {
+			discardPrefetch(prefetch);
+			throw ex;
+		}
+		response = completeTransaction(tracedata, request, response, prefetch);
+
+		log.trace("FulfillmentService.processTransaction EXIT");
+		return response;
+	}
+
+	/**
+	 * Same as processTransaction, but with qslv.reactive-rest=true the POST /Transaction holds no
+	 * thread while it is outstanding. The overdraft steps that follow an INSUFFICIENT_FUNDS
+	 * answer run on the overdraft worker pool.
+	 */
+	public CompletableFuture<TransactionResponse> processTransactionAsync(final TraceableMessage<?> tracedata, TransactionRequest request) {
+		if (reactiveTransactionDao == null) {
+			return CompletableFuture.completedFuture(processTransaction(tracedata, request));
+		}
+		log.trace("FulfillmentService.processTransactionAsync ENTRY");
+
+		CompletableFuture<List<OverdraftInstruction>> prefetch = null;
+		if (prefetchExecutor != null && request.isProtectAgainstOverdraft()) {
+			prefetch = CompletableFuture.supplyAsync(() -> jdbcDao.getOverdraftInstructions(request.getAccountNumber()), prefetchExecutor);
+		}
+		final CompletableFuture<List<OverdraftInstruction>> overdraftPrefetch = prefetch;
+
+		return reactiveTransactionDao.recordTransaction(tracedata, request)
+				.whenComplete((response, ex) -> {
+					if (ex != null) {
+						discardPrefetch(overdraftPrefetch);
+					}
+				})
+				.thenCompose(response -> {
+					if (response.getStatus() == TransactionResponse.INSUFFICIENT_FUNDS && request.isProtectAgainstOverdraft()) {
+						// the overdraft steps block, so they leave the HTTP client's thread
+						return CompletableFuture.supplyAsync(() -> completeTransaction(tracedata, request, response, overdraftPrefetch), overdraftExecutor);
+					}
+					return CompletableFuture.completedFuture(completeTransaction(tracedata, request, response, overdraftPrefetch));
+				});
+	}
+
+	private TransactionResponse completeTransaction(final TraceableMessage<?> tracedata, TransactionRequest request,
+			TransactionResponse response, CompletableFuture<List<OverdraftInstruction>> prefetch) {
 		if (response.getStatus() == TransactionResponse.INSUFFICIENT_FUNDS && request.isProtectAgainstOverdraft()) {
 
 			// -------Step 0 - attempt to locate a Reservation in an Overdraft Account
-			List<TransactionResource> reservations = processOverdraftInstructions(tracedata, request);
+			List<TransactionResource> reservations = processOverdraftInstructions(tracedata, request, prefetch);
 			if (reservations.size() > 0) {
 
 				// -------Step 0 - switch Transaction List over to a mutable ArrayList
@@ -87,36 +216,39 @@ public class FulfillmentService {
 					response.setStatus(TransactionResponse.SUCCESS);
 				}
 			}
+		} else {
+			discardPrefetch(prefetch);
 		}
-		log.trace("FulfillmentService.processTransaction EXIT");
 		return response;
 	}
 	
-	private List<TransactionResource> processOverdraftInstructions(final TraceableMessage<?> tracedata, TransactionRequest request ) {
+	private List<TransactionResource> processOverdraftInstructions(final TraceableMessage<?> tracedata, TransactionRequest request,
+			CompletableFuture<List<OverdraftInstruction>> prefetch) {
 		log.trace("FulfillmentService.processOverdraftAccount ENTRY");
 
-		List<OverdraftInstruction> overdraftInstructions = jdbcDao.getOverdraftInstructions(request.getAccountNumber());
+		List<OverdraftInstruction> overdraftInstructions = (prefetch == null)
+				? jdbcDao.getOverdraftInstructions(request.getAccountNumber())
+				: usePrefetch(prefetch);
+		if (reservationExecutor != null) {
+			return reserveInParallel(tracedata, request, overdraftInstructions);
+		}
 
-		ReservationRequest reservationRequest = new ReservationRequest();
-		reservationRequest.setDebitCardNumber(request.getDebitCardNumber());
-		reservationRequest.setRequestUuid(request.getRequestUuid());
-		reservationRequest.setTransactionAmount(request.getTransactionAmount());
-		reservationRequest.setTransactionMetaDataJson(request.getTransactionMetaDataJson());
+		ReservationRequest reservationRequest = newReservationRequest(request);
 
 		ArrayList<TransactionResource> responses = new ArrayList<>();
 		for ( OverdraftInstruction instruction : overdraftInstructions) {
 			if (false == instructionEffective(instruction) ||
 				false == accountInGoodStanding(instruction.getOverdraftAccount())) {
-				log.debug("Overdraft Instruction not valid. {}", instruction);
+				log.debug("Overdraft Instruction not valid. {}", LogSafe.instruction(instruction));
 			} else {
 				reservationRequest.setAccountNumber(instruction.getOverdraftAccount().getAccountNumber());
 				ReservationResponse reservationResponse = transactionDao.recordReservation(tracedata, reservationRequest);
 				responses.add(reservationResponse.getResource());
 
 				if ( reservationResponse.getStatus() == ReservationResponse.INSUFFICIENT_FUNDS ) {
-					log.debug("Overdraft Instruction failed. {}", instruction);
+					log.debug("Overdraft Instruction failed. {}", LogSafe.instruction(instruction));
 				} else {
-					log.debug("Overdraft reservation made {}", instruction);
+					log.debug("Overdraft reservation made {}", LogSafe.instruction(instruction));
 					break;
 				}
 			}			
@@ -125,6 +257,131 @@ public class FulfillmentService {
 		log.trace("FulfillmentService.processOverdraftAccount EXIT");
 		return responses;
 	}
+	/*
+	 * Reserves on up to qslv.overdraft-parallel-reservations eligible accounts at once, in sequence
+	 * order. The first success by sequence wins, exactly as the sequential loop would have chosen;
+	 * later successes in the same window are released with a compensating CancelReservation.
+	 * A failed call ahead of the winner is rethrown once the whole window has returned, and every
+	 * reservation the window did make is cancelled first, so no hold is left behind.
+	 */
+	private List<TransactionResource> reserveInParallel(final TraceableMessage<?> tracedata, TransactionRequest request,
+			List<OverdraftInstruction> overdraftInstructions) {
+		log.trace("FulfillmentService.reserveInParallel ENTRY");
+
+		ArrayList<OverdraftInstruction> eligible = new ArrayList<>();
+		for ( OverdraftInstruction instruction : overdraftInstructions) {
+			if (false == instructionEffective(instruction) ||
+				false == accountInGoodStanding(instruction.getOverdraftAccount())) {
+				log.debug("Overdraft Instruction not valid. {}", LogSafe.instruction(instruction));
+			} else {
+				eligible.add(instruction);
+			}
+		}
+
+		ArrayList<TransactionResource> responses = new ArrayList<>();
+		int fanOut = config.getOverdraftParallelReservations();
+		for (int start = 0; start < eligible.size(); start += fanOut) {
+			List<OverdraftInstruction> window = eligible.subList(start, Math.min(start + fanOut, eligible.size()));
+			ArrayList<CompletableFuture<ReservationResponse>> attempts = new ArrayList<>();
+			for (OverdraftInstruction instruction : window) {
+				ReservationRequest reservationRequest = newReservationRequest(request);
+				reservationRequest.setAccountNumber(instruction.getOverdraftAccount().getAccountNumber());
+				attempts.add(CompletableFuture.supplyAsync(() -> transactionDao.recordReservation(tracedata, reservationRequest), reservationExecutor));
+			}
+			// every attempt must return before choosing, so no reservation is left unaccounted for
+			CompletableFuture.allOf(attempts.toArray(new CompletableFuture<?>[attempts.size()])).handle((v, ex) -> v).join();
+
+			boolean reserved = false;
+			RuntimeException failure = null;
+			RuntimeException cancelFailure = null;
+			for (int index = 0; index < attempts.size(); index++) {
+				OverdraftInstruction instruction = window.get(index);
+				ReservationResponse reservationResponse;
+				try {
+					reservationResponse = attempts.get(index).join();
+				} catch (CompletionException ex) {
+					if (false == reserved && failure == null) {
+						failure = (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause() : ex;
+					} else {
+						log.warn("Overdraft reservation after the chosen one failed. {} {}", LogSafe.instruction(instruction), ex.getCause().toString());
+					}
+					continue;
+				}
+
+				if (reserved || failure != null) {
+					if (reservationResponse.getStatus() != ReservationResponse.INSUFFICIENT_FUNDS) {
+						log.debug("Overdraft reservation not needed, cancel. {}", LogSafe.instruction(instruction));
+						try {
+							cancelReservation(tracedata, reservationResponse.getResource());
+						} catch (RuntimeException ex) {
+							// keep releasing the rest of the window; the message is redelivered to retry this cancel
+							log.warn("Overdraft reservation could not be cancelled. {} {}", LogSafe.instruction(instruction), ex.toString());
+							cancelFailure = (cancelFailure == null) ? ex : cancelFailure;
+						}
+					}
+				} else {
+					responses.add(reservationResponse.getResource());
+					if ( reservationResponse.getStatus() == ReservationResponse.INSUFFICIENT_FUNDS ) {
+						log.debug("Overdraft Instruction failed. {}", LogSafe.instruction(instruction));
+					} else {
+						log.debug("Overdraft reservation made {}", LogSafe.instruction(instruction));
+						reserved = true;
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			if (cancelFailure != null) {
+				throw cancelFailure;
+			}
+			if (reserved) {
+				break;
+			}
+		}
+
+		log.trace("FulfillmentService.reserveInParallel EXIT");
+		return responses;
+	}
+
+	private void cancelReservation(final TraceableMessage<?> tracedata, TransactionResource reservation) {
+		// the reservation's UUID doubles as the request UUID so a replayed cancel is idempotent
+		CancelReservationRequest cancelRequest = new CancelReservationRequest();
+		cancelRequest.setRequestUuid(reservation.getTransactionUuid());
+		cancelRequest.setReservationUuid(reservation.getTransactionUuid());
+		cancelRequest.setTransactionMetaDataJson(reservation.getTransactionMetaDataJson());
+		transactionDao.cancelReservation(tracedata, cancelRequest);
+	}
+
+	private ReservationRequest newReservationRequest(TransactionRequest request) {
+		ReservationRequest reservationRequest = new ReservationRequest();
+		reservationRequest.setDebitCardNumber(request.getDebitCardNumber());
+		reservationRequest.setRequestUuid(request.getRequestUuid());
+		reservationRequest.setTransactionAmount(request.getTransactionAmount());
+		reservationRequest.setTransactionMetaDataJson(request.getTransactionMetaDataJson());
+		return reservationRequest;
+	}
+
+	private List<OverdraftInstruction> usePrefetch(CompletableFuture<List<OverdraftInstruction>> prefetch) {
+		prefetchUsed.increment();
+		try {
+			return prefetch.join();
+		} catch (CompletionException ex) {
+			// surface the DAO's own exception, as the inline query would
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	private void discardPrefetch(CompletableFuture<List<OverdraftInstruction>> prefetch) {
+		if (prefetch != null) {
+			prefetchWasted.increment();
+			prefetch.cancel(false);
+		}
+	}
+
 	private boolean instructionEffective(OverdraftInstruction instruction) {
 		return ( instruction.getInstructionLifecycleStatus().equals("EF") &&
 				 java.time.LocalDateTime.now().compareTo(instruction.getEffectiveStart()) > 0 &&
@@ -2,7 +2,11 @@ package qslv.transaction.fulfillment;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +15,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import qslv.data.Account;
 import qslv.data.OverdraftInstruction;
 
@@ -20,10 +29,44 @@ public class JdbcDao {
 
 	@Autowired(required = false)
 	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private ConfigProperties config;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private StageTimers stageTimers;
+
+	// Overdraft instructions by account number. Null when qslv.overdraft-cache-max-entries=0.
+	private Cache<String, List<OverdraftInstruction>> overdraftCache;
 
 	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
 		this.jdbcTemplate = jdbcTemplate;
 	}
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (config.getOverdraftCacheMaxEntries() <= 0) {
+			return;
+		}
+		log.info("Overdraft instruction cache {} entries, {} ms TTL.", config.getOverdraftCacheMaxEntries(), config.getOverdraftCacheTtl());
+		overdraftCache = Caffeine.newBuilder()
+				.maximumSize(config.getOverdraftCacheMaxEntries())
+				.expireAfterWrite(config.getOverdraftCacheTtl(), TimeUnit.MILLISECONDS)
+				.recordStats()
+				.build();
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, overdraftCache, "qslv.overdraft.instructions");
+		}
+	}
 	
 	public final static String getOverdraftInstructions_sql = 
 			"SELECT o.overdraft_account_no, oda.lifecycle_status_cd as od_lifecycle_status, o.lifecycle_status_cd, o.effective_start_dt, o.effective_end_dt"
@@ -33,7 +76,35 @@ public class JdbcDao {
 			+ " ORDER BY o.sequence asc";
 	
 	public List<OverdraftInstruction> getOverdraftInstructions(final String accountNumber) {
-		log.warn("getOverdraftInstructions ENTRY {}", accountNumber);
+		long start = System.nanoTime();
+		try {
+			List<OverdraftInstruction> instructions = (overdraftCache == null) ? queryOverdraftInstructions(accountNumber)
+					// callers only read the instructions, so one shared unmodifiable list is handed out per account
+					: overdraftCache.get(accountNumber, key -> Collections.unmodifiableList(queryOverdraftInstructions(key)));
+			stageTimers.record(StageTimers.GET_OVERDRAFT_INSTRUCTIONS, "jdbc", StageTimers.SUCCESS, start);
+			return instructions;
+		} catch (RuntimeException ex) {
+			stageTimers.record(StageTimers.GET_OVERDRAFT_INSTRUCTIONS, "jdbc", StageTimers.outcome(ex), start);
+			throw ex;
+		}
+	}
+
+	public void invalidateOverdraftInstructions(final String accountNumber) {
+		if (overdraftCache != null) {
+			log.debug("Invalidate overdraft instructions {}", LogSafe.account(accountNumber));
+			overdraftCache.invalidate(accountNumber);
+		}
+	}
+
+	public void invalidateAllOverdraftInstructions() {
+		if (overdraftCache != null) {
+			log.debug("Invalidate all overdraft instructions");
+			overdraftCache.invalidateAll();
+		}
+	}
+
+	private List<OverdraftInstruction> queryOverdraftInstructions(final String accountNumber) {
+		log.trace("getOverdraftInstructions ENTRY");
 
 		List<OverdraftInstruction> resources = jdbcTemplate.query(getOverdraftInstructions_sql,
 				new RowMapper<OverdraftInstruction>() {
@@ -51,7 +122,7 @@ public class JdbcDao {
 				}, accountNumber);
 		
 
-		log.warn("getOverdraftInstructions size {}", resources.size());
+		log.trace("getOverdraftInstructions EXIT {}", resources.size());
 		return resources;
 	}
-}
\ No newline at end of file
+}
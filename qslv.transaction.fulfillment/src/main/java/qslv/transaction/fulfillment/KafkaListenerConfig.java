@@ -5,17 +5,23 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import qslv.common.kafka.JacksonAvroDeserializer;
 import qslv.common.kafka.TraceableMessage;
@@ -27,6 +33,16 @@ public class KafkaListenerConfig {
 
 	@Autowired
 	ConfigProperties config;
+	@Autowired
+	ParallelFulfillmentEngine parallelEngine;
+	@Autowired
+	OffsetCommitTracker offsetTracker;
+	@Autowired
+	StageTimers stageTimers;
+	@Autowired(required = false)
+	KafkaTransactionManager<?, ?> kafkaTransactionManager;
+	@Autowired(required = false)
+	MeterRegistry meterRegistry;
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Bean
@@ -55,7 +71,16 @@ public class KafkaListenerConfig {
     	JacksonAvroDeserializer<TraceableMessage<TransactionRequest>> jad = new JacksonAvroDeserializer<>();
     	jad.configure(listenerConfig());
     	
-        return new DefaultKafkaConsumerFactory<>(listenerConfig(), new StringDeserializer(),  jad);
+        DefaultKafkaConsumerFactory<String, TraceableMessage<TransactionRequest>> factory =
+        		new DefaultKafkaConsumerFactory<>(listenerConfig(), new StringDeserializer(),
+        				// outermost, so a record nothing can decode reaches the listener for quarantine instead of failing every poll
+        				new PoisonPillDeserializer(new LazyRequestDeserializer(
+        						new TimedDeserializer<>(new TransactionMessageDeserializer<>(TransactionMessageCodec::readRequest, jad), stageTimers))));
+        if (meterRegistry != null) {
+        	// client metrics per consumer, among them records-lag per topic-partition
+        	factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        }
+        return factory;
     }
     
     @Bean
@@ -63,8 +88,62 @@ public class KafkaListenerConfig {
     
         ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
-        //#TODO: can this be batched for better throughput and still retain idempotency?
-        factory.getContainerProperties().setAckMode(AckMode.MANUAL_IMMEDIATE);
+        if (parallelEngine.isEnabled() || config.isKafkaAsyncReply()) {
+            // acks arrive from worker or producer threads; the container queues them and commits on its next poll
+            factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+            factory.getContainerProperties().setConsumerRebalanceListener(offsetTracker);
+        } else {
+            factory.getContainerProperties().setAckMode(AckMode.MANUAL_IMMEDIATE);
+        }
+        if (kafkaTransactionManager != null) {
+            factory.getContainerProperties().setTransactionManager(kafkaTransactionManager);
+        }
+        return factory;
+    }
+
+    // Batch mode commits once per poll. Idempotency is kept because a failed record is nack'ed by
+    // index: offsets before it are committed and it, plus everything after it, is redelivered.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> batchKafkaListenerContainerFactory() throws Exception {
+    
+        ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+        if (kafkaTransactionManager != null) {
+            // one transaction per poll spreads the commit cost over the whole batch
+            factory.getContainerProperties().setTransactionManager(kafkaTransactionManager);
+        }
+        return factory;
+    }
+
+    // Retry tiers are paused and resumed as a whole while their head record is not yet due.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> retryKafkaListenerContainerFactory() throws Exception {
+    
+        ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+        if (kafkaTransactionManager != null) {
+            // a tier re-publishes to the next tier and replies through the transactional producer
+            factory.getContainerProperties().setTransactionManager(kafkaTransactionManager);
+        }
+        return factory;
+    }
+
+    //--Overdraft Instruction Invalidation Consumer
+    // Every instance holds its own cache, so each one reads the whole topic from the latest offset
+    // under its own group id (one per host); nothing is lost if a restart skips events because the cache starts empty.
+    @Bean
+    @ConditionalOnProperty(prefix = "qslv", name = "kafka-overdraft-invalidation-queue")
+    public ConcurrentKafkaListenerContainerFactory<String, String> overdraftInvalidationContainerFactory() throws Exception {
+        Map<String,Object> props = new HashMap<>(listenerConfig());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer()));
+        factory.getContainerProperties().setAckMode(AckMode.BATCH);
         return factory;
     }
 }
@@ -5,16 +5,21 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 import com.fasterxml.jackson.databind.JavaType;
 
 import qslv.common.kafka.JacksonAvroSerializer;
@@ -53,17 +58,84 @@ public class KafkaProducerConfig {
 	@Bean
 	public ProducerFactory<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> transactionProducerFactory() throws Exception {
 		
-    	JacksonAvroSerializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> jas = new JacksonAvroSerializer<>();
-		JavaType type = jas.getTypeFactory().constructParametricType(TraceableMessage.class, 
-				jas.getTypeFactory().constructParametricType(ResponseMessage.class, TransactionRequest.class, TransactionResponse.class));
-    	jas.configure(producerConfig(), false, type);
+		Serializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> serializer;
+		if (config.isKafkaJsonCodec()) {
+			serializer = new TransactionMessageSerializer<>(TransactionMessageCodec::writeReply);
+		} else {
+			JacksonAvroSerializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> jas = new JacksonAvroSerializer<>();
+			JavaType type = jas.getTypeFactory().constructParametricType(TraceableMessage.class, 
+					jas.getTypeFactory().constructParametricType(ResponseMessage.class, TransactionRequest.class, TransactionResponse.class));
+			jas.configure(producerConfig(), false, type);
+			serializer = jas;
+		}
+		if (false == config.getKafkaCompactReplyAits().isEmpty()) {
+			// callers that opted in get the compact reply, which does not echo the request
+			serializer = new CompactReplySerializer(serializer, config.getKafkaCompactReplyAits());
+		}
+
+		// replies are the largest records this service writes; lz4 or zstd compresses them per producer batch
+		Map<String,Object> replyConfig = new HashMap<>(producerConfig());
+		if (config.getKafkaReplyCompressionType() != null && false == config.getKafkaReplyCompressionType().isEmpty()) {
+			replyConfig.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getKafkaReplyCompressionType());
+		}
 	
-		return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), jas);
+		DefaultKafkaProducerFactory<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> factory =
+				new DefaultKafkaProducerFactory<>(replyConfig, new StringSerializer(), new EnvelopeHeaderSerializer<>(serializer));
+		if (config.isKafkaTransactional()) {
+			factory.setTransactionIdPrefix(config.getKafkaTransactionalIdPrefix());
+		}
+		return factory;
+	}
+
+	// Exactly-once mode: the listener container starts a Kafka transaction per delivery (per poll
+	// in batch mode), the reply is sent inside it and the consumed offsets are committed with it
+	// through sendOffsetsToTransaction. Reply consumers must read with isolation.level=read_committed.
+	@Bean
+	@ConditionalOnProperty(prefix = "qslv", name = "kafka-transactional-id-prefix")
+	public KafkaTransactionManager<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> kafkaTransactionManager() throws Exception {
+		return new KafkaTransactionManager<>(transactionProducerFactory());
 	}
 
 	@Bean
 	public KafkaTemplate<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> transactionKafkaTemplate() throws Exception {
-		return new KafkaTemplate<>(transactionProducerFactory(), true); // auto-flush true, to force each message to broker.
+		// auto-flush forces each message to the broker. The async reply path relies on linger.ms/batch.size
+		// instead, and a transaction commit flushes on its own.
+		return new KafkaTemplate<>(transactionProducerFactory(), false == config.isKafkaAsyncReply() && false == config.isKafkaTransactional());
+	}
+
+	//--Retry topic producer. Requests are re-published as they were consumed, outside any transaction.
+	@Bean
+	public ProducerFactory<String, TraceableMessage<TransactionRequest>> retryProducerFactory() throws Exception {
+		
+		Serializer<TraceableMessage<TransactionRequest>> serializer;
+		if (config.isKafkaJsonCodec()) {
+			// the retry tiers are consumed by this service, which reads both codecs
+			serializer = new TransactionMessageSerializer<>(TransactionMessageCodec::writeRequest);
+		} else {
+			JacksonAvroSerializer<TraceableMessage<TransactionRequest>> jas = new JacksonAvroSerializer<>();
+			JavaType type = jas.getTypeFactory().constructParametricType(TraceableMessage.class, TransactionRequest.class);
+			jas.configure(producerConfig(), false, type);
+			serializer = jas;
+		}
+
+		// envelope headers let the consumer of a retry tier validate and route before decoding the body
+		return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), new EnvelopeHeaderSerializer<>(serializer));
+	}
+
+	@Bean
+	public KafkaTemplate<String, TraceableMessage<TransactionRequest>> retryKafkaTemplate() throws Exception {
+		return new KafkaTemplate<>(retryProducerFactory(), true);
+	}
+
+	//--Quarantine topic producer. Undecodable records are forwarded byte for byte, never re-serialized.
+	@Bean
+	public ProducerFactory<String, byte[]> quarantineProducerFactory() throws Exception {
+		return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), new ByteArraySerializer());
+	}
+
+	@Bean
+	public KafkaTemplate<String, byte[]> quarantineKafkaTemplate() throws Exception {
+		return new KafkaTemplate<>(quarantineProducerFactory(), true);
 	}
 
 }
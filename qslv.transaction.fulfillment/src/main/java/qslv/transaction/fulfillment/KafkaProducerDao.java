@@ -1,7 +1,16 @@
 package qslv.transaction.fulfillment;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +32,18 @@ public class KafkaProducerDao {
 
 	@Autowired
 	private KafkaTemplate<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> transactionKafkaTemplate;
+	@Autowired
+	private KafkaTemplate<String, TraceableMessage<TransactionRequest>> retryKafkaTemplate;
+	@Autowired
+	private KafkaTemplate<String, byte[]> quarantineKafkaTemplate;
+	@Autowired
+	private StageTimers stageTimers;
+
+	private final ScheduledExecutorService resendScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "kafka-reply-resend");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	public void setConfig(ConfigProperties config) {
 		this.config = config;
@@ -31,21 +52,136 @@ public class KafkaProducerDao {
 			KafkaTemplate<String, TraceableMessage<ResponseMessage<TransactionRequest, TransactionResponse>>> transactionKafkaTemplate) {
 		this.transactionKafkaTemplate = transactionKafkaTemplate;
 	}
+	public void setRetryKafkaTemplate(KafkaTemplate<String, TraceableMessage<TransactionRequest>> retryKafkaTemplate) {
+		this.retryKafkaTemplate = retryKafkaTemplate;
+	}
+	public void setQuarantineKafkaTemplate(KafkaTemplate<String, byte[]> quarantineKafkaTemplate) {
+		this.quarantineKafkaTemplate = quarantineKafkaTemplate;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		resendScheduler.shutdownNow();
+	}
 
 	public void produceResponse(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) throws DataAccessException {
+		String key =  message.getPayload().getRequest() == null ? "NULL_PAYLOAD_KEY_SUBSTITUTE" : message.getPayload().getRequest().getAccountNumber();
+		produceResponse(key, message);
+	}
+
+	// The key is given when the request could not be decoded, so the reply still lands on the caller's partition.
+	public void produceResponse(String key, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) throws DataAccessException {
 		log.trace("ENTRY produceResponse");
+		long start = System.nanoTime();
 		try {
-			String key =  message.getPayload().getRequest() == null ? "NULL_PAYLOAD_KEY_SUBSTITUTE" : message.getPayload().getRequest().getAccountNumber();
 			transactionKafkaTemplate.send(config.getKafkaTransactionReplyQueue(), key, message).get();
-			log.debug("Kakfa Produce {}", message);
+			log.debug("Kakfa Produce {}", LogSafe.payload(message));
 		} catch ( ExecutionException ex ) {
 			log.debug(ex.getLocalizedMessage());
+			stageTimers.record(StageTimers.PRODUCE_RESPONSE, config.getKafkaTransactionReplyQueue(), "transient", start);
 			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
 		} catch ( InterruptedException  ex) {
 			log.debug(ex.getLocalizedMessage());
+			stageTimers.record(StageTimers.PRODUCE_RESPONSE, config.getKafkaTransactionReplyQueue(), "transient", start);
 			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
 		}
-		// TODO: log time it took
+		stageTimers.record(StageTimers.PRODUCE_RESPONSE, config.getKafkaTransactionReplyQueue(), StageTimers.SUCCESS, start);
 		log.trace("EXIT produceResponse");
 	}
+
+	/**
+	 * Re-publish a request to a retry or dead-letter topic, tagged with its attempt number and
+	 * the wall-clock time (epoch ms) before which it must not be processed.
+	 */
+	public void produceRetry(String topic, String key, TraceableMessage<TransactionRequest> message, int attempt, long due) throws DataAccessException {
+		log.trace("ENTRY produceRetry");
+		ProducerRecord<String, TraceableMessage<TransactionRequest>> retry = new ProducerRecord<>(topic, key, message);
+		retry.headers().add(RetryTopicPipeline.ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+		retry.headers().add(RetryTopicPipeline.DUE_HEADER, Long.toString(due).getBytes(StandardCharsets.UTF_8));
+		try {
+			retryKafkaTemplate.send(retry).get();
+			log.debug("Kakfa Produce {} attempt {} {}", topic, attempt, LogSafe.payload(message));
+		} catch ( ExecutionException ex ) {
+			log.debug(ex.getLocalizedMessage());
+			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
+		} catch ( InterruptedException  ex) {
+			log.debug(ex.getLocalizedMessage());
+			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
+		}
+		log.trace("EXIT produceRetry");
+	}
+
+	public static final String QUARANTINE_TOPIC_HEADER = "qslv-quarantine-topic";
+	public static final String QUARANTINE_PARTITION_HEADER = "qslv-quarantine-partition";
+	public static final String QUARANTINE_OFFSET_HEADER = "qslv-quarantine-offset";
+	public static final String QUARANTINE_EXCEPTION_HEADER = "qslv-quarantine-exception";
+
+	/**
+	 * Forward the raw value of an undecodable record, with its original headers and its
+	 * source topic, partition, offset and decode failure as headers.
+	 */
+	public void produceQuarantine(String topic, ConsumerRecord<String, ?> source, byte[] rawValue, String failure) throws DataAccessException {
+		log.trace("ENTRY produceQuarantine");
+		ProducerRecord<String, byte[]> quarantine = new ProducerRecord<>(topic, null, source.key(), rawValue, source.headers());
+		quarantine.headers().add(QUARANTINE_TOPIC_HEADER, source.topic().getBytes(StandardCharsets.UTF_8));
+		quarantine.headers().add(QUARANTINE_PARTITION_HEADER, Integer.toString(source.partition()).getBytes(StandardCharsets.UTF_8));
+		quarantine.headers().add(QUARANTINE_OFFSET_HEADER, Long.toString(source.offset()).getBytes(StandardCharsets.UTF_8));
+		quarantine.headers().add(QUARANTINE_EXCEPTION_HEADER, String.valueOf(failure).getBytes(StandardCharsets.UTF_8));
+		try {
+			quarantineKafkaTemplate.send(quarantine).get();
+			log.debug("Kakfa Produce {} from {}-{}@{}", topic, source.topic(), source.partition(), source.offset());
+		} catch ( ExecutionException ex ) {
+			log.debug(ex.getLocalizedMessage());
+			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
+		} catch ( InterruptedException  ex) {
+			log.debug(ex.getLocalizedMessage());
+			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
+		}
+		log.trace("EXIT produceQuarantine");
+	}
+
+	/**
+	 * Non-blocking variant of produceResponse. The returned future completes once the broker
+	 * has confirmed the reply. A failed send is re-sent every kafkaTimeout ms until it succeeds,
+	 * so the caller can hold the source offset until the future completes.
+	 */
+	public CompletableFuture<Void> produceResponseAsync(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) {
+		log.trace("ENTRY produceResponseAsync");
+		String key =  message.getPayload().getRequest() == null ? "NULL_PAYLOAD_KEY_SUBSTITUTE" : message.getPayload().getRequest().getAccountNumber();
+		CompletableFuture<Void> replied = new CompletableFuture<>();
+		long start = System.nanoTime();
+		replied.thenRun(() -> stageTimers.record(StageTimers.PRODUCE_RESPONSE, config.getKafkaTransactionReplyQueue(), StageTimers.SUCCESS, start));
+		try {
+			sendAsync(key, message, replied);
+		} catch (RuntimeException ex) {
+			log.debug(ex.getLocalizedMessage());
+			throw new TransientDataAccessResourceException("Kafka Producer failure", ex);
+		}
+		log.trace("EXIT produceResponseAsync");
+		return replied;
+	}
+
+	private void sendAsync(String key, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message, CompletableFuture<Void> replied) {
+		transactionKafkaTemplate.send(config.getKafkaTransactionReplyQueue(), key, message).addCallback(
+			result -> {
+				log.debug("Kakfa Produce {}", LogSafe.payload(message));
+				replied.complete(null);
+			},
+			ex -> {
+				log.warn("Kafka Producer failure. Resend in {} ms. {}", config.getKafkaTimeout(), ex.getLocalizedMessage());
+				resendScheduler.schedule(() -> resend(key, message, replied), config.getKafkaTimeout(), TimeUnit.MILLISECONDS);
+			});
+	}
+
+	private void resend(String key, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message, CompletableFuture<Void> replied) {
+		try {
+			sendAsync(key, message, replied);
+		} catch (RuntimeException ex) {
+			log.warn("Kafka Producer failure. Resend in {} ms. {}", config.getKafkaTimeout(), ex.getLocalizedMessage());
+			resendScheduler.schedule(() -> resend(key, message, replied), config.getKafkaTimeout(), TimeUnit.MILLISECONDS);
+		}
+	}
 }
@@ -0,0 +1,125 @@
+package qslv.transaction.fulfillment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Opt-in replacement for KafkaTransactionListener (qslv.kafka-batch-listener=true).
+ * Offsets are committed once per poll instead of once per record.
+ */
+@Component
+@ConditionalOnProperty(prefix = "qslv", name = "kafka-batch-listener", havingValue = "true")
+public class KafkaTransactionBatchListener {
+	private static final Logger log = LoggerFactory.getLogger(KafkaTransactionBatchListener.class);
+
+	@Autowired
+	private FulfillmentController fulfillmentController;
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private RetryTopicPipeline retryTopics;
+	@Autowired
+	private StageTimers stageTimers;
+	@Autowired
+	private QuarantineRouter quarantine;
+
+	public void setFulfillmentController(FulfillmentController fulfillmentController) {
+		this.fulfillmentController = fulfillmentController;
+	}
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setRetryTopics(RetryTopicPipeline retryTopics) {
+		this.retryTopics = retryTopics;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+	public void setQuarantine(QuarantineRouter quarantine) {
+		this.quarantine = quarantine;
+	}
+
+	@KafkaListener(id = AdaptiveConcurrencyLimiter.LISTENER_ID, idIsGroup = false, topics = "#{ @configProperties.kafkaTransactionRequestQueue }", containerFactory = "batchKafkaListenerContainerFactory")
+	void onTransactionBatch(final List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> data, Acknowledgment acknowledgment) {
+		log.trace("onTransactionBatch ENTRY {}", data.size());
+
+		// with async replies the sends of the whole batch are pipelined and awaited once before the commit.
+		// A resend would run outside the container's transaction, so transactional mode stays synchronous.
+		boolean asyncReply = config.isKafkaAsyncReply() && false == config.isKafkaTransactional();
+		List<CompletableFuture<Boolean>> replies = new ArrayList<>(data.size());
+		List<Integer> replyIndexes = new ArrayList<>(data.size());
+		for (int index = 0; index < data.size(); index++) {
+			// an undecodable record is quarantined in place; if that fails it is handled like a recoverable error
+			QuarantineRouter.track(data.get(index));
+			boolean poisonPill = QuarantineRouter.isPoisonPill(data.get(index));
+			CompletableFuture<Boolean> replied;
+			if (poisonPill) {
+				replied = CompletableFuture.completedFuture(quarantine.route(data.get(index)));
+			} else if (asyncReply) {
+				replied = fulfillmentController.processMessageAsync(data.get(index).value());
+			} else {
+				replied = CompletableFuture.completedFuture(fulfillmentController.processMessage(data.get(index).value()));
+			}
+			if (replied.isDone() && false == replied.join() && false == poisonPill && retryTopics.isEnabled() && retryTopics.forward(data.get(index), 1)) {
+				continue;
+			}
+			if (replied.isDone() && false == replied.join()) {
+				// commit everything before index, redeliver index and the rest of the batch
+				log.warn("Recoverable error at batch index {} offset {}. Partial commit.", index, data.get(index).offset());
+				acknowledgment.nack(awaitReplies(replies, replyIndexes, index), 10000L);
+				return;
+			}
+			replies.add(replied);
+			replyIndexes.add(index);
+		}
+		int confirmed = awaitReplies(replies, replyIndexes, data.size());
+		if (confirmed < data.size()) {
+			log.warn("Replies not confirmed within {}ms from batch index {} offset {}. Partial commit.",
+					config.getKafkaTimeout(), confirmed, data.get(confirmed).offset());
+			acknowledgment.nack(confirmed, 10000L);
+			return;
+		}
+		stageTimers.acknowledge(acknowledgment, config.getKafkaTransactionRequestQueue());
+
+		log.trace("onTransactionBatch EXIT");
+	}
+
+	/**
+	 * Wait up to kafkaTimeout for the pending replies. A failed send is resent for as long as it
+	 * takes, so a broker outage must not hold the poll thread past max.poll.interval.ms.
+	 * @return the batch index of the first reply that is not confirmed, or limit when all are.
+	 * Replies still pending keep being resent; redelivered records are answered from the processed index.
+	 */
+	private int awaitReplies(List<CompletableFuture<Boolean>> replies, List<Integer> replyIndexes, int limit) {
+		try {
+			CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).get(config.getKafkaTimeout(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | ExecutionException ex) {
+			log.debug(ex.toString());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		for (int reply = 0; reply < replies.size(); reply++) {
+			CompletableFuture<Boolean> replied = replies.get(reply);
+			if (false == replied.isDone() || replied.isCompletedExceptionally()) {
+				return replyIndexes.get(reply);
+			}
+		}
+		return limit;
+	}
+
+}
@@ -1,9 +1,13 @@
 package qslv.transaction.fulfillment;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
@@ -11,24 +15,105 @@ import qslv.common.kafka.TraceableMessage;
 import qslv.transaction.request.TransactionRequest;
 
 @Component
+@ConditionalOnProperty(prefix = "qslv", name = "kafka-batch-listener", havingValue = "false", matchIfMissing = true)
 public class KafkaTransactionListener {
 	private static final Logger log = LoggerFactory.getLogger(KafkaTransactionListener.class);
 
 	@Autowired
 	private FulfillmentController fulfillmentController;
+	@Autowired
+	private ParallelFulfillmentEngine parallelEngine;
+	@Autowired
+	private OffsetCommitTracker offsetTracker;
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private RetryTopicPipeline retryTopics;
+	@Autowired
+	private StageTimers stageTimers;
+	@Autowired
+	private QuarantineRouter quarantine;
 
 	public void setFulfillmentController(FulfillmentController fulfillmentController) {
 		this.fulfillmentController = fulfillmentController;
 	}
+	public void setParallelEngine(ParallelFulfillmentEngine parallelEngine) {
+		this.parallelEngine = parallelEngine;
+	}
+	public void setOffsetTracker(OffsetCommitTracker offsetTracker) {
+		this.offsetTracker = offsetTracker;
+	}
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setRetryTopics(RetryTopicPipeline retryTopics) {
+		this.retryTopics = retryTopics;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+	public void setQuarantine(QuarantineRouter quarantine) {
+		this.quarantine = quarantine;
+	}
 
-	@KafkaListener(topics = "#{ @configProperties.kafkaTransactionRequestQueue }")
+	@KafkaListener(id = AdaptiveConcurrencyLimiter.LISTENER_ID, idIsGroup = false, topics = "#{ @configProperties.kafkaTransactionRequestQueue }")
 	void onCancelMessage(final ConsumerRecord<String, TraceableMessage<TransactionRequest>> data, Acknowledgment acknowledgment) {
 		log.trace("onMessage ENTRY");
 
-		fulfillmentController.fulfillTransaction(data.value(), acknowledgment);
-		log.error("========================={} {}", data.key(), data.value());
-
+		QuarantineRouter.track(data);
+		if (QuarantineRouter.isPoisonPill(data)) {
+			quarantine(data, acknowledgment);
+		} else if (parallelEngine.isEnabled()) {
+			parallelEngine.submit(data, acknowledgment);
+		} else if (config.isKafkaAsyncReply() && false == config.isKafkaTransactional()) {
+			// a late ack would fall outside the container's transaction, so transactional mode stays synchronous
+			fulfillAsync(data, acknowledgment);
+		} else if (retryTopics.isEnabled()) {
+			// a recoverable failure leaves the partition through the retry topics instead of stalling it
+			if (fulfillmentController.processMessage(data.value()) || retryTopics.forward(data, 1)) {
+				stageTimers.acknowledge(acknowledgment, data.topic());
+			} else {
+				acknowledgment.nack(10000L);
+			}
+		} else {
+			fulfillmentController.fulfillTransaction(data.value(), acknowledgment);
+		}
 		log.trace("onMessage EXIT");
 	}
 
+	private void quarantine(final ConsumerRecord<String, TraceableMessage<TransactionRequest>> data, Acknowledgment acknowledgment) {
+		if (parallelEngine.isEnabled() || (config.isKafkaAsyncReply() && false == config.isKafkaTransactional())) {
+			// offsets of this partition are committed through the tracker, so this one must be too
+			TopicPartition partition = new TopicPartition(data.topic(), data.partition());
+			offsetTracker.register(partition, data.offset(), acknowledgment);
+			if (quarantine.route(data)) {
+				offsetTracker.complete(partition, data.offset());
+			} else {
+				offsetTracker.discard(partition, data.offset());
+				acknowledgment.nack(10000L);
+			}
+		} else if (quarantine.route(data)) {
+			stageTimers.acknowledge(acknowledgment, data.topic());
+		} else {
+			acknowledgment.nack(10000L);
+		}
+	}
+
+	private void fulfillAsync(final ConsumerRecord<String, TraceableMessage<TransactionRequest>> data, Acknowledgment acknowledgment) {
+		TopicPartition partition = new TopicPartition(data.topic(), data.partition());
+		offsetTracker.register(partition, data.offset(), acknowledgment);
+
+		CompletableFuture<Boolean> replied = fulfillmentController.processMessageAsync(data.value());
+		if (replied.isDone() && false == replied.join()) {
+			if (retryTopics.isEnabled() && retryTopics.forward(data, 1)) {
+				offsetTracker.complete(partition, data.offset());
+			} else {
+				offsetTracker.discard(partition, data.offset());
+				acknowledgment.nack(10000L);
+			}
+		} else {
+			replied.thenAccept(done -> offsetTracker.complete(partition, data.offset()));
+		}
+	}
+
 }
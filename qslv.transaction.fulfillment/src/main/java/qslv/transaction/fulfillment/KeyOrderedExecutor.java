@@ -0,0 +1,117 @@
+package qslv.transaction.fulfillment;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Runs tasks on a shared executor while keeping tasks with the same key strictly serial.
+ * A task returning false is not finished: it stays at the head of its lane and is re-run
+ * after retryDelay, so later tasks for the same key never overtake it.
+ * A task may also finish later through a future; its lane waits for the future without holding
+ * a thread.
+ */
+public class KeyOrderedExecutor {
+	private static final Logger log = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+	private final Executor executor;
+	private final ScheduledExecutorService scheduler;
+	private final long retryDelay;
+	private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+	public KeyOrderedExecutor(Executor executor, ScheduledExecutorService scheduler, long retryDelay) {
+		this.executor = executor;
+		this.scheduler = scheduler;
+		this.retryDelay = retryDelay;
+	}
+
+	public void execute(String key, BooleanSupplier task) {
+		executeAsync(key, () -> CompletableFuture.completedFuture(task.getAsBoolean()));
+	}
+
+	public void executeAsync(String key, Supplier<CompletableFuture<Boolean>> task) {
+		boolean[] start = new boolean[1];
+		Lane lane = lanes.compute(key, (k, existing) -> {
+			Lane l = (existing == null) ? new Lane(k) : existing;
+			synchronized (l) {
+				l.tasks.addLast(task);
+				if (false == l.running) {
+					l.running = true;
+					start[0] = true;
+				}
+			}
+			return l;
+		});
+		if (start[0]) {
+			executor.execute(() -> runHead(lane));
+		}
+	}
+
+	public int activeKeys() {
+		return lanes.size();
+	}
+
+	private void runHead(Lane lane) {
+		Supplier<CompletableFuture<Boolean>> task = lane.head();
+		CompletableFuture<Boolean> finished;
+		try {
+			finished = task.get();
+		} catch (RuntimeException ex) {
+			finished = new CompletableFuture<>();
+			finished.completeExceptionally(ex);
+		}
+		finished.whenComplete((done, ex) -> {
+			if (ex != null) {
+				log.error("Unexpected exception on key {}. Task retried. {}", lane.key, ex.getLocalizedMessage());
+			}
+			advance(lane, ex == null && Boolean.TRUE.equals(done));
+		});
+	}
+
+	private void advance(Lane lane, boolean finished) {
+		if (false == finished) {
+			scheduler.schedule(() -> executor.execute(() -> runHead(lane)), retryDelay, TimeUnit.MILLISECONDS);
+			return;
+		}
+
+		boolean[] more = new boolean[1];
+		lanes.computeIfPresent(lane.key, (k, l) -> {
+			synchronized (l) {
+				l.tasks.pollFirst();
+				if (l.tasks.isEmpty()) {
+					l.running = false;
+					return null;
+				}
+				more[0] = true;
+				return l;
+			}
+		});
+		// one task per hand-off so a hot key cannot monopolize a worker thread
+		if (more[0]) {
+			executor.execute(() -> runHead(lane));
+		}
+	}
+
+	private static class Lane {
+		final String key;
+		final ArrayDeque<Supplier<CompletableFuture<Boolean>>> tasks = new ArrayDeque<>();
+		boolean running = false;
+
+		Lane(String key) {
+			this.key = key;
+		}
+		Supplier<CompletableFuture<Boolean>> head() {
+			synchronized (this) {
+				return tasks.peekFirst();
+			}
+		}
+	}
+}
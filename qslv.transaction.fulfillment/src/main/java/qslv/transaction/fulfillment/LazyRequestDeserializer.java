@@ -0,0 +1,51 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Header-first deserialization of requests. A record with envelope headers becomes a
+ * LazyTraceableMessage right away and the wrapped deserializer runs only once the payload is
+ * needed, so the poll thread never decodes bodies and cannot be stopped by one it cannot decode.
+ * A record without envelope headers is decoded eagerly, as before.
+ */
+public class LazyRequestDeserializer implements Deserializer<TraceableMessage<TransactionRequest>> {
+	private final Deserializer<TraceableMessage<TransactionRequest>> delegate;
+
+	public LazyRequestDeserializer(Deserializer<TraceableMessage<TransactionRequest>> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		delegate.configure(configs, isKey);
+	}
+
+	@Override
+	public TraceableMessage<TransactionRequest> deserialize(String topic, byte[] data) {
+		return delegate.deserialize(topic, data);
+	}
+
+	@Override
+	public TraceableMessage<TransactionRequest> deserialize(String topic, Headers headers, byte[] data) {
+		if (data == null || false == EnvelopeHeaders.isPresent(headers)) {
+			return delegate.deserialize(topic, headers, data);
+		}
+		LazyTraceableMessage message = new LazyTraceableMessage(data, () -> {
+			TraceableMessage<TransactionRequest> decoded = delegate.deserialize(topic, headers, data);
+			return decoded == null ? null : decoded.getPayload();
+		});
+		EnvelopeHeaders.read(headers, message);
+		return message;
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
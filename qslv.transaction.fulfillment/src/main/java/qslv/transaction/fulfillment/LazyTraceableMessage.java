@@ -0,0 +1,87 @@
+package qslv.transaction.fulfillment;
+
+import java.util.function.Supplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Request whose envelope came from record headers and whose body is decoded on the first
+ * getPayload(), on whichever thread fulfills it. A body that cannot be decoded reads as a
+ * missing payload. It keeps its raw bytes and the decode failure, and once the listener has
+ * tracked its source record it is quarantined like a record PoisonPillDeserializer rejected.
+ */
+public class LazyTraceableMessage extends TraceableMessage<TransactionRequest> {
+	private static final Logger log = LoggerFactory.getLogger(LazyTraceableMessage.class);
+
+	private Supplier<TransactionRequest> decoder;
+	private TransactionRequest payload;
+	private byte[] rawValue;
+	private String failure;
+	private ConsumerRecord<String, ?> source;
+
+	public LazyTraceableMessage(Supplier<TransactionRequest> decoder) {
+		this(null, decoder);
+	}
+
+	public LazyTraceableMessage(byte[] rawValue, Supplier<TransactionRequest> decoder) {
+		this.rawValue = rawValue;
+		this.decoder = decoder;
+	}
+
+	@Override
+	public synchronized TransactionRequest getPayload() {
+		if (decoder != null) {
+			try {
+				payload = decoder.get();
+				rawValue = null;
+			} catch (RuntimeException ex) {
+				log.warn("Undecodable payload. Correlation Id {}. {}", getCorrelationId(), ex.getLocalizedMessage());
+				payload = null;
+				failure = ex.toString();
+			}
+			decoder = null;
+		}
+		return payload;
+	}
+
+	/**
+	 * @return true once the body has been decoded, successfully or not.
+	 */
+	public synchronized boolean isDecoded() {
+		return decoder == null;
+	}
+
+	/**
+	 * @return why the body could not be decoded, or null while it is not decoded or when it decoded.
+	 */
+	public synchronized String failure() {
+		return failure;
+	}
+
+	/**
+	 * @return the undecoded body; released once it has decoded.
+	 */
+	public synchronized byte[] rawValue() {
+		return rawValue;
+	}
+
+	public ConsumerRecord<String, ?> source() {
+		return source;
+	}
+
+	public void setSource(ConsumerRecord<String, ?> source) {
+		this.source = source;
+	}
+
+	@Override
+	public synchronized void setPayload(TransactionRequest payload) {
+		this.payload = payload;
+		this.decoder = null;
+		this.rawValue = null;
+	}
+}
@@ -0,0 +1,70 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/*
+ * Logback turbo filter limiting each logger under prefix to rate enabled statements per second
+ * with bursts of up to burst. Past the limit one statement in sample still passes (0 drops them
+ * all), so a flood stays visible without flooding. ERROR is never limited. Statements below
+ * the logger's level are left to the level check and do not use up the budget.
+ */
+public class LogRateLimitFilter extends TurboFilter {
+	private String prefix = "qslv";
+	private int rate = 100;
+	private int burst = 200;
+	private int sample = 100;
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+	public void setRate(int rate) {
+		this.rate = rate;
+	}
+	public void setBurst(int burst) {
+		this.burst = burst;
+	}
+	public void setSample(int sample) {
+		this.sample = sample;
+	}
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+		if (level == null || level.isGreaterOrEqual(Level.ERROR) || false == level.isGreaterOrEqual(logger.getEffectiveLevel())
+				|| false == logger.getName().startsWith(prefix)) {
+			return FilterReply.NEUTRAL;
+		}
+		Bucket bucket = buckets.computeIfAbsent(logger.getName(), name -> new Bucket(burst));
+		return bucket.take(System.nanoTime(), rate, burst, sample) ? FilterReply.NEUTRAL : FilterReply.DENY;
+	}
+
+	static final class Bucket {
+		private double tokens;
+		private long refilled;
+		private long dropped = 0L;
+
+		Bucket(int burst) {
+			this.tokens = burst;
+			this.refilled = System.nanoTime();
+		}
+
+		synchronized boolean take(long now, int rate, int burst, int sample) {
+			tokens = Math.min(burst, tokens + (now - refilled) * rate / 1e9);
+			refilled = now;
+			if (tokens >= 1.0) {
+				tokens -= 1.0;
+				return true;
+			}
+			dropped++;
+			return sample > 0 && dropped % sample == 0;
+		}
+	}
+}
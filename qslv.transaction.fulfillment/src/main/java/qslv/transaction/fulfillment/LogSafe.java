@@ -0,0 +1,115 @@
+package qslv.transaction.fulfillment;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Log arguments for messages. The returned object renders on toString(), which SLF4J only calls
+ * when the statement is enabled, so a disabled debug statement costs one small allocation and no
+ * formatting. Rendering is redacted: account and card numbers keep their last four digits and
+ * the free-form metadata JSON is left out.
+ */
+public final class LogSafe {
+	private static final int VISIBLE_DIGITS = 4;
+
+	private LogSafe() {
+	}
+
+	public static Object payload(final TraceableMessage<?> message) {
+		return new Object() {
+			@Override
+			public String toString() {
+				return render(message);
+			}
+		};
+	}
+
+	public static Object instruction(final OverdraftInstruction instruction) {
+		return new Object() {
+			@Override
+			public String toString() {
+				return render(instruction);
+			}
+		};
+	}
+
+	public static Object account(final String accountNumber) {
+		return new Object() {
+			@Override
+			public String toString() {
+				return mask(accountNumber);
+			}
+		};
+	}
+
+	static String render(OverdraftInstruction instruction) {
+		if (instruction == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(120).append("OverdraftInstruction[overdraftAccount=");
+		if (instruction.getOverdraftAccount() == null) {
+			sb.append("null");
+		} else {
+			sb.append(mask(instruction.getOverdraftAccount().getAccountNumber()))
+				.append(", accountLifeCycleStatus=").append(instruction.getOverdraftAccount().getAccountLifeCycleStatus());
+		}
+		return sb.append(", instructionLifecycleStatus=").append(instruction.getInstructionLifecycleStatus())
+			.append(", effectiveStart=").append(instruction.getEffectiveStart())
+			.append(", effectiveEnd=").append(instruction.getEffectiveEnd())
+			.append(']').toString();
+	}
+
+	static String render(TraceableMessage<?> message) {
+		if (message == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(160);
+		sb.append("TraceableMessage[correlationId=").append(message.getCorrelationId())
+			.append(", businessTaxonomyId=").append(message.getBusinessTaxonomyId())
+			.append(", created=").append(message.getMessageCreationTime())
+			.append(", payload=");
+		Object payload = message.getPayload();
+		if (payload instanceof TransactionRequest) {
+			render(sb, (TransactionRequest) payload);
+		} else if (payload instanceof ResponseMessage) {
+			ResponseMessage<?, ?> response = (ResponseMessage<?, ?>) payload;
+			sb.append("ResponseMessage[status=").append(response.getStatus()).append(", request=");
+			if (response.getRequest() instanceof TransactionRequest) {
+				render(sb, (TransactionRequest) response.getRequest());
+			} else {
+				sb.append(response.getRequest() == null ? "null" : response.getRequest().getClass().getSimpleName());
+			}
+			if (response.getResponse() instanceof TransactionResponse) {
+				sb.append(", response.status=").append(((TransactionResponse) response.getResponse()).getStatus());
+			}
+			sb.append(']');
+		} else {
+			sb.append(payload == null ? "null" : payload.getClass().getSimpleName());
+		}
+		return sb.append(']').toString();
+	}
+
+	private static void render(StringBuilder sb, TransactionRequest request) {
+		sb.append("TransactionRequest[requestUuid=").append(request.getRequestUuid())
+			.append(", accountNumber=").append(mask(request.getAccountNumber()))
+			.append(", debitCardNumber=").append(mask(request.getDebitCardNumber()))
+			.append(", transactionAmount=").append(request.getTransactionAmount())
+			.append(", protectAgainstOverdraft=").append(request.isProtectAgainstOverdraft())
+			.append(']');
+	}
+
+	public static String mask(String number) {
+		if (number == null) {
+			return null;
+		}
+		int visible = Math.min(VISIBLE_DIGITS, number.length() / 2);
+		StringBuilder sb = new StringBuilder(number.length());
+		for (int i = number.length() - visible; i > 0; i--) {
+			sb.append('*');
+		}
+		return sb.append(number, number.length() - visible, number.length()).toString();
+	}
+}
@@ -0,0 +1,146 @@
+package qslv.transaction.fulfillment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Age of a request as it moves through the service, measured from the producer's
+ * messageCreationTime:
+ *   qslv.fulfillment.queue.time       creation to listener entry (time spent in Kafka)
+ *   qslv.fulfillment.processing.time  listener entry to reply confirmed
+ *   qslv.fulfillment.age              creation to reply confirmed
+ * messageCreationTime is a producer-side LocalDateTime, so clock skew between hosts shows up
+ * in queue.time and age; negative values are recorded as zero.
+ *
+ * qslv.fulfillment.slo.burn.rate is the share of replies older than sloMessageAge over the last
+ * sloWindow ms, divided by the error budget (100 - sloTarget)%. 1.0 spends the budget exactly as
+ * fast as the SLO allows; an autoscaler adds replicas well before it stays above 1.
+ * Until init has run (plain unit tests) nothing is recorded.
+ */
+@Component
+public class MessageAgeMetrics {
+	private static final int BUCKETS = 10;
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private Timer queueTime;
+	private Timer processingTime;
+	private Timer age;
+	// per bucket: epoch (window slot it counts), replies, replies over the SLO age
+	private final AtomicLongArray epochs = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray replies = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray breaches = new AtomicLongArray(BUCKETS);
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void init() {
+		MeterRegistry registry = (meterRegistry == null) ? new SimpleMeterRegistry() : meterRegistry;
+		queueTime = timer(registry, "qslv.fulfillment.queue.time", "Time from message creation to listener entry");
+		processingTime = timer(registry, "qslv.fulfillment.processing.time", "Time from listener entry to reply confirmed");
+		age = timer(registry, "qslv.fulfillment.age", "Time from message creation to reply confirmed");
+		Gauge.builder("qslv.fulfillment.slo.burn.rate", this, MessageAgeMetrics::getBurnRate)
+			.description("Rate the message age SLO error budget is spent at, 1.0 = exactly on budget")
+			.register(registry);
+	}
+
+	private Timer timer(MeterRegistry registry, String name, String description) {
+		return Timer.builder(name)
+			.description(description)
+			.publishPercentiles(0.5, 0.99, 0.999)
+			.publishPercentileHistogram()
+			.register(registry);
+	}
+
+	/**
+	 * Record time in queue for a message that just reached the listener.
+	 * @return the entry time to hand to replied.
+	 */
+	public long received(LocalDateTime messageCreationTime) {
+		long entered = System.nanoTime();
+		if (queueTime != null && messageCreationTime != null) {
+			queueTime.record(positive(Duration.between(messageCreationTime, LocalDateTime.now())), TimeUnit.NANOSECONDS);
+		}
+		return entered;
+	}
+
+	/**
+	 * Record processing time and total age once the reply is confirmed.
+	 */
+	public void replied(LocalDateTime messageCreationTime, long entered) {
+		if (processingTime == null) {
+			return;
+		}
+		processingTime.record(System.nanoTime() - entered, TimeUnit.NANOSECONDS);
+		if (messageCreationTime == null) {
+			return;
+		}
+		long elapsed = positive(Duration.between(messageCreationTime, LocalDateTime.now()));
+		age.record(elapsed, TimeUnit.NANOSECONDS);
+		count(System.currentTimeMillis(), elapsed > TimeUnit.MILLISECONDS.toNanos(config.getSloMessageAge()));
+	}
+
+	void count(long now, boolean breached) {
+		long epoch = now / bucketWidth();
+		int bucket = (int) (epoch % BUCKETS);
+		long current = epochs.get(bucket);
+		if (current != epoch && epochs.compareAndSet(bucket, current, epoch)) {
+			// first reply of a new slot; a racing increment may be lost, which a gauge tolerates
+			replies.set(bucket, 0L);
+			breaches.set(bucket, 0L);
+		}
+		replies.incrementAndGet(bucket);
+		if (breached) {
+			breaches.incrementAndGet(bucket);
+		}
+	}
+
+	public double getBurnRate() {
+		return burnRate(System.currentTimeMillis());
+	}
+
+	double burnRate(long now) {
+		long oldest = now / bucketWidth() - BUCKETS + 1;
+		long total = 0L;
+		long breached = 0L;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			if (epochs.get(bucket) >= oldest) {
+				total += replies.get(bucket);
+				breached += breaches.get(bucket);
+			}
+		}
+		double budget = (100.0 - config.getSloTarget()) / 100.0;
+		if (total == 0L || budget <= 0.0) {
+			return 0.0;
+		}
+		return ((double) breached / total) / budget;
+	}
+
+	private long bucketWidth() {
+		return Math.max(1L, config.getSloWindow() / BUCKETS);
+	}
+
+	private static long positive(Duration duration) {
+		return Math.max(0L, duration.toNanos());
+	}
+}
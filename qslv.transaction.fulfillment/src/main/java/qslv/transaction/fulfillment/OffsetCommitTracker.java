@@ -0,0 +1,130 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/*
+ * Records finish out of order when they are processed in parallel or replied to
+ * asynchronously. Committing a record's
+ * offset commits everything before it, so only the highest contiguous completed offset of
+ * each partition is ever acknowledged.
+ */
+@Component
+public class OffsetCommitTracker implements ConsumerRebalanceListener {
+
+	private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+	@Autowired
+	private StageTimers stageTimers;
+
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+
+	public void register(TopicPartition partition, long offset, Acknowledgment acknowledgment) {
+		PartitionOffsets offsets = partitions.computeIfAbsent(partition, p -> new PartitionOffsets());
+		synchronized (offsets) {
+			offsets.pending.put(offset, new PendingOffset(acknowledgment));
+		}
+	}
+
+	/**
+	 * @return the offset that was acknowledged, or -1 when the watermark did not move.
+	 */
+	public long complete(TopicPartition partition, long offset) {
+		PartitionOffsets offsets = partitions.get(partition);
+		if (offsets == null) {
+			return -1L;		// partition revoked while the record was in flight
+		}
+		Acknowledgment commit = null;
+		long committed = -1L;
+		synchronized (offsets) {
+			PendingOffset completed = offsets.pending.get(offset);
+			if (completed == null) {
+				return -1L;
+			}
+			completed.done = true;
+			while (false == offsets.pending.isEmpty() && offsets.pending.firstEntry().getValue().done) {
+				Map.Entry<Long, PendingOffset> first = offsets.pending.pollFirstEntry();
+				commit = first.getValue().acknowledgment;
+				committed = first.getKey();
+			}
+		}
+		if (commit != null) {
+			stageTimers.acknowledge(commit, partition.topic());
+		}
+		return committed;
+	}
+
+	/**
+	 * Forget an offset that will be redelivered, so it does not hold back the watermark.
+	 */
+	public void discard(TopicPartition partition, long offset) {
+		PartitionOffsets offsets = partitions.get(partition);
+		if (offsets != null) {
+			synchronized (offsets) {
+				offsets.pending.remove(offset);
+			}
+		}
+	}
+
+	/**
+	 * @return false once the record's partition has been revoked, even when the record has since
+	 * been redelivered to this consumer under a new acknowledgment.
+	 */
+	public boolean isPending(TopicPartition partition, long offset, Acknowledgment acknowledgment) {
+		PartitionOffsets offsets = partitions.get(partition);
+		if (offsets == null) {
+			return false;
+		}
+		synchronized (offsets) {
+			PendingOffset pending = offsets.pending.get(offset);
+			return pending != null && pending.acknowledgment == acknowledgment;
+		}
+	}
+
+	public void revoke(Collection<TopicPartition> revoked) {
+		revoked.forEach(partitions::remove);
+	}
+
+	@Override
+	public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+		// in-flight records of a revoked partition may be redelivered to the new owner; every
+		// downstream call is idempotent on requestUuid so that is safe.
+		revoke(revoked);
+	}
+
+	@Override
+	public void onPartitionsAssigned(Collection<TopicPartition> assigned) {
+	}
+
+	public int pending(TopicPartition partition) {
+		PartitionOffsets offsets = partitions.get(partition);
+		if (offsets == null) {
+			return 0;
+		}
+		synchronized (offsets) {
+			return offsets.pending.size();
+		}
+	}
+
+	private static class PartitionOffsets {
+		final TreeMap<Long, PendingOffset> pending = new TreeMap<>();
+	}
+
+	private static class PendingOffset {
+		final Acknowledgment acknowledgment;
+		boolean done = false;
+
+		PendingOffset(Acknowledgment acknowledgment) {
+			this.acknowledgment = acknowledgment;
+		}
+	}
+}
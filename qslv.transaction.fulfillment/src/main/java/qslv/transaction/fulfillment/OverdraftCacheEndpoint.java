@@ -0,0 +1,33 @@
+package qslv.transaction.fulfillment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/*
+ * Admin invalidation of the overdraft instruction cache:
+ * DELETE /actuator/overdraftcache clears it, DELETE /actuator/overdraftcache/{accountNumber} drops one account.
+ */
+@Component
+@Endpoint(id = "overdraftcache")
+public class OverdraftCacheEndpoint {
+
+	@Autowired
+	private JdbcDao jdbcDao;
+
+	public void setJdbcDao(JdbcDao jdbcDao) {
+		this.jdbcDao = jdbcDao;
+	}
+
+	@DeleteOperation
+	public void invalidateAll() {
+		jdbcDao.invalidateAllOverdraftInstructions();
+	}
+
+	@DeleteOperation
+	public void invalidate(@Selector String accountNumber) {
+		jdbcDao.invalidateOverdraftInstructions(accountNumber);
+	}
+}
@@ -0,0 +1,42 @@
+package qslv.transaction.fulfillment;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/*
+ * Drops cached overdraft instructions when they change. The record key is the account number;
+ * a record without a key clears the whole cache. The group id ends with the host name, the pod
+ * name on OpenShift, so a restarted instance rejoins its own group instead of leaving one behind.
+ */
+@Component
+@ConditionalOnProperty(prefix = "qslv", name = "kafka-overdraft-invalidation-queue")
+public class OverdraftInvalidationListener {
+	private static final Logger log = LoggerFactory.getLogger(OverdraftInvalidationListener.class);
+
+	@Autowired
+	private JdbcDao jdbcDao;
+
+	public void setJdbcDao(JdbcDao jdbcDao) {
+		this.jdbcDao = jdbcDao;
+	}
+
+	@KafkaListener(topics = "#{ @configProperties.kafkaOverdraftInvalidationQueue }",
+			groupId = "#{ @configProperties.aitid + '.overdraft.invalidation.' + T(java.net.InetAddress).getLocalHost().getHostName() }",
+			containerFactory = "overdraftInvalidationContainerFactory")
+	void onInvalidation(final ConsumerRecord<String, String> data) {
+		log.trace("onInvalidation ENTRY");
+
+		if (data.key() == null) {
+			jdbcDao.invalidateAllOverdraftInstructions();
+		} else {
+			jdbcDao.invalidateOverdraftInstructions(data.key());
+		}
+
+		log.trace("onInvalidation EXIT");
+	}
+}
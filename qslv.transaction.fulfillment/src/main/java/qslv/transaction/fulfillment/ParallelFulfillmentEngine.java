@@ -0,0 +1,236 @@
+package qslv.transaction.fulfillment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Fans records from a partition out to a worker pool (qslv.kafka-parallel-workers > 0), or to
+ * one virtual thread per record (qslv.virtual-threads=true, Java 21+).
+ * Records with the same key (account number) are fulfilled in offset order; records with
+ * different keys run concurrently. Offsets are committed only up to the highest contiguous
+ * completed record, so a crash replays at most the in-flight window.
+ * With qslv.kafka-async-reply=true replies to one key can reach the reply topic out of order
+ * when a send has to be resent; callers correlate replies by requestUuid.
+ * With virtual threads the blocking TransactionDao/JdbcDao calls cost almost nothing while
+ * they wait; qslv.kafka-parallel-max-in-flight is then the only concurrency bound.
+ * The consumer thread never blocks on that bound. At max-in-flight the request listener
+ * container is paused, and it is resumed once records complete, so the bound is enforced at
+ * poll granularity. A record whose partition is revoked is dropped from its lane; the new
+ * owner fulfills it again.
+ * With qslv.reactive-rest=true no thread waits on the POST /Transaction at all: a key's lane
+ * resumes when the reply is confirmed, and max-in-flight bounds the requests outstanding.
+ * With qslv.kafka-retry-delays a recoverable failure is forwarded to the first retry tier and
+ * its offset completed, so later records for the same key may be fulfilled before it.
+ */
+@Component
+public class ParallelFulfillmentEngine {
+	private static final Logger log = LoggerFactory.getLogger(ParallelFulfillmentEngine.class);
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private FulfillmentController fulfillmentController;
+	@Autowired
+	private OffsetCommitTracker offsetTracker;
+	// the tier containers come from KafkaListenerConfig, which itself depends on this engine
+	@Autowired
+	@Lazy
+	private RetryTopicPipeline retryTopics;
+	@Autowired(required = false)
+	private KafkaListenerEndpointRegistry listenerRegistry;
+	private KeyOrderedExecutor keyOrderedExecutor;
+	private ExecutorService workers;
+	private ScheduledExecutorService scheduler;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile boolean paused = false;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setFulfillmentController(FulfillmentController fulfillmentController) {
+		this.fulfillmentController = fulfillmentController;
+	}
+	public void setOffsetTracker(OffsetCommitTracker offsetTracker) {
+		this.offsetTracker = offsetTracker;
+	}
+	public void setRetryTopics(RetryTopicPipeline retryTopics) {
+		this.retryTopics = retryTopics;
+	}
+	public void setListenerRegistry(KafkaListenerEndpointRegistry listenerRegistry) {
+		this.listenerRegistry = listenerRegistry;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (false == isEnabled()) {
+			return;
+		}
+		if (config.isKafkaTransactional()) {
+			// replies are produced on worker threads, outside the container's transaction
+			throw new IllegalStateException("qslv.kafka-parallel-workers cannot be combined with qslv.kafka-transactional-id-prefix.");
+		}
+		log.info("Parallel fulfillment with {} workers, {} max in flight.", config.isVirtualThreads() ? "virtual" : config.getKafkaParallelWorkers(),
+				config.getKafkaParallelMaxInFlight());
+		workers = FulfillmentExecutors.newWorkerExecutor(config);
+		scheduler = Executors.newSingleThreadScheduledExecutor(FulfillmentExecutors.namedThreads("fulfillment-retry"));
+		keyOrderedExecutor = new KeyOrderedExecutor(workers, scheduler, config.getKafkaTimeout());
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (workers != null) {
+			scheduler.shutdownNow();
+			workers.shutdown();
+		}
+	}
+
+	public boolean isEnabled() {
+		return config.getKafkaParallelWorkers() > 0 || config.isVirtualThreads();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Called on the consumer thread. Never blocks; pauses the request listener when max-in-flight
+	 * records are outstanding.
+	 */
+	public void submit(final ConsumerRecord<String, TraceableMessage<TransactionRequest>> record, Acknowledgment acknowledgment) {
+		TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+		String key = (record.key() == null) ? partition.toString() : record.key();
+
+		if (inFlight.incrementAndGet() >= config.getKafkaParallelMaxInFlight()) {
+			pause();
+		}
+		offsetTracker.register(partition, record.offset(), acknowledgment);
+		if (config.isReactiveRest()) {
+			// the lane waits for the reply without a thread, so the next request for the key starts
+			// only once this one is fulfilled and its reply is on the broker
+			keyOrderedExecutor.executeAsync(key, () -> revoked(record, partition, acknowledgment)
+					? CompletableFuture.completedFuture(true)
+					: fulfillmentController.processMessageNonBlocking(record.value()).thenApply(done -> finish(record, partition, done)));
+			return;
+		}
+		keyOrderedExecutor.execute(key, () -> {
+			if (revoked(record, partition, acknowledgment)) {
+				return true;
+			}
+			if (false == config.isKafkaAsyncReply()) {
+				return finish(record, partition, fulfillmentController.processMessage(record.value()));
+			}
+			CompletableFuture<Boolean> replied = fulfillmentController.processMessageAsync(record.value());
+			if (replied.isDone() && false == replied.isCompletedExceptionally()) {
+				return finish(record, partition, replied.join());
+			}
+			// the key lane moves on as soon as the reply is handed to the producer. Replies for one
+			// key stay in order while their sends succeed; a failed send is resent by KafkaProducerDao
+			// after kafkaTimeout, by which time a later reply for the same key may already be on the
+			// broker. Fulfillment itself stays in key order; only the replies can be reordered.
+			replied.whenComplete((done, ex) -> {
+				if (ex != null || false == finish(record, partition, done)) {
+					// the lane has moved on, so the record cannot be retried in order. Its offset stays
+					// uncommitted and holds the partition's watermark until a rebalance or restart redelivers it.
+					log.error("Reply for offset {} of {} failed. Offset not committed. {}", record.offset(), partition,
+							(ex == null) ? "Recoverable error." : ex.toString());
+					release();
+				}
+			});
+			return true;
+		});
+	}
+
+	/**
+	 * @return true when the record is finished, false when the lane must retry it.
+	 */
+	private boolean finish(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record, TopicPartition partition, boolean done) {
+		if (false == done) {
+			if (false == (retryTopics.isEnabled() && retryTopics.forward(record, 1))) {
+				log.warn("Recoverable error. Retry offset {} of {} in {} ms.", record.offset(), partition, config.getKafkaTimeout());
+				return false;
+			}
+		}
+		release();
+		offsetTracker.complete(partition, record.offset());
+		return true;
+	}
+
+	/**
+	 * A lane can still hold, or keep retrying, a record whose partition has been revoked.
+	 * @return true when the record was dropped.
+	 */
+	private boolean revoked(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record, TopicPartition partition, Acknowledgment acknowledgment) {
+		if (offsetTracker.isPending(partition, record.offset(), acknowledgment)) {
+			return false;
+		}
+		log.debug("Partition {} revoked. Drop offset {}.", partition, record.offset());
+		release();
+		return true;
+	}
+
+	private void release() {
+		if (inFlight.decrementAndGet() < config.getKafkaParallelMaxInFlight()) {
+			resume();
+		}
+	}
+
+	private void pause() {
+		MessageListenerContainer container = container();
+		synchronized (this) {
+			// the adaptive limiter pauses and resumes the same container, so check the container too
+			if (paused && (container == null || container.isPauseRequested())) {
+				return;
+			}
+			paused = true;
+			if (container != null) {
+				container.pause();
+			}
+		}
+		log.debug("Pause request listener at {} in flight.", inFlight.get());
+	}
+
+	private void resume() {
+		if (false == paused) {
+			return;
+		}
+		MessageListenerContainer container = container();
+		synchronized (this) {
+			if (false == paused || inFlight.get() >= config.getKafkaParallelMaxInFlight()) {
+				return;
+			}
+			paused = false;
+			if (container != null) {
+				container.resume();
+			}
+		}
+		log.debug("Resume request listener at {} in flight.", inFlight.get());
+	}
+
+	private MessageListenerContainer container() {
+		return (listenerRegistry == null) ? null : listenerRegistry.getListenerContainer(AdaptiveConcurrencyLimiter.LISTENER_ID);
+	}
+}
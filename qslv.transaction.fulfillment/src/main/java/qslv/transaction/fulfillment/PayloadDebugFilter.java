@@ -0,0 +1,76 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/*
+ * Logback turbo filter that turns on every qslv debug statement, payload dumps included, while
+ * the thread works on a message whose correlationId (MDC key) has been traced through
+ * /actuator/payloadlogging. Everything else falls through to the configured levels. Logback
+ * creates the filter, so the traced ids are static. At most MAX_TRACED ids are traced at once,
+ * and each expires TTL after it was added.
+ */
+public class PayloadDebugFilter extends TurboFilter {
+	public static final String MDC_KEY = "correlationId";
+	public static final int MAX_TRACED = 100;
+	public static final long TTL = TimeUnit.MINUTES.toNanos(15);
+	// correlationId -> System.nanoTime() it expires at
+	private static final Map<String, Long> traced = new ConcurrentHashMap<>();
+
+	/**
+	 * @return false when MAX_TRACED ids are already traced.
+	 */
+	public static boolean trace(String correlationId) {
+		return trace(correlationId, System.nanoTime());
+	}
+
+	static boolean trace(String correlationId, long now) {
+		purge(now);
+		if (traced.size() >= MAX_TRACED && false == traced.containsKey(correlationId)) {
+			return false;
+		}
+		traced.put(correlationId, now + TTL);
+		return true;
+	}
+
+	public static void untrace(String correlationId) {
+		traced.remove(correlationId);
+	}
+
+	public static Set<String> traced() {
+		purge(System.nanoTime());
+		return Collections.unmodifiableSet(traced.keySet());
+	}
+
+	private static void purge(long now) {
+		traced.values().removeIf(expires -> expires - now <= 0);
+	}
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+		if (traced.isEmpty() || false == level.isGreaterOrEqual(Level.DEBUG) || false == logger.getName().startsWith("qslv")) {
+			return FilterReply.NEUTRAL;
+		}
+		String correlationId = MDC.get(MDC_KEY);
+		Long expires = (correlationId == null) ? null : traced.get(correlationId);
+		if (expires == null) {
+			return FilterReply.NEUTRAL;
+		}
+		if (expires - System.nanoTime() <= 0) {
+			traced.remove(correlationId, expires);
+			return FilterReply.NEUTRAL;
+		}
+		return FilterReply.ACCEPT;
+	}
+}
@@ -0,0 +1,38 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Set;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/*
+ * Runtime debug logging per correlationId:
+ * POST /actuator/payloadlogging/{correlationId} logs every qslv debug statement for that message,
+ * DELETE /actuator/payloadlogging/{correlationId} stops it, GET /actuator/payloadlogging lists them.
+ * Payload dumps are sensitive, so the endpoint is not in management.endpoints.web.exposure.include
+ * by default; expose it only behind an authenticated management port. Traced ids are bounded and
+ * expire, see PayloadDebugFilter.
+ */
+@Component
+@Endpoint(id = "payloadlogging")
+public class PayloadLoggingEndpoint {
+
+	@ReadOperation
+	public Set<String> traced() {
+		return PayloadDebugFilter.traced();
+	}
+
+	@WriteOperation
+	public boolean trace(@Selector String correlationId) {
+		return PayloadDebugFilter.trace(correlationId);
+	}
+
+	@DeleteOperation
+	public void untrace(@Selector String correlationId) {
+		PayloadDebugFilter.untrace(correlationId);
+	}
+}
@@ -0,0 +1,62 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Outermost request deserializer. A record the wrapped deserializer throws on becomes an
+ * UndecodableMessage instead of an exception, which would make the container poll the same
+ * offset forever. The listeners send it to QuarantineRouter and move on.
+ */
+public class PoisonPillDeserializer implements Deserializer<TraceableMessage<TransactionRequest>> {
+	private static final Logger log = LoggerFactory.getLogger(PoisonPillDeserializer.class);
+	private final Deserializer<TraceableMessage<TransactionRequest>> delegate;
+
+	public PoisonPillDeserializer(Deserializer<TraceableMessage<TransactionRequest>> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		delegate.configure(configs, isKey);
+	}
+
+	@Override
+	public TraceableMessage<TransactionRequest> deserialize(String topic, byte[] data) {
+		try {
+			return delegate.deserialize(topic, data);
+		} catch (RuntimeException ex) {
+			return undecodable(topic, null, data, ex);
+		}
+	}
+
+	@Override
+	public TraceableMessage<TransactionRequest> deserialize(String topic, Headers headers, byte[] data) {
+		try {
+			return delegate.deserialize(topic, headers, data);
+		} catch (RuntimeException ex) {
+			return undecodable(topic, headers, data, ex);
+		}
+	}
+
+	private UndecodableMessage undecodable(String topic, Headers headers, byte[] data, RuntimeException ex) {
+		log.warn("Undecodable record on {}. {}", topic, ex.toString());
+		UndecodableMessage message = new UndecodableMessage(data, ex.toString());
+		if (EnvelopeHeaders.isPresent(headers)) {
+			EnvelopeHeaders.read(headers, message);
+		}
+		return message;
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
@@ -0,0 +1,250 @@
+package qslv.transaction.fulfillment;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Recently completed requests by request UUID, so a redelivered request is answered with its
+ * original reply instead of replaying the REST saga. Sized by qslv.processed-index-capacity
+ * (0 disables it).
+ *
+ * Two generations of primitive open-addressing tables (UUID as two longs, linear probing, load
+ * factor <= 0.5). New entries go to the current generation; when it holds capacity entries it
+ * becomes the previous one and the old previous generation is cleared and reused. A request is
+ * therefore remembered for at least capacity and at most 2 x capacity completions.
+ *
+ * With qslv.processed-index-file each generation is also appended to its own memory-mapped
+ * segment (<file>.0 and <file>.1), and both are reloaded at start-up. Records are
+ * [int length][long hi][long lo][reply JSON]; a zero length ends a segment. Segments are not
+ * forced to disk on every write, so they survive a process restart but not an OS crash.
+ */
+@Component
+public class ProcessedRequestIndex {
+	private static final Logger log = LoggerFactory.getLogger(ProcessedRequestIndex.class);
+	private static final int SEGMENT_HEADER = 8;
+	private static final int RECORD_HEADER = 4 + 16;
+
+	@Autowired
+	private ConfigProperties config;
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	private int capacity;
+	private Generation current;
+	private Generation previous;
+	private MappedByteBuffer currentSegment;
+	private MappedByteBuffer previousSegment;
+	private long generation;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+
+	@PostConstruct
+	public void init() throws IOException {
+		if (false == isEnabled()) {
+			return;
+		}
+		capacity = config.getProcessedIndexCapacity();
+		current = new Generation(capacity);
+		previous = new Generation(capacity);
+		if (config.getProcessedIndexFile() != null && false == config.getProcessedIndexFile().isEmpty()) {
+			openSegments(config.getProcessedIndexFile(), config.getProcessedIndexFileSize());
+		}
+		log.info("Processed request index {} entries per generation, {} loaded.", capacity, current.size + previous.size);
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		if (currentSegment != null) {
+			currentSegment.force();
+			previousSegment.force();
+		}
+	}
+
+	public boolean isEnabled() {
+		return config.getProcessedIndexCapacity() > 0;
+	}
+
+	/**
+	 * @return the reply recorded for this request, or null when it has not been seen recently.
+	 */
+	public synchronized TransactionResponse get(UUID requestUuid) {
+		long hi = requestUuid.getMostSignificantBits();
+		long lo = requestUuid.getLeastSignificantBits();
+		TransactionResponse reply = current.get(hi, lo);
+		return (reply == null) ? previous.get(hi, lo) : reply;
+	}
+
+	public synchronized void put(UUID requestUuid, TransactionResponse reply) {
+		long hi = requestUuid.getMostSignificantBits();
+		long lo = requestUuid.getLeastSignificantBits();
+		byte[] json = (currentSegment == null) ? null : serialize(reply);
+
+		if (current.size >= capacity || (json != null && currentSegment.remaining() < RECORD_HEADER + json.length + 4)) {
+			rotate();
+		}
+		current.put(hi, lo, reply);
+		if (json != null) {
+			append(hi, lo, json);
+		}
+	}
+
+	public synchronized int size() {
+		return current.size + previous.size;
+	}
+
+	private void rotate() {
+		Generation retired = previous;
+		previous = current;
+		current = retired;
+		current.clear();
+		generation++;
+
+		if (currentSegment != null) {
+			MappedByteBuffer segment = previousSegment;
+			previousSegment = currentSegment;
+			currentSegment = segment;
+			currentSegment.putLong(0, generation);
+			currentSegment.putInt(SEGMENT_HEADER, 0);
+			currentSegment.position(SEGMENT_HEADER);
+		}
+	}
+
+	private byte[] serialize(TransactionResponse reply) {
+		try {
+			byte[] json = mapper.writeValueAsBytes(reply);
+			if (SEGMENT_HEADER + RECORD_HEADER + json.length + 4 > currentSegment.capacity()) {
+				log.warn("Reply of {} bytes does not fit a processed-index segment. Kept in memory only.", json.length);
+				return null;
+			}
+			return json;
+		} catch (JsonProcessingException ex) {
+			log.warn("Reply not written to processed-index segment. {}", ex.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	private void append(long hi, long lo, byte[] json) {
+		int position = currentSegment.position();
+		// the length is written last, so a torn record reads as the end of the segment
+		currentSegment.putInt(position + RECORD_HEADER + json.length, 0);
+		currentSegment.putLong(position + 4, hi);
+		currentSegment.putLong(position + 12, lo);
+		currentSegment.position(position + RECORD_HEADER);
+		currentSegment.put(json);
+		currentSegment.putInt(position, json.length);
+	}
+
+	private void openSegments(String file, int segmentSize) throws IOException {
+		MappedByteBuffer first = map(Paths.get(file + ".0"), segmentSize);
+		MappedByteBuffer second = map(Paths.get(file + ".1"), segmentSize);
+		boolean firstIsNewer = first.getLong(0) >= second.getLong(0);
+		currentSegment = firstIsNewer ? first : second;
+		previousSegment = firstIsNewer ? second : first;
+		generation = currentSegment.getLong(0);
+
+		load(previousSegment, previous);
+		load(currentSegment, current);
+	}
+
+	private MappedByteBuffer map(Path path, int segmentSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// the mapping stays valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+	}
+
+	private void load(MappedByteBuffer segment, Generation target) {
+		int position = SEGMENT_HEADER;
+		while (position + RECORD_HEADER <= segment.limit()) {
+			int length = segment.getInt(position);
+			if (length <= 0 || position + RECORD_HEADER + length + 4 > segment.limit()) {
+				break;
+			}
+			byte[] json = new byte[length];
+			segment.position(position + RECORD_HEADER);
+			segment.get(json);
+			if (target.size < capacity) {
+				try {
+					target.put(segment.getLong(position + 4), segment.getLong(position + 12), mapper.readValue(json, TransactionResponse.class));
+				} catch (IOException ex) {
+					log.warn("Unreadable processed-index record at {}. {}", position, ex.getLocalizedMessage());
+					break;
+				}
+			}
+			position += RECORD_HEADER + length;
+		}
+		segment.position(position);
+	}
+
+	private static final class Generation {
+		private final long[] hi;
+		private final long[] lo;
+		private final Object[] replies;
+		private final int mask;
+		private int size;
+
+		Generation(int capacity) {
+			// smallest power of two >= 2 x capacity keeps the load factor at or below one half
+			int slots = Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1;
+			hi = new long[slots];
+			lo = new long[slots];
+			replies = new Object[slots];
+			mask = slots - 1;
+		}
+
+		TransactionResponse get(long keyHi, long keyLo) {
+			for (int slot = slot(keyHi, keyLo); replies[slot] != null; slot = (slot + 1) & mask) {
+				if (hi[slot] == keyHi && lo[slot] == keyLo) {
+					return (TransactionResponse) replies[slot];
+				}
+			}
+			return null;
+		}
+
+		void put(long keyHi, long keyLo, TransactionResponse reply) {
+			int slot = slot(keyHi, keyLo);
+			while (replies[slot] != null) {
+				if (hi[slot] == keyHi && lo[slot] == keyLo) {
+					replies[slot] = reply;
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			hi[slot] = keyHi;
+			lo[slot] = keyLo;
+			replies[slot] = reply;
+			size++;
+		}
+
+		void clear() {
+			Arrays.fill(replies, null);
+			size = 0;
+		}
+
+		private int slot(long keyHi, long keyLo) {
+			long hash = (keyHi ^ keyLo) * 0x9E3779B97F4A7C15L;
+			return (int) (hash >>> 32) & mask;
+		}
+	}
+}
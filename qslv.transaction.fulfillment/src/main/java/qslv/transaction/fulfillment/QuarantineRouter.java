@@ -0,0 +1,118 @@
+package qslv.transaction.fulfillment;
+
+import java.time.LocalDateTime;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Moves records that could not be decoded to <request queue>-quarantine: the raw value and
+ * headers, plus the source topic, partition, offset and decode failure as qslv-quarantine-*
+ * headers. A record with a key, which identifies the caller's account, is also answered
+ * with MALFORMED_MESSAGE. A LazyTraceableMessage whose body fails to decode on the worker
+ * thread is routed the same way, from the source record the listener tracked for it.
+ */
+@Component
+public class QuarantineRouter {
+	private static final Logger log = LoggerFactory.getLogger(QuarantineRouter.class);
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private KafkaProducerDao kafkaDao;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+	private Counter quarantined;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setKafkaDao(KafkaProducerDao kafkaDao) {
+		this.kafkaDao = kafkaDao;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public static boolean isPoisonPill(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record) {
+		return record.value() instanceof UndecodableMessage;
+	}
+
+	/**
+	 * Remembers the source record of a lazily decoded request, so a body that fails to decode
+	 * after the listener has handed it on can still be quarantined.
+	 */
+	public static void track(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record) {
+		if (record.value() instanceof LazyTraceableMessage) {
+			((LazyTraceableMessage) record.value()).setSource(record);
+		}
+	}
+
+	/**
+	 * @return true when the message is a tracked LazyTraceableMessage whose body has already failed to decode.
+	 * Never decodes the body itself.
+	 */
+	public static boolean isUndecodable(TraceableMessage<TransactionRequest> message) {
+		return message instanceof LazyTraceableMessage && ((LazyTraceableMessage) message).failure() != null
+				&& ((LazyTraceableMessage) message).source() != null;
+	}
+
+	public String quarantineTopic() {
+		return config.getKafkaTransactionRequestQueue() + "-quarantine";
+	}
+
+	/**
+	 * @return true when the record was quarantined and its offset may be committed.
+	 */
+	public boolean route(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record) {
+		UndecodableMessage message = (UndecodableMessage) record.value();
+		return route(record, message, message.rawValue(), message.failure());
+	}
+
+	/**
+	 * Quarantine a request whose body failed to decode after its envelope was accepted.
+	 * @return true when the message was quarantined and its offset may be committed.
+	 */
+	public boolean route(LazyTraceableMessage message) {
+		return route(message.source(), message, message.rawValue(), message.failure());
+	}
+
+	private boolean route(ConsumerRecord<String, ?> record, TraceableMessage<?> message, byte[] rawValue, String failure) {
+		try {
+			log.error("Offset {} of {}-{} undecodable, moved to {}. {}", record.offset(), record.topic(), record.partition(),
+					quarantineTopic(), failure);
+			kafkaDao.produceQuarantine(quarantineTopic(), record, rawValue, failure);
+			if (record.key() != null) {
+				TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+						new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>((TransactionRequest) null));
+				reply.getPayload().setStatus(ResponseMessage.MALFORMED_MESSAGE);
+				reply.getPayload().setErrorMessage("Undecodable message. " + failure);
+				reply.setMessageCompletionTime(LocalDateTime.now());
+				kafkaDao.produceResponse(record.key(), reply);
+			}
+		} catch (DataAccessException ex) {
+			log.warn("Quarantine unavailable. Keep offset {} of {}-{}. {}", record.offset(), record.topic(), record.partition(), ex.getLocalizedMessage());
+			return false;
+		}
+		if (meterRegistry != null) {
+			if (quarantined == null) {
+				quarantined = Counter.builder("qslv.fulfillment.quarantined")
+					.description("Undecodable records moved to the quarantine topic")
+					.register(meterRegistry);
+			}
+			quarantined.increment();
+		}
+		return true;
+	}
+}
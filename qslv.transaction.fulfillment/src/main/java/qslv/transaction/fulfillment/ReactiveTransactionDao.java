@@ -0,0 +1,188 @@
+package qslv.transaction.fulfillment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.TimedResponse;
+import qslv.common.TraceableRequest;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.CommitReservationRequest;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/*
+ * Non-blocking POST /Transaction (qslv.reactive-rest=true). Same headers, TimedResponse
+ * unwrapping and status checks as TransactionDao, and the same per-URL bulkhead and circuit
+ * breaker, so a 5xx or an I/O error counts against the breaker whichever client made the call.
+ * Every failure but a refused call is retried with exponential backoff for restAttempts
+ * attempts, as the RetryTemplate does. Exhausted I/O errors and refused calls surface as
+ * TransientDataAccessResourceException. A 2xx other than CREATED, or an empty body, is a
+ * NonTransientDataAccessResourceException and is not retried. A full bulkhead refuses at once
+ * instead of waiting restBulkheadMaxWait, because waiting would park the calling thread.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "qslv", name = "reactive-rest", havingValue = "true")
+public class ReactiveTransactionDao {
+	private static final Logger log = LoggerFactory.getLogger(ReactiveTransactionDao.class);
+	private static ParameterizedTypeReference<TimedResponse<TransactionResponse>> transactionResponseType =
+			new ParameterizedTypeReference<TimedResponse<TransactionResponse>>() {};
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private WebClient transactionWebClient;
+	@Autowired
+	private CircuitBreakerRegistry circuitBreakerRegistry;
+	@Autowired
+	private BulkheadRegistry bulkheadRegistry;
+	@Autowired
+	private StageTimers stageTimers;
+	private final Map<String, String> endpoints = new ConcurrentHashMap<>();
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setTransactionWebClient(WebClient transactionWebClient) {
+		this.transactionWebClient = transactionWebClient;
+	}
+	public void setCircuitBreakerRegistry(CircuitBreakerRegistry circuitBreakerRegistry) {
+		this.circuitBreakerRegistry = circuitBreakerRegistry;
+	}
+	public void setBulkheadRegistry(BulkheadRegistry bulkheadRegistry) {
+		this.bulkheadRegistry = bulkheadRegistry;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+
+	public CompletableFuture<TransactionResponse> recordTransaction(final TraceableMessage<?> message, final TransactionRequest request) {
+		log.trace("recordTransaction ENTRY");
+
+		HttpHeaders headers = TransactionDao.buildHeaders(config.getAitid(), message);
+		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
+		return callService(StageTimers.RECORD_TRANSACTION, headers, config.getPostTransactionUrl(), request, transactionResponseType).toFuture();
+	}
+
+	private <M,R> Mono<R> callService(final String stage, HttpHeaders headers, String url, M request,
+			ParameterizedTypeReference<TimedResponse<R>> typereference) {
+		String endpoint = endpoints.computeIfAbsent(url, ReactiveTransactionDao::endpoint);
+		long start = System.nanoTime();
+		return post(headers, url, request, typereference)
+				.doOnSuccess(payload -> stageTimers.record(stage, endpoint, StageTimers.SUCCESS, start))
+				.doOnError(ex -> stageTimers.record(stage, endpoint, StageTimers.outcome(ex), start));
+	}
+
+	private <M,R> Mono<R> post(HttpHeaders headers, String url, M request, ParameterizedTypeReference<TimedResponse<R>> typereference) {
+		return exchange(headers, url, request, typereference)
+				.retryWhen(Retry.backoff(Math.max(0, config.getRestAttempts() - 1), Duration.ofMillis(config.getRestBackoffDelay()))
+						.maxBackoff(Duration.ofMillis(config.getRestBackoffDelayMax()))
+						// no retries against an open breaker or a full bulkhead
+						.filter(ex -> false == (ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException))
+						.onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+				.onErrorMap(ex -> ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException, ex -> {
+					String msg = String.format("POST %s refused. %s", url, ex.getLocalizedMessage());
+					log.warn(msg);
+					return new TransientDataAccessResourceException(msg, ex);
+				})
+				.onErrorMap(ResourceAccessException.class, ex -> {
+					String msg = String.format("Exhausted %d retries for POST %s.", config.getRestAttempts(), url);
+					log.warn(msg);
+					return new TransientDataAccessResourceException(msg, ex);
+				})
+				.flatMap(response -> {
+					if (!response.hasBody() || !response.getStatusCode().equals(HttpStatus.CREATED) ) {
+						String msg = String.format("Unexpected return from %s Service. %s", url, response.toString());
+						log.error(msg);
+						return Mono.error(new NonTransientDataAccessResourceException(msg));
+					}
+					return Mono.just(response.getBody().getPayload());
+				});
+	}
+
+	/*
+	 * One attempt. Errors are mapped onto the exceptions RestTemplate throws, so the shared
+	 * breaker configuration records the same failures for both clients.
+	 */
+	private <M,R> Mono<ResponseEntity<TimedResponse<R>>> exchange(HttpHeaders headers, String url, M request,
+			ParameterizedTypeReference<TimedResponse<R>> typereference) {
+		return Mono.defer(() -> {
+			Bulkhead bulkhead = bulkheadRegistry.bulkhead(url);
+			CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker(url);
+			if (false == bulkhead.tryAcquirePermission()) {
+				return Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead));
+			}
+			if (false == breaker.tryAcquirePermission()) {
+				bulkhead.onComplete();
+				return Mono.error(CallNotPermittedException.createCallNotPermittedException(breaker));
+			}
+			long start = System.nanoTime();
+			return transactionWebClient.post()
+					.uri(url)
+					.headers(h -> h.addAll(headers))
+					.bodyValue(request)
+					.retrieve()
+					.toEntity(typereference)
+					.timeout(Duration.ofMillis(config.getRestTimeout()))
+					.onErrorMap(ReactiveTransactionDao::restClientException)
+					.doOnSuccess(response -> breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+					.doOnError(ex -> breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, ex))
+					.doOnCancel(breaker::releasePermission)
+					.doFinally(signal -> bulkhead.onComplete());
+		});
+	}
+
+	private static Throwable restClientException(Throwable ex) {
+		if (ex instanceof WebClientResponseException) {
+			WebClientResponseException response = (WebClientResponseException) ex;
+			if (response.getStatusCode().is5xxServerError()) {
+				return HttpServerErrorException.create(response.getStatusCode(), response.getStatusText(),
+						response.getHeaders(), response.getResponseBodyAsByteArray(), null);
+			}
+			return HttpClientErrorException.create(response.getStatusCode(), response.getStatusText(),
+					response.getHeaders(), response.getResponseBodyAsByteArray(), null);
+		}
+		if (ex instanceof IOException) {
+			return new ResourceAccessException(ex.getLocalizedMessage(), (IOException) ex);
+		}
+		// connect failures and the timeout above
+		return new ResourceAccessException(ex.toString(), new IOException(ex));
+	}
+
+	private static String endpoint(String url) {
+		try {
+			return "POST " + URI.create(url).getPath();
+		} catch (IllegalArgumentException ex) {
+			return "POST " + url;
+		}
+	}
+}
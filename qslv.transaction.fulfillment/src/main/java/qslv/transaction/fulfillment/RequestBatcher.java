@@ -0,0 +1,139 @@
+package qslv.transaction.fulfillment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.TransientDataAccessException;
+
+/*
+ * Coalesces single requests into bulk calls. A batch is sent when it holds maxSize requests,
+ * or window ms after its first request arrived, whichever comes first. The sender gets the
+ * requests in arrival order and must return one response per request in the same order; each
+ * caller's future completes with its own response. When the sender throws for a batch of
+ * several, each request is sent again on its own, so a request the service rejects fails only
+ * its own caller. A TransientDataAccessException, a response count that does not match, or an
+ * Error fails every future of the batch with the same exception: the service or the client is
+ * at fault, not one request.
+ */
+public class RequestBatcher<Q, R> {
+	private static final Logger log = LoggerFactory.getLogger(RequestBatcher.class);
+
+	private final Function<List<Q>, List<R>> sender;
+	private final int maxSize;
+	private final long window;
+	private final Executor executor;
+	private final ScheduledExecutorService scheduler;
+	private List<Pending<Q, R>> pending;
+	private ScheduledFuture<?> windowTimer;
+
+	public RequestBatcher(Function<List<Q>, List<R>> sender, int maxSize, long window, Executor executor, ScheduledExecutorService scheduler) {
+		this.sender = sender;
+		this.maxSize = maxSize;
+		this.window = window;
+		this.executor = executor;
+		this.scheduler = scheduler;
+		this.pending = new ArrayList<>(maxSize);
+	}
+
+	public CompletableFuture<R> submit(Q request) {
+		Pending<Q, R> entry = new Pending<>(request);
+		List<Pending<Q, R>> full = null;
+		synchronized (this) {
+			pending.add(entry);
+			if (pending.size() >= maxSize) {
+				full = drain();
+			} else if (pending.size() == 1) {
+				windowTimer = scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (full != null) {
+			send(full);
+		}
+		return entry.response;
+	}
+
+	/**
+	 * Send whatever is pending now, without waiting for the window.
+	 */
+	public void flush() {
+		List<Pending<Q, R>> batch;
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = drain();
+		}
+		send(batch);
+	}
+
+	private List<Pending<Q, R>> drain() {
+		if (windowTimer != null) {
+			windowTimer.cancel(false);
+			windowTimer = null;
+		}
+		List<Pending<Q, R>> batch = pending;
+		pending = new ArrayList<>(maxSize);
+		return batch;
+	}
+
+	private void send(List<Pending<Q, R>> batch) {
+		executor.execute(() -> {
+			List<Q> requests = new ArrayList<>(batch.size());
+			for (Pending<Q, R> entry : batch) {
+				requests.add(entry.request);
+			}
+			List<R> responses;
+			try {
+				responses = sender.apply(requests);
+			} catch (RuntimeException ex) {
+				if (batch.size() > 1 && false == (ex instanceof TransientDataAccessException)) {
+					log.debug("Batch of {} requests failed. Sending each alone. {}", batch.size(), ex.toString());
+					for (Pending<Q, R> entry : batch) {
+						send(Collections.singletonList(entry));
+					}
+				} else {
+					fail(batch, ex);
+				}
+				return;
+			} catch (Error ex) {
+				// an Error must still release the callers waiting on the batch
+				fail(batch, ex);
+				throw ex;
+			}
+			if (responses == null || responses.size() != batch.size()) {
+				fail(batch, new NonTransientDataAccessResourceException(String.format("Batch of %d requests answered with %d responses.",
+						batch.size(), (responses == null) ? 0 : responses.size())));
+				return;
+			}
+			for (int index = 0; index < batch.size(); index++) {
+				batch.get(index).response.complete(responses.get(index));
+			}
+		});
+	}
+
+	private void fail(List<Pending<Q, R>> batch, Throwable ex) {
+		log.debug("Batch of {} requests failed. {}", batch.size(), ex.toString());
+		for (Pending<Q, R> entry : batch) {
+			entry.response.completeExceptionally(ex);
+		}
+	}
+
+	private static class Pending<Q, R> {
+		final Q request;
+		final CompletableFuture<R> response = new CompletableFuture<>();
+
+		Pending(Q request) {
+			this.request = request;
+		}
+	}
+}
@@ -1,30 +1,182 @@
 package qslv.transaction.fulfillment;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class RestConfig {
+	private static final Logger log = LoggerFactory.getLogger(RestConfig.class);
+
 	@Autowired
 	private ConfigProperties config;
 	
 	@Bean
 	public RestTemplate restTemplate() {
-        HttpComponentsClientHttpRequestFactory httpRequestFactory = new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault());
+        HttpComponentsClientHttpRequestFactory httpRequestFactory = new HttpComponentsClientHttpRequestFactory(restHttpClient());
         httpRequestFactory.setConnectionRequestTimeout(config.getRestConnectionRequestTimeout());;
         httpRequestFactory.setConnectTimeout(config.getRestConnectTimeout());
         httpRequestFactory.setReadTimeout(config.getRestTimeout());
 
         return new RestTemplate(httpRequestFactory);
 	}
+
+	// Every listener thread calls the same transaction REST host, so the per-route limit has to
+	// cover the listener concurrency or threads queue for a connection.
+	@Bean
+	public PoolingHttpClientConnectionManager restConnectionManager() {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(config.getRestPoolMaxTotal());
+		connectionManager.setDefaultMaxPerRoute(config.getRestPoolMaxPerRoute());
+		connectionManager.setValidateAfterInactivity(config.getRestPoolValidateAfterInactivity());
+		return connectionManager;
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient restHttpClient() {
+		// honor the server's Keep-Alive header, otherwise keep idle connections for restKeepAlive ms
+		ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+			long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return serverKeepAlive > 0 ? serverKeepAlive : config.getRestKeepAlive();
+		};
+		return HttpClients.custom()
+				.setConnectionManager(restConnectionManager())
+				.setKeepAliveStrategy(keepAliveStrategy)
+				.evictExpiredConnections()
+				.evictIdleConnections(config.getRestPoolIdleTimeout(), TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	// Non-blocking client for ReactiveTransactionDao (qslv.reactive-rest=true), sized from the same pool settings.
+	@Bean
+	@ConditionalOnProperty(prefix = "qslv", name = "reactive-rest", havingValue = "true")
+	public WebClient transactionWebClient() {
+		ConnectionProvider connectionProvider = ConnectionProvider.builder("qslv-transaction-rest")
+				.maxConnections(config.getRestPoolMaxTotal())
+				.pendingAcquireTimeout(Duration.ofMillis(config.getRestConnectionRequestTimeout()))
+				.maxIdleTime(Duration.ofMillis(config.getRestKeepAlive()))
+				.build();
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+				.tcpConfiguration(tcp -> tcp.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getRestConnectTimeout()));
+		return WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.build();
+	}
+
+	@Bean
+	public MeterBinder restConnectionPoolMetrics() {
+		PoolingHttpClientConnectionManager connectionManager = restConnectionManager();
+		return registry -> {
+			Gauge.builder("qslv.rest.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+				.description("Connections leased to in-flight requests").register(registry);
+			Gauge.builder("qslv.rest.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+				.description("Requests waiting for a connection").register(registry);
+			Gauge.builder("qslv.rest.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+				.description("Idle connections ready for reuse").register(registry);
+			Gauge.builder("qslv.rest.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+				.description("Maximum connections").register(registry);
+		};
+	}
 	
+	// One breaker and one bulkhead per URL, created on first use by TransactionDao. Only I/O errors
+	// and 5xx answers count as failures; anything else is the request's fault, not the backend's.
+	@Bean
+	public CircuitBreakerRegistry restCircuitBreakerRegistry() {
+		CircuitBreakerConfig breakerConfig = CircuitBreakerConfig.custom()
+				.slidingWindowType(SlidingWindowType.COUNT_BASED)
+				.slidingWindowSize(config.getRestBreakerWindowSize())
+				.minimumNumberOfCalls(config.getRestBreakerMinimumCalls())
+				.failureRateThreshold(config.getRestBreakerFailureRate())
+				.slowCallRateThreshold(config.getRestBreakerSlowCallRate())
+				.slowCallDurationThreshold(Duration.ofMillis(config.getRestBreakerSlowCallDuration()))
+				.waitDurationInOpenState(Duration.ofMillis(config.getRestBreakerOpenDuration()))
+				.permittedNumberOfCallsInHalfOpenState(config.getRestBreakerHalfOpenCalls())
+				.recordExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+				.build();
+		CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(breakerConfig);
+		registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+				.onStateTransition(event -> log.warn("Circuit breaker {} {}.", event.getCircuitBreakerName(), event.getStateTransition())));
+		return registry;
+	}
+
+	@Bean
+	public BulkheadRegistry restBulkheadRegistry() {
+		return BulkheadRegistry.of(BulkheadConfig.custom()
+				.maxConcurrentCalls(config.getRestBulkheadMaxConcurrent())
+				.maxWaitDuration(Duration.ofMillis(config.getRestBulkheadMaxWait()))
+				.build());
+	}
+
+	@Bean
+	public MeterBinder restResilienceMetrics() {
+		CircuitBreakerRegistry breakers = restCircuitBreakerRegistry();
+		BulkheadRegistry bulkheads = restBulkheadRegistry();
+		return registry -> {
+			// state, call outcomes and not-permitted calls per breaker; free permits per bulkhead
+			TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(registry);
+			TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(registry);
+
+			breakers.getAllCircuitBreakers().forEach(breaker -> bindTransitions(registry, breaker));
+			breakers.getEventPublisher().onEntryAdded(added -> bindTransitions(registry, added.getAddedEntry()));
+			bulkheads.getAllBulkheads().forEach(bulkhead -> bindRejections(registry, bulkhead));
+			bulkheads.getEventPublisher().onEntryAdded(added -> bindRejections(registry, added.getAddedEntry()));
+		};
+	}
+
+	private void bindTransitions(MeterRegistry registry, CircuitBreaker breaker) {
+		breaker.getEventPublisher().onStateTransition(event -> Counter.builder("qslv.rest.breaker.transitions")
+				.description("Circuit breaker state changes")
+				.tag("name", breaker.getName())
+				.tag("from", event.getStateTransition().getFromState().name())
+				.tag("to", event.getStateTransition().getToState().name())
+				.register(registry).increment());
+	}
+
+	private void bindRejections(MeterRegistry registry, Bulkhead bulkhead) {
+		Counter rejected = Counter.builder("qslv.rest.bulkhead.rejected")
+				.description("Calls refused because the bulkhead was full")
+				.tag("name", bulkhead.getName())
+				.register(registry);
+		bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+	}
+
 	@Bean 
 	RetryTemplate retryTemplate() {
 		ExponentialBackOffPolicy bop = new ExponentialBackOffPolicy();
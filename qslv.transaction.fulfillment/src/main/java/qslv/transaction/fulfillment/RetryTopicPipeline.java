@@ -0,0 +1,229 @@
+package qslv.transaction.fulfillment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Tiered retry topics (qslv.kafka-retry-delays, e.g. 1000,10000,60000). A request that fails
+ * with a recoverable error is re-published to <request queue>-retry-<delay> and its offset is
+ * committed, so the main partition keeps moving. Each tier has its own listener container. When
+ * the record at the head of a tier is not yet due, the container is paused and its consumer is
+ * rewound to that record; it resumes when the record is due. A record that fails in the last
+ * tier goes to <request queue>-dlt, which has no listener.
+ */
+@Component
+public class RetryTopicPipeline implements SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(RetryTopicPipeline.class);
+	public static final String ATTEMPT_HEADER = "qslv-retry-attempt";
+	public static final String DUE_HEADER = "qslv-retry-due";
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired
+	private FulfillmentController fulfillmentController;
+	@Autowired
+	private KafkaProducerDao kafkaDao;
+	@Autowired
+	private StageTimers stageTimers;
+	@Autowired
+	private QuarantineRouter quarantine;
+	@Autowired
+	private ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> retryKafkaListenerContainerFactory;
+
+	private final List<ConcurrentMessageListenerContainer<String, TraceableMessage<TransactionRequest>>> containers = new ArrayList<>();
+	private ScheduledExecutorService resumeScheduler;
+	private volatile boolean running = false;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setFulfillmentController(FulfillmentController fulfillmentController) {
+		this.fulfillmentController = fulfillmentController;
+	}
+	public void setKafkaDao(KafkaProducerDao kafkaDao) {
+		this.kafkaDao = kafkaDao;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
+	public void setQuarantine(QuarantineRouter quarantine) {
+		this.quarantine = quarantine;
+	}
+	public void setRetryKafkaListenerContainerFactory(
+			ConcurrentKafkaListenerContainerFactory<String, TraceableMessage<TransactionRequest>> retryKafkaListenerContainerFactory) {
+		this.retryKafkaListenerContainerFactory = retryKafkaListenerContainerFactory;
+	}
+
+	public boolean isEnabled() {
+		return config.getKafkaRetryDelays() != null && false == config.getKafkaRetryDelays().isEmpty();
+	}
+
+	public String retryTopic(int attempt) {
+		return config.getKafkaTransactionRequestQueue() + "-retry-" + config.getKafkaRetryDelays().get(attempt - 1);
+	}
+
+	public String deadLetterTopic() {
+		return config.getKafkaTransactionRequestQueue() + "-dlt";
+	}
+
+	/**
+	 * Hand a failed record to the tier for its next attempt, or to the dead-letter topic once
+	 * every tier has been tried. The first retry of a main-topic record is attempt 1.
+	 * @return true when the record was re-published and its offset may be committed.
+	 */
+	public boolean forward(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record, int attempt) {
+		if (QuarantineRouter.isUndecodable(record.value())) {
+			// only the quarantine could not be reached; the body will not decode any better later
+			return false;
+		}
+		List<Long> delays = config.getKafkaRetryDelays();
+		try {
+			if (attempt > delays.size()) {
+				log.error("Retries exhausted. Offset {} of {}-{} moved to {}.", record.offset(), record.topic(), record.partition(), deadLetterTopic());
+				kafkaDao.produceRetry(deadLetterTopic(), record.key(), record.value(), attempt, 0L);
+			} else {
+				log.warn("Recoverable error. Offset {} of {}-{} moved to {}.", record.offset(), record.topic(), record.partition(), retryTopic(attempt));
+				kafkaDao.produceRetry(retryTopic(attempt), record.key(), record.value(), attempt, System.currentTimeMillis() + delays.get(attempt - 1));
+			}
+			return true;
+		} catch (DataAccessException ex) {
+			log.warn("Retry topic unavailable. Keep offset {} of {}-{}. {}", record.offset(), record.topic(), record.partition(), ex.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public synchronized void start() {
+		if (isEnabled()) {
+			for (int attempt = 1; attempt <= config.getKafkaRetryDelays().size(); attempt++) {
+				ConcurrentMessageListenerContainer<String, TraceableMessage<TransactionRequest>> container =
+						retryKafkaListenerContainerFactory.createContainer(retryTopic(attempt));
+				container.setBeanName("qslv-retry-" + attempt);
+				container.getContainerProperties().setMessageListener(newTierListener(container));
+				container.start();
+				containers.add(container);
+			}
+			log.info("Retry topics {} then {}.", config.getKafkaRetryDelays(), deadLetterTopic());
+		}
+		running = true;
+	}
+
+	@Override
+	public synchronized void stop() {
+		for (MessageListenerContainer container : containers) {
+			container.stop();
+		}
+		containers.clear();
+		if (resumeScheduler != null) {
+			resumeScheduler.shutdownNow();
+			resumeScheduler = null;
+		}
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// alongside the @KafkaListener containers
+		return Integer.MAX_VALUE - 100;
+	}
+
+	synchronized TierListener newTierListener(MessageListenerContainer container) {
+		if (resumeScheduler == null) {
+			resumeScheduler = Executors.newSingleThreadScheduledExecutor(FulfillmentExecutors.namedThreads("kafka-retry-resume"));
+		}
+		return new TierListener(container);
+	}
+
+	class TierListener implements AcknowledgingConsumerAwareMessageListener<String, TraceableMessage<TransactionRequest>> {
+		private final MessageListenerContainer container;
+		// partitions rewound during the current poll, and the offset they were rewound to
+		private final Map<TopicPartition, Long> rewoundTo = new ConcurrentHashMap<>();
+
+		TierListener(MessageListenerContainer container) {
+			this.container = container;
+		}
+
+		@Override
+		public void onMessage(ConsumerRecord<String, TraceableMessage<TransactionRequest>> record, Acknowledgment acknowledgment, Consumer<?, ?> consumer) {
+			log.trace("onMessage ENTRY");
+			TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+
+			Long rewound = rewoundTo.get(partition);
+			if (rewound != null) {
+				if (record.offset() > rewound) {
+					// fetched by the poll before the rewind; it is delivered again after the resume
+					return;
+				}
+				rewoundTo.remove(partition);
+			}
+
+			QuarantineRouter.track(record);
+			if (QuarantineRouter.isPoisonPill(record)) {
+				// not worth waiting for: it will not decode any better when due
+				if (quarantine.route(record)) {
+					stageTimers.acknowledge(acknowledgment, record.topic());
+				} else {
+					rewind(consumer, partition, record.offset(), config.getKafkaTimeout());
+				}
+				return;
+			}
+
+			long wait = header(record, DUE_HEADER) - System.currentTimeMillis();
+			if (wait > 0) {
+				rewind(consumer, partition, record.offset(), wait);
+				return;
+			}
+
+			int attempt = (int) header(record, ATTEMPT_HEADER);
+			if (fulfillmentController.processMessage(record.value()) || forward(record, attempt + 1)) {
+				stageTimers.acknowledge(acknowledgment, record.topic());
+			} else {
+				rewind(consumer, partition, record.offset(), config.getKafkaTimeout());
+			}
+			log.trace("onMessage EXIT");
+		}
+
+		private void rewind(Consumer<?, ?> consumer, TopicPartition partition, long offset, long wait) {
+			// called on the consumer thread, so the consumer may be used directly
+			consumer.seek(partition, offset);
+			rewoundTo.put(partition, offset);
+			container.pause();
+			resumeScheduler.schedule(container::resume, wait, TimeUnit.MILLISECONDS);
+		}
+
+		private long header(ConsumerRecord<?, ?> record, String name) {
+			Header header = record.headers().lastHeader(name);
+			return (header == null) ? 0L : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+		}
+	}
+}
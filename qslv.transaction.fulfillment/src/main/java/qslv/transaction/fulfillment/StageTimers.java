@@ -0,0 +1,87 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * One timer per saga stage, qslv.fulfillment.stage{stage, endpoint, outcome}, with p50/p99/p999
+ * and a percentile histogram for Prometheus. endpoint is the REST path, topic or "jdbc" the
+ * stage talks to; outcome is success, transient, rejected (open breaker or full bulkhead) or
+ * error. Without a MeterRegistry (plain unit tests) nothing is recorded.
+ */
+@Component
+public class StageTimers {
+	public static final String NAME = "qslv.fulfillment.stage";
+	public static final String SUCCESS = "success";
+
+	public static final String DESERIALIZE = "deserialize";
+	public static final String VALIDATE = "validate";
+	public static final String RECORD_TRANSACTION = "recordTransaction";
+	public static final String GET_OVERDRAFT_INSTRUCTIONS = "getOverdraftInstructions";
+	public static final String RECORD_RESERVATION = "recordReservation";
+	public static final String TRANSFER_AND_TRANSACT = "transferAndTransact";
+	public static final String COMMIT_RESERVATION = "commitReservation";
+	public static final String CANCEL_RESERVATION = "cancelReservation";
+	public static final String PRODUCE_RESPONSE = "produceResponse";
+	public static final String ACKNOWLEDGE = "acknowledge";
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public void record(String stage, String endpoint, String outcome, long startNanos) {
+		if (meterRegistry == null) {
+			return;
+		}
+		long elapsed = System.nanoTime() - startNanos;
+		timers.computeIfAbsent(stage + '|' + endpoint + '|' + outcome, key -> Timer.builder(NAME)
+				.description("Fulfillment saga stage latency")
+				.tag("stage", stage)
+				.tag("endpoint", endpoint)
+				.tag("outcome", outcome)
+				.publishPercentiles(0.5, 0.99, 0.999)
+				.publishPercentileHistogram()
+				.register(meterRegistry))
+			.record(elapsed, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Acknowledge and time the acknowledgement.
+	 */
+	public void acknowledge(Acknowledgment acknowledgment, String endpoint) {
+		long start = System.nanoTime();
+		try {
+			acknowledgment.acknowledge();
+		} catch (RuntimeException ex) {
+			record(ACKNOWLEDGE, endpoint, outcome(ex), start);
+			throw ex;
+		}
+		record(ACKNOWLEDGE, endpoint, SUCCESS, start);
+	}
+
+	public static String outcome(Throwable ex) {
+		if (ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException
+				|| ex.getCause() instanceof CallNotPermittedException || ex.getCause() instanceof BulkheadFullException) {
+			return "rejected";
+		}
+		if (ex instanceof TransientDataAccessException) {
+			return "transient";
+		}
+		return "error";
+	}
+}
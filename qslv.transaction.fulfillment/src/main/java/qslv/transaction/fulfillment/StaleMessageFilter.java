@@ -0,0 +1,70 @@
+package qslv.transaction.fulfillment;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Sheds requests that are too old to be worth fulfilling, typically the backlog left by an
+ * outage. A request older than the limit for its businessTaxonomyId
+ * (qslv.stale-message-max-age-by-taxonomy.<id>, falling back to qslv.stale-message-max-age;
+ * 0 never expires) is answered with EXPIRED instead of running the REST saga.
+ *
+ * Age is measured from the producer's messageCreationTime rather than the record timestamp:
+ * it is the age the caller sees, and it survives the re-publish onto the retry topics.
+ */
+@Component
+public class StaleMessageFilter {
+	/** ResponseMessage status of a shed request. */
+	public static final int EXPIRED = 410;
+
+	@Autowired
+	private ConfigProperties config;
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+	private Counter expired;
+
+	public void setConfig(ConfigProperties config) {
+		this.config = config;
+	}
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public boolean isEnabled() {
+		return config != null && (config.getStaleMessageMaxAge() > 0L || false == config.getStaleMessageMaxAgeByTaxonomy().isEmpty());
+	}
+
+	public boolean isExpired(String businessTaxonomyId, LocalDateTime messageCreationTime) {
+		if (messageCreationTime == null) {
+			return false;
+		}
+		return isExpired(businessTaxonomyId, messageCreationTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+				System.currentTimeMillis());
+	}
+
+	/**
+	 * @param created epoch millis the request was created at.
+	 */
+	public boolean isExpired(String businessTaxonomyId, long created, long now) {
+		Long maxAge = (businessTaxonomyId == null) ? null : config.getStaleMessageMaxAgeByTaxonomy().get(businessTaxonomyId);
+		long limit = (maxAge == null) ? config.getStaleMessageMaxAge() : maxAge;
+		if (limit <= 0L || now - created <= limit) {
+			return false;
+		}
+		if (meterRegistry != null) {
+			if (expired == null) {
+				expired = Counter.builder("qslv.fulfillment.expired")
+					.description("Requests answered EXPIRED without being fulfilled")
+					.register(meterRegistry);
+			}
+			expired.increment();
+		}
+		return true;
+	}
+}
@@ -0,0 +1,55 @@
+package qslv.transaction.fulfillment;
+
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/*
+ * Times the value deserializer of a consumer as the deserialize stage, endpoint being the topic.
+ */
+public class TimedDeserializer<T> implements Deserializer<T> {
+	private final Deserializer<T> delegate;
+	private final StageTimers stageTimers;
+
+	public TimedDeserializer(Deserializer<T> delegate, StageTimers stageTimers) {
+		this.delegate = delegate;
+		this.stageTimers = stageTimers;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		delegate.configure(configs, isKey);
+	}
+
+	@Override
+	public T deserialize(String topic, byte[] data) {
+		long start = System.nanoTime();
+		try {
+			T value = delegate.deserialize(topic, data);
+			stageTimers.record(StageTimers.DESERIALIZE, topic, StageTimers.SUCCESS, start);
+			return value;
+		} catch (RuntimeException ex) {
+			stageTimers.record(StageTimers.DESERIALIZE, topic, StageTimers.outcome(ex), start);
+			throw ex;
+		}
+	}
+
+	@Override
+	public T deserialize(String topic, Headers headers, byte[] data) {
+		long start = System.nanoTime();
+		try {
+			T value = delegate.deserialize(topic, headers, data);
+			stageTimers.record(StageTimers.DESERIALIZE, topic, StageTimers.SUCCESS, start);
+			return value;
+		} catch (RuntimeException ex) {
+			stageTimers.record(StageTimers.DESERIALIZE, topic, StageTimers.outcome(ex), start);
+			throw ex;
+		}
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+}
@@ -1,6 +1,20 @@
 package qslv.transaction.fulfillment;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,13 +32,22 @@ import org.springframework.retry.RetryContext;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.ResourceAccessException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import qslv.common.TimedResponse;
 import qslv.common.TraceableRequest;
 import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.CancelReservationRequest;
 import qslv.transaction.request.CommitReservationRequest;
 import qslv.transaction.request.ReservationRequest;
 import qslv.transaction.request.TransactionRequest;
 import qslv.transaction.request.TransferAndTransactRequest;
+import qslv.transaction.response.CancelReservationResponse;
 import qslv.transaction.response.CommitReservationResponse;
 import qslv.transaction.response.ReservationResponse;
 import qslv.transaction.response.TransactionResponse;
@@ -35,8 +58,12 @@ public class TransactionDao {
 	private static final Logger log = LoggerFactory.getLogger(TransactionDao.class);
 	private static ParameterizedTypeReference<TimedResponse<CommitReservationResponse>> commitResponseType =
 			new ParameterizedTypeReference<TimedResponse<CommitReservationResponse>>() {};
+	private static ParameterizedTypeReference<TimedResponse<CancelReservationResponse>> cancelResponseType =
+			new ParameterizedTypeReference<TimedResponse<CancelReservationResponse>>() {};
 	private static ParameterizedTypeReference<TimedResponse<TransactionResponse>> transactionResponseType =
 			new ParameterizedTypeReference<TimedResponse<TransactionResponse>>() {};
+	private static ParameterizedTypeReference<TimedResponse<List<TransactionResponse>>> transactionBatchResponseType =
+			new ParameterizedTypeReference<TimedResponse<List<TransactionResponse>>>() {};
 	private static ParameterizedTypeReference<TimedResponse<ReservationResponse>> reservationResponseType =
 			new ParameterizedTypeReference<TimedResponse<ReservationResponse>>() {};
 	private static ParameterizedTypeReference<TimedResponse<TransferAndTransactResponse>> transferAndTransactResponseType =
@@ -49,6 +76,20 @@ public class TransactionDao {
 	private RestTemplateProxy restTemplateProxy;
 	@Autowired
 	private RetryTemplate retryTemplate;
+	@Autowired
+	private CircuitBreakerRegistry circuitBreakerRegistry;
+	@Autowired
+	private BulkheadRegistry bulkheadRegistry;
+	@Autowired
+	private StageTimers stageTimers;
+	private final Map<String, String> endpoints = new ConcurrentHashMap<>();
+
+	// Coalesces recordTransaction calls (qslv.post-transaction-batch-url). Null when not configured.
+	// recordTransaction waits for its batch, so requests only coalesce when several fulfillments run
+	// at once, i.e. with the parallel engine (qslv.kafka-parallel-workers or qslv.virtual-threads).
+	private RequestBatcher<TraceableMessage<TransactionRequest>, TransactionResponse> transactionBatcher;
+	private ExecutorService batchExecutor;
+	private ScheduledExecutorService batchScheduler;
 
 	public void setConfig(ConfigProperties config) {
 		this.config = config;
@@ -59,62 +100,172 @@ public class TransactionDao {
 	public void setRetryTemplate(RetryTemplate retryTemplate) {
 		this.retryTemplate = retryTemplate;
 	}
+	public void setCircuitBreakerRegistry(CircuitBreakerRegistry circuitBreakerRegistry) {
+		this.circuitBreakerRegistry = circuitBreakerRegistry;
+	}
+	public void setBulkheadRegistry(BulkheadRegistry bulkheadRegistry) {
+		this.bulkheadRegistry = bulkheadRegistry;
+	}
+	public void setStageTimers(StageTimers stageTimers) {
+		this.stageTimers = stageTimers;
+	}
 	
+	@PostConstruct
+	public void init() {
+		if (config.getPostTransactionBatchUrl() == null || config.getPostTransactionBatchUrl().isEmpty()) {
+			return;
+		}
+		log.info("Batch POST /Transaction up to {} requests or {} ms to {}.", config.getTransactionBatchMaxSize(),
+				config.getTransactionBatchWindow(), config.getPostTransactionBatchUrl());
+		if (config.getKafkaParallelWorkers() <= 0 && false == config.isVirtualThreads()) {
+			log.warn("Batch POST /Transaction without the parallel engine. Each request waits {} ms and is sent alone.",
+					config.getTransactionBatchWindow());
+		}
+		batchExecutor = Executors.newCachedThreadPool(FulfillmentExecutors.namedThreads("transaction-batch"));
+		batchScheduler = Executors.newSingleThreadScheduledExecutor(FulfillmentExecutors.namedThreads("transaction-batch-window"));
+		transactionBatcher = new RequestBatcher<>(this::recordTransactions, config.getTransactionBatchMaxSize(),
+				config.getTransactionBatchWindow(), batchExecutor, batchScheduler);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (transactionBatcher != null) {
+			transactionBatcher.flush();
+			batchScheduler.shutdownNow();
+			batchExecutor.shutdown();
+		}
+	}
+
 	public TransactionResponse recordTransaction(final TraceableMessage<?> message, final TransactionRequest request) {
-		log.warn("recordTransaction ENTRY");
+		log.trace("recordTransaction ENTRY");
 
-		HttpHeaders headers = buildHeaders(message);
+		if (transactionBatcher != null) {
+			try {
+				return transactionBatcher.submit(new TraceableMessage<TransactionRequest>(message, request)).join();
+			} catch (CompletionException ex) {
+				// this request failed on its own, or the whole batch failed for a reason every request shares
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new NonTransientDataAccessResourceException("Batch POST /Transaction failure", cause);
+			}
+		}
+
+		HttpHeaders headers = buildHeaders(config.getAitid(), message);
 		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
-		TransactionResponse response = callService(message, headers, config.getPostTransactionUrl(), request, transactionResponseType);
+		TransactionResponse response = callService(StageTimers.RECORD_TRANSACTION, message, headers, config.getPostTransactionUrl(), request, transactionResponseType);
 
-		log.warn("recordTransaction EXIT");
+		log.trace("recordTransaction EXIT");
 		return response;
 	}
 	
+	/**
+	 * One bulk POST for several transactions. The body is the list of requests and the reply
+	 * holds one TransactionResponse per request, in request order. The trace headers are those
+	 * of the first message; each request carries its own request UUID.
+	 */
+	List<TransactionResponse> recordTransactions(final List<TraceableMessage<TransactionRequest>> messages) {
+		log.trace("recordTransactions ENTRY {}", messages.size());
+
+		List<TransactionRequest> requests = new ArrayList<>(messages.size());
+		for (TraceableMessage<TransactionRequest> message : messages) {
+			requests.add(message.getPayload());
+		}
+		HttpHeaders headers = buildHeaders(config.getAitid(), messages.get(0));
+		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
+		List<TransactionResponse> responses = callService(StageTimers.RECORD_TRANSACTION, messages.get(0), headers, config.getPostTransactionBatchUrl(), requests, transactionBatchResponseType);
+
+		log.trace("recordTransactions EXIT");
+		return responses;
+	}
+	
 	public ReservationResponse recordReservation(final TraceableMessage<?> message, final ReservationRequest request) {
-		log.warn("recordReservation ENTRY");
+		log.trace("recordReservation ENTRY");
 
-		HttpHeaders headers = buildHeaders(message);
+		HttpHeaders headers = buildHeaders(config.getAitid(), message);
 		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
-		ReservationResponse response = callService(message, headers, config.getPostReservationUrl(), request, reservationResponseType);
+		ReservationResponse response = callService(StageTimers.RECORD_RESERVATION, message, headers, config.getPostReservationUrl(), request, reservationResponseType);
 
-		log.warn("recordReservation EXIT");
+		log.trace("recordReservation EXIT");
 		return response;
 	}
 	
 	public TransferAndTransactResponse transferAndTransact(final TraceableMessage<?> message, final TransferAndTransactRequest request) {
-		log.warn("transferAndTransact ENTRY");
+		log.trace("transferAndTransact ENTRY");
 
-		HttpHeaders headers = buildHeaders(message);
+		HttpHeaders headers = buildHeaders(config.getAitid(), message);
 		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
-		TransferAndTransactResponse response = callService(message, headers, config.getTransferAndTransactUrl(), request, transferAndTransactResponseType);
+		TransferAndTransactResponse response = callService(StageTimers.TRANSFER_AND_TRANSACT, message, headers, config.getTransferAndTransactUrl(), request, transferAndTransactResponseType);
 
-		log.warn("transferAndTransact EXIT");
+		log.trace("transferAndTransact EXIT");
 		return response;
 	}
 	
 	public CommitReservationResponse commitReservation(final TraceableMessage<?> message, final CommitReservationRequest request) {
-		log.warn("commitReservation ENTRY");
+		log.trace("commitReservation ENTRY");
 
-		HttpHeaders headers = buildHeaders(message);
+		HttpHeaders headers = buildHeaders(config.getAitid(), message);
 		headers.add(TraceableRequest.ACCEPT_VERSION, CommitReservationRequest.VERSION_1_0);
-		CommitReservationResponse response = callService(message, headers, config.getCommitReservationUrl(), request, commitResponseType);
+		CommitReservationResponse response = callService(StageTimers.COMMIT_RESERVATION, message, headers, config.getCommitReservationUrl(), request, commitResponseType);
 
-		log.warn("commitReservation EXIT");
+		log.trace("commitReservation EXIT");
 		return response;
 	}
 	
-	private <M,R> R callService(final TraceableMessage<?> message, HttpHeaders headers,
+	public CancelReservationResponse cancelReservation(final TraceableMessage<?> message, final CancelReservationRequest request) {
+		log.trace("cancelReservation ENTRY");
+
+		HttpHeaders headers = buildHeaders(config.getAitid(), message);
+		headers.add(TraceableRequest.ACCEPT_VERSION, CancelReservationRequest.VERSION_1_0);
+		CancelReservationResponse response = callService(StageTimers.CANCEL_RESERVATION, message, headers, config.getCancelReservationUrl(), request, cancelResponseType);
+
+		log.trace("cancelReservation EXIT");
+		return response;
+	}
+	
+	private <M,R> R callService(final String stage, final TraceableMessage<?> message, HttpHeaders headers,
 			String url, M request, ParameterizedTypeReference<TimedResponse<R>> typereference) {
-		log.trace("commitReservation ENTRY");
+		long start = System.nanoTime();
+		String endpoint = endpoints.computeIfAbsent(url, TransactionDao::endpoint);
+		try {
+			R payload = post(message, headers, url, request, typereference);
+			stageTimers.record(stage, endpoint, StageTimers.SUCCESS, start);
+			return payload;
+		} catch (RuntimeException ex) {
+			stageTimers.record(stage, endpoint, StageTimers.outcome(ex), start);
+			throw ex;
+		}
+	}
+
+	private <M,R> R post(final TraceableMessage<?> message, HttpHeaders headers,
+			String url, M request, ParameterizedTypeReference<TimedResponse<R>> typereference) {
+		log.trace("post ENTRY {}", url);
+
+		// the bulkhead sits outside the breaker, so a full bulkhead is not counted as a backend failure
+		Supplier<ResponseEntity<TimedResponse<R>>> exchange = Bulkhead.decorateSupplier(bulkheadRegistry.bulkhead(url),
+				CircuitBreaker.decorateSupplier(circuitBreakerRegistry.circuitBreaker(url), () -> restTemplateProxy.exchange(url, HttpMethod.POST,
+						new HttpEntity<M>(request, headers), typereference)));
 
 		ResponseEntity<TimedResponse<R>> response = null;
 		try {
 			response = retryTemplate.execute(new RetryCallback<ResponseEntity<TimedResponse<R>>, ResourceAccessException>() {
 				public ResponseEntity<TimedResponse<R>> doWithRetry( RetryContext context) throws ResourceAccessException {
-					return restTemplateProxy.exchange(url, HttpMethod.POST,
-							new HttpEntity<M>(request, headers), typereference);
+					try {
+						return exchange.get();
+					} catch (CallNotPermittedException | BulkheadFullException ex) {
+						// no retries against an open breaker or a full bulkhead
+						context.setExhaustedOnly();
+						throw ex;
+					}
 			}});
+		} catch (CallNotPermittedException | BulkheadFullException ex) {
+			String msg = String.format("POST %s refused. %s", url, ex.getLocalizedMessage());
+			log.warn(msg);
+			throw new TransientDataAccessResourceException(msg, ex);
 		} catch (ResourceAccessException ex) {
 			String msg = String.format("Exhausted %d retries for POST %s.", config.getRestAttempts(), url);
 			log.warn(msg);
@@ -128,15 +279,23 @@ public class TransactionDao {
 			log.error(msg);
 			throw new NonTransientDataAccessResourceException(msg);
 		}
-		log.trace("commitReservation ENTRY");
+		log.trace("post EXIT");
 		return response.getBody().getPayload();
 	}
 	
-	private HttpHeaders buildHeaders(final TraceableMessage<?> message) {
+	private static String endpoint(String url) {
+		try {
+			return "POST " + URI.create(url).getPath();
+		} catch (IllegalArgumentException ex) {
+			return "POST " + url;
+		}
+	}
+
+	static HttpHeaders buildHeaders(final String aitid, final TraceableMessage<?> message) {
 		HttpHeaders headers = new HttpHeaders();
 		headers.setContentType(MediaType.APPLICATION_JSON);
 		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON) );
-		headers.add(TraceableRequest.AIT_ID, config.getAitid());
+		headers.add(TraceableRequest.AIT_ID, aitid);
 		headers.add(TraceableRequest.BUSINESS_TAXONOMY_ID, message.getBusinessTaxonomyId());
 		headers.add(TraceableRequest.CORRELATION_ID, message.getCorrelationId());
 		return headers;
@@ -0,0 +1,279 @@
+package qslv.transaction.fulfillment;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Hand-specialized JSON codec for the two message types of this service, written and read with
+ * the Jackson streaming API: no JavaType resolution, no bean introspection and no tree model
+ * for the envelope and the request. The TransactionResponse leaf belongs to the transaction
+ * service and goes through a pre-built ObjectWriter/ObjectReader straight on the same stream.
+ * Output is built in a per-thread buffer that is reused, so a message costs one exact-size
+ * byte array. Records written this way carry CODEC_HEADER, which lets a consumer tell them
+ * apart from JacksonAvroSerializer records.
+ */
+public final class TransactionMessageCodec {
+	public static final String CODEC_HEADER = "qslv-codec";
+	public static final String CODEC = "json-1";
+	public static final String REPLY_FORMAT_HEADER = "qslv-reply-format";
+	public static final String COMPACT_REPLY = "compact-1";
+
+	private static final JsonFactory factory = new JsonFactory();
+	private static final ObjectMapper leafMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private static final ObjectWriter responseWriter = leafMapper.writerFor(TransactionResponse.class);
+	private static final ObjectReader responseReader = leafMapper.readerFor(TransactionResponse.class);
+	private static final ThreadLocal<ByteArrayBuilder> buffers = ThreadLocal.withInitial(() -> new ByteArrayBuilder(1024));
+
+	private TransactionMessageCodec() {
+	}
+
+	public static byte[] writeRequest(TraceableMessage<TransactionRequest> message) {
+		ByteArrayBuilder buffer = buffers.get();
+		buffer.reset();
+		try (JsonGenerator generator = factory.createGenerator(buffer)) {
+			generator.writeStartObject();
+			writeEnvelope(generator, message);
+			generator.writeFieldName("payload");
+			writeRequest(generator, message.getPayload());
+			generator.writeEndObject();
+		} catch (IOException ex) {
+			throw new SerializationException("TransactionRequest not serialized.", ex);
+		}
+		return buffer.toByteArray();
+	}
+
+	public static byte[] writeReply(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) {
+		ByteArrayBuilder buffer = buffers.get();
+		buffer.reset();
+		try (JsonGenerator generator = factory.createGenerator(buffer)) {
+			generator.writeStartObject();
+			writeEnvelope(generator, message);
+			generator.writeFieldName("payload");
+			ResponseMessage<TransactionRequest,TransactionResponse> reply = message.getPayload();
+			if (reply == null) {
+				generator.writeNull();
+			} else {
+				generator.writeStartObject();
+				generator.writeNumberField("status", reply.getStatus());
+				generator.writeStringField("errorMessage", reply.getErrorMessage());
+				generator.writeFieldName("request");
+				writeRequest(generator, reply.getRequest());
+				generator.writeFieldName("response");
+				if (reply.getResponse() == null) {
+					generator.writeNull();
+				} else {
+					responseWriter.writeValue(generator, reply.getResponse());
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndObject();
+		} catch (IOException ex) {
+			throw new SerializationException("Reply not serialized.", ex);
+		}
+		return buffer.toByteArray();
+	}
+
+	/*
+	 * Compact reply: the envelope, status, errorMessage, the requestUuid instead of the echoed
+	 * request, and the TransactionResponse with its resources.
+	 */
+	public static byte[] writeCompactReply(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) {
+		ByteArrayBuilder buffer = buffers.get();
+		buffer.reset();
+		try (JsonGenerator generator = factory.createGenerator(buffer)) {
+			generator.writeStartObject();
+			writeEnvelope(generator, message);
+			generator.writeFieldName("payload");
+			ResponseMessage<TransactionRequest,TransactionResponse> reply = message.getPayload();
+			if (reply == null) {
+				generator.writeNull();
+			} else {
+				generator.writeStartObject();
+				generator.writeNumberField("status", reply.getStatus());
+				generator.writeStringField("errorMessage", reply.getErrorMessage());
+				generator.writeStringField("requestUuid", (reply.getRequest() == null || reply.getRequest().getRequestUuid() == null)
+						? null : reply.getRequest().getRequestUuid().toString());
+				generator.writeFieldName("response");
+				if (reply.getResponse() == null) {
+					generator.writeNull();
+				} else {
+					responseWriter.writeValue(generator, reply.getResponse());
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndObject();
+		} catch (IOException ex) {
+			throw new SerializationException("Reply not serialized.", ex);
+		}
+		return buffer.toByteArray();
+	}
+
+	public static TraceableMessage<TransactionRequest> readRequest(byte[] data) {
+		if (data == null) {
+			return null;
+		}
+		try (JsonParser parser = factory.createParser(data)) {
+			expect(parser, JsonToken.START_OBJECT);
+			TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ("payload".equals(field)) {
+					message.setPayload(readRequest(parser, token));
+				} else {
+					readEnvelopeField(parser, token, field, message);
+				}
+			}
+			return message;
+		} catch (IOException ex) {
+			throw new SerializationException("TransactionRequest not deserialized.", ex);
+		}
+	}
+
+	// reads full and compact replies
+	public static TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> readReply(byte[] data) {
+		if (data == null) {
+			return null;
+		}
+		try (JsonParser parser = factory.createParser(data)) {
+			expect(parser, JsonToken.START_OBJECT);
+			TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message = new TraceableMessage<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ("payload".equals(field)) {
+					message.setPayload(token == JsonToken.VALUE_NULL ? null : readReply(parser));
+				} else {
+					readEnvelopeField(parser, token, field, message);
+				}
+			}
+			return message;
+		} catch (IOException ex) {
+			throw new SerializationException("Reply not deserialized.", ex);
+		}
+	}
+
+	private static ResponseMessage<TransactionRequest,TransactionResponse> readReply(JsonParser parser) throws IOException {
+		int status = 0;
+		String errorMessage = null;
+		TransactionRequest request = null;
+		TransactionResponse response = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			switch (field) {
+			case "status": status = parser.getIntValue(); break;
+			case "errorMessage": errorMessage = text(parser, token); break;
+			case "request": request = readRequest(parser, token); break;
+			case "requestUuid":
+				// compact reply: the request is reduced to its uuid
+				if (token != JsonToken.VALUE_NULL) {
+					request = new TransactionRequest();
+					request.setRequestUuid(UUID.fromString(parser.getText()));
+				}
+				break;
+			case "response": response = (token == JsonToken.VALUE_NULL) ? null : responseReader.readValue(parser); break;
+			default: parser.skipChildren();
+			}
+		}
+		ResponseMessage<TransactionRequest,TransactionResponse> reply = new ResponseMessage<>(request);
+		reply.setStatus(status);
+		reply.setErrorMessage(errorMessage);
+		reply.setResponse(response);
+		return reply;
+	}
+
+	private static void writeEnvelope(JsonGenerator generator, TraceableMessage<?> message) throws IOException {
+		generator.writeStringField("producerAit", message.getProducerAit());
+		generator.writeStringField("correlationId", message.getCorrelationId());
+		generator.writeStringField("businessTaxonomyId", message.getBusinessTaxonomyId());
+		writeDateTime(generator, "messageCreationTime", message.getMessageCreationTime());
+		writeDateTime(generator, "messageCompletionTime", message.getMessageCompletionTime());
+	}
+
+	private static void readEnvelopeField(JsonParser parser, JsonToken token, String field, TraceableMessage<?> message) throws IOException {
+		switch (field) {
+		case "producerAit": message.setProducerAit(text(parser, token)); break;
+		case "correlationId": message.setCorrelationId(text(parser, token)); break;
+		case "businessTaxonomyId": message.setBusinessTaxonomyId(text(parser, token)); break;
+		case "messageCreationTime": message.setMessageCreationTime(dateTime(parser, token)); break;
+		case "messageCompletionTime": message.setMessageCompletionTime(dateTime(parser, token)); break;
+		default: parser.skipChildren();
+		}
+	}
+
+	private static void writeRequest(JsonGenerator generator, TransactionRequest request) throws IOException {
+		if (request == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartObject();
+		generator.writeStringField("requestUuid", request.getRequestUuid() == null ? null : request.getRequestUuid().toString());
+		generator.writeStringField("accountNumber", request.getAccountNumber());
+		generator.writeStringField("debitCardNumber", request.getDebitCardNumber());
+		generator.writeNumberField("transactionAmount", request.getTransactionAmount());
+		generator.writeStringField("transactionMetaDataJson", request.getTransactionMetaDataJson());
+		generator.writeBooleanField("authorizeAgainstBalance", request.isAuthorizeAgainstBalance());
+		generator.writeBooleanField("protectAgainstOverdraft", request.isProtectAgainstOverdraft());
+		generator.writeEndObject();
+	}
+
+	private static TransactionRequest readRequest(JsonParser parser, JsonToken token) throws IOException {
+		if (token == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		TransactionRequest request = new TransactionRequest();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+			case "requestUuid": request.setRequestUuid(value == JsonToken.VALUE_NULL ? null : UUID.fromString(parser.getText())); break;
+			case "accountNumber": request.setAccountNumber(text(parser, value)); break;
+			case "debitCardNumber": request.setDebitCardNumber(text(parser, value)); break;
+			case "transactionAmount": request.setTransactionAmount(parser.getLongValue()); break;
+			case "transactionMetaDataJson": request.setTransactionMetaDataJson(text(parser, value)); break;
+			case "authorizeAgainstBalance": request.setAuthorizeAgainstBalance(parser.getBooleanValue()); break;
+			case "protectAgainstOverdraft": request.setProtectAgainstOverdraft(parser.getBooleanValue()); break;
+			default: parser.skipChildren();
+			}
+		}
+		return request;
+	}
+
+	private static void writeDateTime(JsonGenerator generator, String field, LocalDateTime value) throws IOException {
+		generator.writeStringField(field, value == null ? null : value.toString());
+	}
+
+	private static LocalDateTime dateTime(JsonParser parser, JsonToken token) throws IOException {
+		return token == JsonToken.VALUE_NULL ? null : LocalDateTime.parse(parser.getText());
+	}
+
+	private static String text(JsonParser parser, JsonToken token) throws IOException {
+		return token == JsonToken.VALUE_NULL ? null : parser.getText();
+	}
+
+	private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+		JsonToken token = parser.nextToken();
+		if (token != expected) {
+			throw new SerializationException("Expected " + expected + " but found " + token);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package qslv.transaction.fulfillment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/*
+ * Kafka Deserializer that reads records carrying the codec header with a TransactionMessageCodec
+ * reader and hands every other record to the JacksonAvroDeserializer it wraps, so producers can
+ * switch codec one at a time.
+ */
+public class TransactionMessageDeserializer<T> implements Deserializer<T> {
+	private static final byte[] CODEC = TransactionMessageCodec.CODEC.getBytes(StandardCharsets.UTF_8);
+	private final Function<byte[], T> reader;
+	private final Deserializer<T> fallback;
+
+	public TransactionMessageDeserializer(Function<byte[], T> reader, Deserializer<T> fallback) {
+		this.reader = reader;
+		this.fallback = fallback;
+	}
+
+	@Override
+	public void configure(Map<String, ?> configs, boolean isKey) {
+		fallback.configure(configs, isKey);
+	}
+
+	@Override
+	public T deserialize(String topic, byte[] data) {
+		return fallback.deserialize(topic, data);
+	}
+
+	@Override
+	public T deserialize(String topic, Headers headers, byte[] data) {
+		Header codec = (headers == null) ? null : headers.lastHeader(TransactionMessageCodec.CODEC_HEADER);
+		if (codec != null && Arrays.equals(CODEC, codec.value())) {
+			return reader.apply(data);
+		}
+		return fallback.deserialize(topic, headers, data);
+	}
+
+	@Override
+	public void close() {
+		fallback.close();
+	}
+}
@@ -0,0 +1,32 @@
+package qslv.transaction.fulfillment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/*
+ * Kafka Serializer over a TransactionMessageCodec writer. Marks every record with the codec
+ * header so TransactionMessageDeserializer picks the matching reader.
+ */
+public class TransactionMessageSerializer<T> implements Serializer<T> {
+	private static final byte[] CODEC = TransactionMessageCodec.CODEC.getBytes(StandardCharsets.UTF_8);
+	private final Function<T, byte[]> writer;
+
+	public TransactionMessageSerializer(Function<T, byte[]> writer) {
+		this.writer = writer;
+	}
+
+	@Override
+	public byte[] serialize(String topic, T data) {
+		return data == null ? null : writer.apply(data);
+	}
+
+	@Override
+	public byte[] serialize(String topic, Headers headers, T data) {
+		headers.remove(TransactionMessageCodec.CODEC_HEADER);
+		headers.add(TransactionMessageCodec.CODEC_HEADER, CODEC);
+		return serialize(topic, data);
+	}
+}
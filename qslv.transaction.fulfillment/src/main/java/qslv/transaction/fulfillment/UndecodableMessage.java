@@ -0,0 +1,27 @@
+package qslv.transaction.fulfillment;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Value PoisonPillDeserializer hands to the listener in place of a record it could not decode.
+ * It keeps the raw bytes for the quarantine topic, and the envelope when the record had
+ * envelope headers; the payload is always null.
+ */
+public class UndecodableMessage extends TraceableMessage<TransactionRequest> {
+	private final byte[] rawValue;
+	private final String failure;
+
+	public UndecodableMessage(byte[] rawValue, String failure) {
+		this.rawValue = rawValue;
+		this.failure = failure;
+	}
+
+	public byte[] rawValue() {
+		return rawValue;
+	}
+
+	public String failure() {
+		return failure;
+	}
+}
@@ -0,0 +1,162 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import qslv.common.TimedResponse;
+import qslv.common.kafka.JacksonAvroDeserializer;
+import qslv.common.kafka.JacksonAvroSerializer;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Throughput of the whole listener -> reply loop against an embedded broker with an in-JVM
+ * REST stub. Subclasses pick the acknowledgement mode; they are named Perf_* so the unit
+ * suite skips them. Run with: mvn test -Dtest='Perf_KafkaThroughput*' -Dperf.messages=5000
+ */
+@SpringBootTest
+@Import(value = { TestConfig.class })
+@DirtiesContext
+@EmbeddedKafka(partitions = 1, topics = { "transaction.request.queue", "transaction.reply.queue" },
+	brokerProperties = { "transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1" })
+@ActiveProfiles("test")
+abstract class KafkaThroughputBenchmark {
+	private static final Logger log = LoggerFactory.getLogger(KafkaThroughputBenchmark.class);
+	private static String request_topic = "transaction.request.queue";
+	private static String reply_topic = "transaction.reply.queue";
+
+	@Autowired EmbeddedKafkaBroker embeddedKafka;
+	@Autowired TransactionDao transactionDao;
+	@Autowired ConfigProperties configProperties;
+
+	int messages = Integer.getInteger("perf.messages", 2000);
+
+	@BeforeEach
+	public void init() {
+		ResponseEntity<TimedResponse<TransactionResponse>> response = setup_responseEntity();
+		transactionDao.setRestTemplateProxy(new RestTemplateProxy() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+					ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+				return (ResponseEntity<T>) response;
+			}
+		});
+		configProperties.setKafkaTransactionRequestQueue(request_topic);
+		configProperties.setKafkaTransactionReplyQueue(reply_topic);
+	}
+
+	abstract String mode();
+
+	@Test
+	void test_throughput() {
+		Producer<String, TraceableMessage<TransactionRequest>> producer = buildProducer();
+		Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> consumer = buildConsumer();
+		embeddedKafka.consumeFromAnEmbeddedTopic(consumer, reply_topic);
+
+		long start = System.nanoTime();
+		for (int count = 0; count < messages; count++) {
+			TraceableMessage<TransactionRequest> message = setup_traceable();
+			producer.send(new ProducerRecord<>(request_topic, message.getPayload().getAccountNumber(), message));
+		}
+		producer.flush();
+
+		int replies = 0;
+		long deadline = System.currentTimeMillis() + 120_000L;
+		while (replies < messages && System.currentTimeMillis() < deadline) {
+			replies += consumer.poll(Duration.ofMillis(500)).count();
+		}
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+		log.info("PERF mode={} messages={} replies={} seconds={} throughput={}/s",
+				mode(), messages, replies, String.format("%.3f", seconds), String.format("%.1f", replies / seconds));
+		assertEquals(messages, replies);
+		producer.close();
+		consumer.close();
+	}
+
+	private Map<String,Object> embeddedConfig() {
+		HashMap<String, Object> props = new HashMap<>();
+		props.put("bootstrap.servers", embeddedKafka.getBrokersAsString());
+		props.put("schema.registry.url", "http://localhost:8081");
+		return props;
+	}
+	private Producer<String, TraceableMessage<TransactionRequest>> buildProducer() {
+		Map<String, Object> configs = embeddedConfig();
+		configs.put("linger.ms", "5");
+		
+		JacksonAvroSerializer<TraceableMessage<TransactionRequest>> jas = new JacksonAvroSerializer<>();
+		JavaType type = jas.getTypeFactory().constructParametricType(TraceableMessage.class, TransactionRequest.class);
+		jas.configure(configs, false, type);
+		
+		return new DefaultKafkaProducerFactory<>(configs, new StringSerializer(), jas ).createProducer();
+	}
+	private Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> buildConsumer() {
+		Map<String, Object> configs = embeddedConfig();
+		configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		configs.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+		configs.put("group.id", "perf.reply.consumer");
+		
+		JacksonAvroDeserializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> jad = new JacksonAvroDeserializer<>();
+		jad.configure(configs);
+
+		return new DefaultKafkaConsumerFactory<>(configs, new StringDeserializer(), jad).createConsumer();
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable() {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("12345634579");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setDebitCardNumber("27834728934729374");
+		message.getPayload().setTransactionAmount(-2300L);
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("328942834234j23k4");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("27834");
+		return message;
+	}
+	ResponseEntity<TimedResponse<TransactionResponse>> setup_responseEntity() {
+		TransactionResource tx = new TransactionResource();
+		tx.setAccountNumber("12345634579");
+		tx.setTransactionUuid(UUID.randomUUID());
+		return new ResponseEntity<TimedResponse<TransactionResponse>>(new TimedResponse<>(1L,
+				new TransactionResponse(TransactionResponse.SUCCESS, tx)), HttpStatus.CREATED);
+	}
+}
@@ -0,0 +1,15 @@
+package qslv.transaction.fulfillment;
+
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Baseline: one record per listener call, MANUAL_IMMEDIATE ack, synchronous auto-flushed reply.
+ */
+@TestPropertySource(properties = { "qslv.kafka-batch-listener=false" })
+class Perf_KafkaThroughput_RecordAck extends KafkaThroughputBenchmark {
+
+	@Override
+	String mode() {
+		return "record-ack";
+	}
+}
@@ -0,0 +1,16 @@
+package qslv.transaction.fulfillment;
+
+import org.springframework.test.context.TestPropertySource;
+
+/*
+ * Exactly-once: batch listener, one Kafka transaction per poll carrying the replies and the offsets.
+ */
+@TestPropertySource(properties = { "qslv.kafka-batch-listener=true",
+		"qslv.kafka-transactional-id-prefix=perf-fulfillment-tx-" })
+class Perf_KafkaThroughput_Transactional extends KafkaThroughputBenchmark {
+
+	@Override
+	String mode() {
+		return "transactional-batch";
+	}
+}
@@ -0,0 +1,359 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import qslv.common.kafka.JacksonAvroDeserializer;
+import qslv.common.kafka.JacksonAvroSerializer;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Soak test of the whole service: an embedded broker, the real listener, FulfillmentService,
+ * TransactionDao over HTTP to TransactionServiceStub, and JdbcDao over an in-memory H2 database.
+ * TransactionLoadGenerator produces at a fixed rate for a fixed time. The test measures:
+ *   sustained throughput   replies per second between the first and the last reply
+ *   consumer lag           request topic end offset minus the listener group's committed offset, sampled each second
+ *   end-to-end latency     messageCreationTime to reply receipt, p50/p95/p99/max
+ * Results go to perf.result-file (JSON) so CI can track regressions. Named Perf_* so the unit suite
+ * skips it; everything runs offline. Run with:
+ * mvn test -Dtest=Perf_SoakTest -Dperf.rate=1000 -Dperf.duration-s=300 -Dperf.overdraft-ratio=0.2 \
+ *     -Dperf.insufficient-funds-ratio=0.1 -Dperf.rest-latency-ms=5 -Dperf.rest-error-rate=0.001
+ * Service settings can be overridden the same way, e.g. -Dqslv.kafka-parallel-workers=32.
+ */
+@SpringBootTest
+@Import(value = { TestConfig.class })
+@DirtiesContext
+@EmbeddedKafka(partitions = 1, topics = { "transaction.request.queue", "transaction.reply.queue" })
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "spring.datasource.url=jdbc:h2:mem:soak;DB_CLOSE_DELAY=-1" })
+class Perf_SoakTest {
+	private static final Logger log = LoggerFactory.getLogger(Perf_SoakTest.class);
+	private static String request_topic = "transaction.request.queue";
+	private static String reply_topic = "transaction.reply.queue";
+	private static String reply_group = "perf.soak.reply.consumer";
+
+	@Autowired EmbeddedKafkaBroker embeddedKafka;
+	@Autowired ConfigProperties configProperties;
+	@Autowired JdbcTemplate jdbcTemplate;
+
+	int rate = Integer.getInteger("perf.rate", 500);
+	int durationSeconds = Integer.getInteger("perf.duration-s", 30);
+	int accounts = Integer.getInteger("perf.accounts", 1000);
+	double accountSkew = Double.parseDouble(System.getProperty("perf.account-skew", "2.0"));
+	double overdraftRatio = Double.parseDouble(System.getProperty("perf.overdraft-ratio", "0.2"));
+	double insufficientFundsRatio = Double.parseDouble(System.getProperty("perf.insufficient-funds-ratio", "0.1"));
+	long restLatency = Long.getLong("perf.rest-latency-ms", 2L);
+	long restJitter = Long.getLong("perf.rest-jitter-ms", 3L);
+	double restErrorRate = Double.parseDouble(System.getProperty("perf.rest-error-rate", "0.0"));
+	int drainSeconds = Integer.getInteger("perf.drain-s", 120);
+	String resultFile = System.getProperty("perf.result-file", "target/perf/soak-result.json");
+
+	TransactionServiceStub stub;
+
+	@BeforeEach
+	public void init() throws Exception {
+		stub = new TransactionServiceStub(restLatency).jitter(restJitter).errorRate(restErrorRate)
+				.insufficientFundsRatio(insufficientFundsRatio).start();
+		configProperties.setPostTransactionUrl(stub.url("/Transaction"));
+		configProperties.setPostReservationUrl(stub.url("/Reservation"));
+		configProperties.setTransferAndTransactUrl(stub.url("/TransferAndTransact"));
+		configProperties.setCommitReservationUrl(stub.url("/CommitReservation"));
+		configProperties.setCancelReservationUrl(stub.url("/CancelReservation"));
+		configProperties.setKafkaTransactionRequestQueue(request_topic);
+		configProperties.setKafkaTransactionReplyQueue(reply_topic);
+		setup_overdraftInstructions();
+	}
+
+	@AfterEach
+	public void teardown() {
+		stub.stop();
+	}
+
+	@Test
+	void test_soak() throws Exception {
+		Producer<String, TraceableMessage<TransactionRequest>> producer = buildProducer();
+		ReplyCollector replies = new ReplyCollector(buildConsumer());
+		AdminClient admin = AdminClient.create(embeddedConfig());
+		List<Long> lagSamples = new CopyOnWriteArrayList<>();
+		ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+		sampler.scheduleAtFixedRate(() -> lagSamples.add(requestLag(admin)), 1, 1, TimeUnit.SECONDS);
+		Thread collector = new Thread(replies, "perf-soak-replies");
+		collector.start();
+
+		//--Execute: paced production
+		TransactionLoadGenerator generator = new TransactionLoadGenerator(accounts, accountSkew, overdraftRatio, 20201017L);
+		int messages = rate * durationSeconds;
+		long start = System.nanoTime();
+		for (int count = 0; count < messages; count++) {
+			long due = start + count * 1_000_000_000L / rate;
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			TraceableMessage<TransactionRequest> message = generator.next();
+			producer.send(new ProducerRecord<>(request_topic, message.getPayload().getAccountNumber(), message));
+		}
+		producer.flush();
+		double produceSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+		long deadline = System.currentTimeMillis() + drainSeconds * 1000L;
+		while (replies.count.get() < messages && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100L);
+		}
+		replies.running = false;
+		collector.join();
+		sampler.shutdownNow();
+		lagSamples.add(requestLag(admin));
+		admin.close();
+		producer.close();
+
+		//--Verify
+		Map<String, Object> result = result(messages, produceSeconds, replies, lagSamples);
+		File file = new File(resultFile);
+		file.getAbsoluteFile().getParentFile().mkdirs();
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+		log.info("PERF soak {}", new ObjectMapper().writeValueAsString(result));
+		assertEquals(messages, replies.count.get());
+	}
+
+	Map<String, Object> result(int messages, double produceSeconds, ReplyCollector replies, List<Long> lagSamples) {
+		Map<String, Object> scenario = new LinkedHashMap<>();
+		scenario.put("rate", rate);
+		scenario.put("durationSeconds", durationSeconds);
+		scenario.put("accounts", accounts);
+		scenario.put("accountSkew", accountSkew);
+		scenario.put("overdraftRatio", overdraftRatio);
+		scenario.put("insufficientFundsRatio", insufficientFundsRatio);
+		scenario.put("restLatencyMs", restLatency);
+		scenario.put("restJitterMs", restJitter);
+		scenario.put("restErrorRate", restErrorRate);
+		scenario.put("parallelWorkers", configProperties.getKafkaParallelWorkers());
+		scenario.put("batchListener", configProperties.isKafkaBatchListener());
+		scenario.put("asyncReply", configProperties.isKafkaAsyncReply());
+
+		long[] latencies = replies.latencies();
+		Arrays.sort(latencies);
+		Map<String, Object> latency = new LinkedHashMap<>();
+		latency.put("p50", percentile(latencies, 0.50));
+		latency.put("p95", percentile(latencies, 0.95));
+		latency.put("p99", percentile(latencies, 0.99));
+		latency.put("max", latencies.length == 0 ? 0L : latencies[latencies.length - 1]);
+
+		Map<String, Object> lag = new LinkedHashMap<>();
+		lag.put("max", lagSamples.stream().mapToLong(Long::longValue).max().orElse(0L));
+		lag.put("final", lagSamples.isEmpty() ? 0L : lagSamples.get(lagSamples.size() - 1));
+		lag.put("samples", lagSamples);
+
+		Map<String, Object> rest = new LinkedHashMap<>();
+		rest.put("calls", stub.calls.get());
+		rest.put("errors", stub.errors.get());
+
+		double replySeconds = (replies.last.get() - replies.first.get()) / 1_000_000_000.0;
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("test", "soak");
+		result.put("timestamp", LocalDateTime.now().toString());
+		result.put("scenario", scenario);
+		result.put("produced", messages);
+		result.put("replies", replies.count.get());
+		result.put("produceSeconds", produceSeconds);
+		result.put("throughputPerSecond", replySeconds <= 0 ? 0.0 : replies.count.get() / replySeconds);
+		result.put("latencyMs", latency);
+		result.put("consumerLag", lag);
+		result.put("replyStatus", new LinkedHashMap<>(replies.statuses));
+		result.put("rest", rest);
+		return result;
+	}
+
+	static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0L;
+		}
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+	}
+
+	/**
+	 * Request topic end offsets minus the committed offsets of every group consuming it, except
+	 * this test's own reply consumer.
+	 */
+	long requestLag(AdminClient admin) {
+		try {
+			TopicPartition partition = new TopicPartition(request_topic, 0);
+			Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+			latest.put(partition, OffsetSpec.latest());
+			Map<TopicPartition, ListOffsetsResultInfo> ends = admin.listOffsets(latest).all().get();
+			long lag = 0L;
+			for (ConsumerGroupListing group : admin.listConsumerGroups().all().get()) {
+				if (reply_group.equals(group.groupId())) {
+					continue;
+				}
+				Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group.groupId()).partitionsToOffsetAndMetadata().get();
+				for (Map.Entry<TopicPartition, ListOffsetsResultInfo> end : ends.entrySet()) {
+					OffsetAndMetadata offset = committed.get(end.getKey());
+					if (offset != null) {
+						lag = Math.max(lag, end.getValue().offset() - offset.offset());
+					}
+				}
+			}
+			return lag;
+		} catch (Exception ex) {
+			log.warn("Lag sample failed. {}", ex.getLocalizedMessage());
+			return -1L;
+		}
+	}
+
+	/**
+	 * Polls the reply topic and records one end-to-end latency per reply.
+	 */
+	static class ReplyCollector implements Runnable {
+		final Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> consumer;
+		final AtomicInteger count = new AtomicInteger();
+		final AtomicLong first = new AtomicLong();
+		final AtomicLong last = new AtomicLong();
+		final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+		private long[] latencies = new long[1024];
+		volatile boolean running = true;
+
+		ReplyCollector(Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				for (ConsumerRecord<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> record : consumer.poll(Duration.ofMillis(200))) {
+					long now = System.nanoTime();
+					first.compareAndSet(0L, now);
+					last.set(now);
+					TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply = record.value();
+					record(Duration.between(reply.getMessageCreationTime(), LocalDateTime.now()).toMillis());
+					statuses.merge(status(reply.getPayload()), 1, Integer::sum);
+				}
+			}
+			consumer.close();
+		}
+
+		private synchronized void record(long latency) {
+			int index = count.get();
+			if (index == latencies.length) {
+				latencies = Arrays.copyOf(latencies, latencies.length * 2);
+			}
+			latencies[index] = latency;
+			count.incrementAndGet();
+		}
+
+		synchronized long[] latencies() {
+			return Arrays.copyOf(latencies, count.get());
+		}
+
+		private static String status(ResponseMessage<TransactionRequest,TransactionResponse> payload) {
+			if (payload.getStatus() != ResponseMessage.SUCCESS || payload.getResponse() == null) {
+				return "message-" + payload.getStatus();
+			}
+			return "transaction-" + payload.getResponse().getStatus();
+		}
+	}
+
+	void setup_overdraftInstructions() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS account (account_no VARCHAR(64) PRIMARY KEY, lifecycle_status_cd VARCHAR(2))");
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS overdraft_instruction (account_no VARCHAR(64), overdraft_account_no VARCHAR(64),"
+				+ " lifecycle_status_cd VARCHAR(2), effective_start_dt DATE, effective_end_dt DATE, sequence INT)");
+		jdbcTemplate.execute("DELETE FROM overdraft_instruction");
+		jdbcTemplate.execute("DELETE FROM account");
+		List<Object[]> overdraftAccounts = new ArrayList<>(accounts);
+		List<Object[]> instructions = new ArrayList<>(accounts);
+		Date effectiveStart = Date.valueOf(LocalDate.now().minusYears(1L));
+		for (int account = 0; account < accounts; account++) {
+			overdraftAccounts.add(new Object[] { TransactionLoadGenerator.overdraftAccountNumber(account), "EF" });
+			instructions.add(new Object[] { TransactionLoadGenerator.accountNumber(account), TransactionLoadGenerator.overdraftAccountNumber(account),
+					"EF", effectiveStart, null, 1 });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO account VALUES (?, ?)", overdraftAccounts);
+		jdbcTemplate.batchUpdate("INSERT INTO overdraft_instruction VALUES (?, ?, ?, ?, ?, ?)", instructions);
+	}
+
+	private Map<String,Object> embeddedConfig() {
+		HashMap<String, Object> props = new HashMap<>();
+		props.put("bootstrap.servers", embeddedKafka.getBrokersAsString());
+		props.put("schema.registry.url", "http://localhost:8081");
+		return props;
+	}
+	private Producer<String, TraceableMessage<TransactionRequest>> buildProducer() {
+		Map<String, Object> configs = embeddedConfig();
+		configs.put("linger.ms", "5");
+
+		JacksonAvroSerializer<TraceableMessage<TransactionRequest>> jas = new JacksonAvroSerializer<>();
+		JavaType type = jas.getTypeFactory().constructParametricType(TraceableMessage.class, TransactionRequest.class);
+		jas.configure(configs, false, type);
+
+		return new DefaultKafkaProducerFactory<>(configs, new StringSerializer(), jas).createProducer();
+	}
+	private Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> buildConsumer() {
+		Map<String, Object> configs = embeddedConfig();
+		configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		configs.put("group.id", reply_group);
+
+		JacksonAvroDeserializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> jad = new JacksonAvroDeserializer<>();
+		jad.configure(configs);
+
+		Consumer<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> consumer =
+				new DefaultKafkaConsumerFactory<>(configs, new StringDeserializer(), jad).createConsumer();
+		embeddedKafka.consumeFromAnEmbeddedTopic(consumer, reply_topic);
+		return consumer;
+	}
+}
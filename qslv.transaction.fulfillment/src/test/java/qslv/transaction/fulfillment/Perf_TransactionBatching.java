@@ -0,0 +1,115 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Single vs batched POST /Transaction against the in-JVM TransactionServiceStub. Named Perf_*
+ * so the unit suite skips it. Run with:
+ * mvn test -Dtest=Perf_TransactionBatching -Dperf.messages=20000 -Dperf.rest-latency-ms=5 -Dperf.callers=100
+ */
+class Perf_TransactionBatching {
+	private static final Logger log = LoggerFactory.getLogger(Perf_TransactionBatching.class);
+
+	int messages = Integer.getInteger("perf.messages", 5000);
+	long restLatency = Long.getLong("perf.rest-latency-ms", 5L);
+	int callers = Integer.getInteger("perf.callers", 100);
+	int batchSize = Integer.getInteger("perf.batch-size", 50);
+	int batchWindow = Integer.getInteger("perf.batch-window-ms", 5);
+
+	@Test
+	void test_single() throws Exception {
+		run("single", false);
+	}
+
+	@Test
+	void test_batched() throws Exception {
+		run("batched", true);
+	}
+
+	void run(String mode, boolean batched) throws Exception {
+		//-- Setup
+		TransactionServiceStub stub = new TransactionServiceStub(restLatency).start();
+		ConfigProperties config = new ConfigProperties();
+		config.setAitid("723842");
+		config.setPostTransactionUrl(stub.url("/Transaction"));
+		if (batched) {
+			config.setPostTransactionBatchUrl(stub.url("/Transaction/batch"));
+			config.setTransactionBatchMaxSize(batchSize);
+			config.setTransactionBatchWindow(batchWindow);
+		}
+		TransactionDao transactionDao = setup_dao(config);
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		CountDownLatch done = new CountDownLatch(messages);
+
+		//--Execute
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			TraceableMessage<TransactionRequest> message = setup_traceable("account-" + i);
+			pool.execute(() -> {
+				transactionDao.recordTransaction(message, message.getPayload());
+				done.countDown();
+			});
+		}
+		boolean drained = done.await(300, TimeUnit.SECONDS);
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		pool.shutdownNow();
+		transactionDao.shutdown();
+		stub.stop();
+
+		//--Verify
+		log.info("PERF mode={} messages={} callers={} restLatencyMs={} httpCalls={} seconds={} throughput={}/s",
+				mode, messages, callers, restLatency, stub.calls.get(), String.format("%.3f", seconds), String.format("%.1f", messages / seconds));
+		assertTrue(drained);
+	}
+
+	TransactionDao setup_dao(ConfigProperties config) {
+		RestTemplateProxy restTemplateProxy = new RestTemplateProxy();
+		restTemplateProxy.setRestTemplate(new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+				HttpClients.custom().setMaxConnTotal(callers).setMaxConnPerRoute(callers).build())));
+
+		TransactionDao transactionDao = new TransactionDao();
+		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
+		transactionDao.setRetryTemplate(new RetryTemplate());
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(Integer.MAX_VALUE).build()));
+		transactionDao.setRestTemplateProxy(restTemplateProxy);
+		transactionDao.init();
+		return transactionDao;
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable(String accountNumber) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber(accountNumber);
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setTransactionAmount(-2300L);
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("328942834234j23k4");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("27834");
+		return message;
+	}
+}
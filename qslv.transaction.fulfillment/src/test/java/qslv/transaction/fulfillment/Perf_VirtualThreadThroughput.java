@@ -0,0 +1,167 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.retry.support.RetryTemplate;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.TimedResponse;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+/*
+ * Platform-thread pool vs virtual-thread-per-record throughput of ParallelFulfillmentEngine at
+ * high concurrency. The REST backend is stubbed with a fixed blocking latency, which is where
+ * a platform thread sits idle. Named Perf_* so the unit suite skips it. Run with:
+ * mvn test -Pjdk21 -Dtest=Perf_VirtualThreadThroughput -Dperf.messages=50000 -Dperf.rest-latency-ms=20
+ */
+class Perf_VirtualThreadThroughput {
+	private static final Logger log = LoggerFactory.getLogger(Perf_VirtualThreadThroughput.class);
+
+	int messages = Integer.getInteger("perf.messages", 20000);
+	int keys = Integer.getInteger("perf.keys", 5000);
+	long restLatency = Long.getLong("perf.rest-latency-ms", 20L);
+	int platformWorkers = Integer.getInteger("perf.platform-workers", 200);
+	int maxInFlight = Integer.getInteger("perf.max-in-flight", 5000);
+
+	@Test
+	void test_platformThreads() throws InterruptedException {
+		run("platform", false);
+	}
+
+	@Test
+	void test_virtualThreads() throws InterruptedException {
+		assumeTrue(FulfillmentExecutors.virtualThreadsAvailable(), "Virtual threads need Java 21+");
+		run("virtual", true);
+	}
+
+	void run(String mode, boolean virtualThreads) throws InterruptedException {
+		//-- Setup
+		ConfigProperties config = new ConfigProperties();
+		config.setAitid("723842");
+		config.setPostTransactionUrl("http://localhost:9091/Transaction");
+		config.setKafkaTimeout(100);
+		config.setKafkaParallelWorkers(platformWorkers);
+		config.setKafkaParallelMaxInFlight(maxInFlight);
+		config.setVirtualThreads(virtualThreads);
+
+		CountDownLatch replies = new CountDownLatch(messages);
+		ParallelFulfillmentEngine engine = setup_engine(config, replies);
+		engine.start();
+
+		//--Execute
+		long start = System.nanoTime();
+		for (int offset = 0; offset < messages; offset++) {
+			TraceableMessage<TransactionRequest> message = setup_traceable("account-" + (offset % keys));
+			engine.submit(new ConsumerRecord<>("transaction.request.queue", 0, offset,
+					message.getPayload().getAccountNumber(), message), () -> {});
+		}
+		boolean drained = replies.await(300, TimeUnit.SECONDS);
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		engine.stop();
+
+		//--Verify
+		log.info("PERF mode={} messages={} keys={} restLatencyMs={} seconds={} throughput={}/s",
+				mode, messages, keys, restLatency, String.format("%.3f", seconds), String.format("%.1f", messages / seconds));
+		assertTrue(drained);
+	}
+
+	ParallelFulfillmentEngine setup_engine(ConfigProperties config, CountDownLatch replies) {
+		ResponseEntity<TimedResponse<TransactionResponse>> response = setup_responseEntity();
+
+		TransactionDao transactionDao = new TransactionDao();
+		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
+		transactionDao.setRetryTemplate(new RetryTemplate());
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		// the engine's own in-flight bound is what this benchmark measures
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(Integer.MAX_VALUE).build()));
+		transactionDao.setRestTemplateProxy(new RestTemplateProxy() {
+			@SuppressWarnings("unchecked")
+			@Override
+			public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+					ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+				try {
+					Thread.sleep(restLatency);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return (ResponseEntity<T>) response;
+			}
+		});
+
+		FulfillmentService fulfillmentService = new FulfillmentService();
+		fulfillmentService.setTransactionDao(transactionDao);
+
+		KafkaProducerDao kafkaDao = new KafkaProducerDao() {
+			@Override
+			public void produceResponse(TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> message) {
+				replies.countDown();
+			}
+		};
+		kafkaDao.setStageTimers(new StageTimers());
+
+		FulfillmentController controller = new FulfillmentController();
+		controller.setConfig(config);
+		controller.setStageTimers(new StageTimers());
+		controller.setAgeMetrics(new MessageAgeMetrics());
+		controller.setStaleFilter(new StaleMessageFilter());
+		controller.setFulfillmentService(fulfillmentService);
+		controller.setKafkaDao(kafkaDao);
+		ProcessedRequestIndex processedIndex = new ProcessedRequestIndex();
+		processedIndex.setConfig(config);
+		controller.setProcessedIndex(processedIndex);
+		AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter();
+		concurrencyLimiter.setConfig(config);
+		controller.setConcurrencyLimiter(concurrencyLimiter);
+
+		ParallelFulfillmentEngine engine = new ParallelFulfillmentEngine();
+		engine.setConfig(config);
+		engine.setFulfillmentController(controller);
+		OffsetCommitTracker offsetTracker = new OffsetCommitTracker();
+		offsetTracker.setStageTimers(new StageTimers());
+		engine.setOffsetTracker(offsetTracker);
+		return engine;
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable(String accountNumber) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber(accountNumber);
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setTransactionAmount(-2300L);
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("328942834234j23k4");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("27834");
+		return message;
+	}
+	ResponseEntity<TimedResponse<TransactionResponse>> setup_responseEntity() {
+		TransactionResource tx = new TransactionResource();
+		tx.setAccountNumber("12345634579");
+		tx.setTransactionUuid(UUID.randomUUID());
+		return new ResponseEntity<TimedResponse<TransactionResponse>>(new TimedResponse<>(1L,
+				new TransactionResponse(TransactionResponse.SUCCESS, tx)), HttpStatus.CREATED);
+	}
+}
@@ -0,0 +1,55 @@
+package qslv.transaction.fulfillment;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+/*
+ * Stream of transaction requests for load tests. Accounts are account-0 .. account-(accounts-1).
+ * Account i is drawn as accounts x U^skew: skew 1 is uniform, and a larger skew concentrates
+ * traffic on the low account numbers (hot accounts). A fraction overdraftRatio of requests asks
+ * for overdraft protection. Seeded, so a run is repeatable.
+ */
+class TransactionLoadGenerator {
+	private final int accounts;
+	private final double skew;
+	private final double overdraftRatio;
+	private final Random random;
+
+	TransactionLoadGenerator(int accounts, double skew, double overdraftRatio, long seed) {
+		this.accounts = accounts;
+		this.skew = skew;
+		this.overdraftRatio = overdraftRatio;
+		this.random = new Random(seed);
+	}
+
+	static String accountNumber(int account) {
+		return "account-" + account;
+	}
+
+	static String overdraftAccountNumber(int account) {
+		return "overdraft-" + account;
+	}
+
+	TraceableMessage<TransactionRequest> next() {
+		int account = Math.min(accounts - 1, (int) (accounts * Math.pow(random.nextDouble(), skew)));
+
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber(accountNumber(account));
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setDebitCardNumber("27834728934729374");
+		message.getPayload().setTransactionAmount(-(100L + random.nextInt(10000)));
+		message.getPayload().setProtectAgainstOverdraft(random.nextDouble() < overdraftRatio);
+		message.getPayload().setAuthorizeAgainstBalance(true);
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId(UUID.randomUUID().toString());
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("27834");
+		return message;
+	}
+}
@@ -0,0 +1,173 @@
+package qslv.transaction.fulfillment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import qslv.common.TimedResponse;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.CancelReservationResponse;
+import qslv.transaction.response.CommitReservationResponse;
+import qslv.transaction.response.ReservationResponse;
+import qslv.transaction.response.TransactionResponse;
+import qslv.transaction.response.TransferAndTransactResponse;
+
+/*
+ * In-JVM stand-in for the transaction REST service, so its contracts can be exercised without
+ * a network.
+ *   POST /Transaction          TransactionRequest       -> 201 TimedResponse<TransactionResponse>
+ *   POST /Transaction/batch    List<TransactionRequest> -> 201 TimedResponse<List<TransactionResponse>>
+ *   POST /Reservation          ReservationRequest       -> 201 TimedResponse<ReservationResponse>
+ *   POST /TransferAndTransact  TransferAndTransactRequest -> 201 TimedResponse<TransferAndTransactResponse>
+ *   POST /CommitReservation    CommitReservationRequest -> 201 TimedResponse<CommitReservationResponse>
+ *   POST /CancelReservation    CancelReservationRequest -> 201 TimedResponse<CancelReservationResponse>
+ * Every call sleeps for latency ms plus an exponentially distributed jitter with mean jitter ms.
+ * A fraction errorRate of calls answers 500 instead. A fraction insufficientFundsRatio of
+ * transactions is rejected with INSUFFICIENT_FUNDS. Responses echo the request's account number.
+ */
+class TransactionServiceStub {
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private final HttpServer server;
+	private final long latency;
+	private long jitter = 0L;
+	private double errorRate = 0.0;
+	private double insufficientFundsRatio = 0.0;
+	final AtomicInteger calls = new AtomicInteger();
+	final AtomicInteger requests = new AtomicInteger();
+	final AtomicInteger errors = new AtomicInteger();
+
+	TransactionServiceStub(long latency) throws IOException {
+		this.latency = latency;
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/Transaction/batch", handler(exchange -> {
+			List<TransactionRequest> body = mapper.readValue(exchange.getRequestBody(), new TypeReference<List<TransactionRequest>>() {});
+			List<TransactionResponse> responses = new ArrayList<>(body.size());
+			for (TransactionRequest request : body) {
+				responses.add(transaction(request));
+			}
+			return responses;
+		}));
+		server.createContext("/Transaction", handler(exchange ->
+			transaction(mapper.readValue(exchange.getRequestBody(), TransactionRequest.class))));
+		server.createContext("/Reservation", handler(exchange -> {
+			ReservationResponse response = new ReservationResponse();
+			response.setStatus(ReservationResponse.SUCCESS);
+			response.setResource(resource(accountNumber(exchange), TransactionResource.RESERVATION));
+			return response;
+		}));
+		server.createContext("/TransferAndTransact", handler(exchange -> {
+			String accountNumber = mapper.readTree(exchange.getRequestBody()).path("transactionRequest").path("accountNumber").asText();
+			TransferAndTransactResponse response = new TransferAndTransactResponse();
+			response.setStatus(TransferAndTransactResponse.SUCCESS);
+			ArrayList<TransactionResource> transactions = new ArrayList<>(2);
+			transactions.add(resource(accountNumber, TransactionResource.NORMAL));
+			transactions.add(resource(accountNumber, TransactionResource.NORMAL));
+			response.setTransactions(transactions);
+			return response;
+		}));
+		server.createContext("/CommitReservation", handler(exchange -> {
+			CommitReservationResponse response = new CommitReservationResponse();
+			response.setStatus(CommitReservationResponse.SUCCESS);
+			response.setResource(resource(accountNumber(exchange), TransactionResource.NORMAL));
+			return response;
+		}));
+		server.createContext("/CancelReservation", handler(exchange -> {
+			exchange.getRequestBody().close();
+			return new CancelReservationResponse(CancelReservationResponse.SUCCESS, resource(null, TransactionResource.NORMAL));
+		}));
+	}
+
+	TransactionServiceStub jitter(long jitter) {
+		this.jitter = jitter;
+		return this;
+	}
+
+	TransactionServiceStub errorRate(double errorRate) {
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	TransactionServiceStub insufficientFundsRatio(double insufficientFundsRatio) {
+		this.insufficientFundsRatio = insufficientFundsRatio;
+		return this;
+	}
+
+	TransactionServiceStub start() {
+		server.start();
+		return this;
+	}
+
+	void stop() {
+		server.stop(0);
+	}
+
+	String url(String path) {
+		return "http://localhost:" + server.getAddress().getPort() + path;
+	}
+
+	private TransactionResponse transaction(TransactionRequest request) {
+		requests.incrementAndGet();
+		if (ThreadLocalRandom.current().nextDouble() < insufficientFundsRatio) {
+			return new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS,
+					resource(request.getAccountNumber(), TransactionResource.REJECTED_TRANSACTION));
+		}
+		return new TransactionResponse(TransactionResponse.SUCCESS, resource(request.getAccountNumber(), TransactionResource.NORMAL));
+	}
+
+	private String accountNumber(HttpExchange exchange) throws IOException {
+		return mapper.readTree(exchange.getRequestBody()).path("accountNumber").asText();
+	}
+
+	private TransactionResource resource(String accountNumber, String typeCode) {
+		TransactionResource tx = new TransactionResource();
+		tx.setAccountNumber(accountNumber);
+		tx.setTransactionUuid(UUID.randomUUID());
+		tx.setTransactionTypeCode(typeCode);
+		return tx;
+	}
+
+	private interface Responder {
+		Object respond(HttpExchange exchange) throws IOException;
+	}
+
+	private HttpHandler handler(Responder responder) {
+		return exchange -> {
+			calls.incrementAndGet();
+			Object payload = responder.respond(exchange);
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long elapsed = latency + (long) (-jitter * Math.log(1.0 - random.nextDouble()));
+			try {
+				Thread.sleep(elapsed);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			if (random.nextDouble() < errorRate) {
+				errors.incrementAndGet();
+				exchange.sendResponseHeaders(500, -1);
+				exchange.close();
+				return;
+			}
+			byte[] json = mapper.writeValueAsBytes(new TimedResponse<Object>(elapsed, payload));
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(201, json.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(json);
+			}
+		};
+	}
+}
@@ -0,0 +1,111 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_AdaptiveConcurrencyLimiter {
+	private static final long MILLISECOND = 1000000L;
+
+	AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+	ConfigProperties config = new ConfigProperties();
+	@Mock
+	KafkaListenerEndpointRegistry listenerRegistry;
+	@Mock
+	MessageListenerContainer container;
+
+	@BeforeEach
+	public void setup() {
+		config.setAdaptiveLimit(true);
+		config.setAdaptiveLimitInitial(10);
+		config.setAdaptiveLimitMin(2);
+		config.setAdaptiveLimitMax(40);
+		config.setAdaptiveLimitRttTolerance(150);
+		limiter.setConfig(config);
+		limiter.setListenerRegistry(listenerRegistry);
+		limiter.init();
+	}
+
+	@Test
+	void test_flatLatency_grows() {
+		//--Execute-----------------------
+		for (int i = 0; i < 50; i++) {
+			limiter.sample(MILLISECOND, limiter.getLimit());
+		}
+
+		//--Verify------------------------
+		assertEquals(40, limiter.getLimit());
+	}
+
+	@Test
+	void test_risingLatency_shrinks() {
+		//-- Setup ------------------
+		for (int i = 0; i < 100; i++) {
+			limiter.sample(MILLISECOND, limiter.getLimit());
+		}
+		int before = limiter.getLimit();
+
+		//--Execute-----------------------
+		for (int i = 0; i < 20; i++) {
+			limiter.sample(20 * MILLISECOND, limiter.getLimit());
+		}
+
+		//--Verify------------------------
+		assertTrue(limiter.getLimit() < before / 2);
+	}
+
+	@Test
+	void test_underused_doesNotGrow() {
+		//--Execute-----------------------
+		for (int i = 0; i < 50; i++) {
+			limiter.sample(MILLISECOND, 1);
+		}
+
+		//--Verify------------------------
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	void test_dropped_backsOff() {
+		//--Execute-----------------------
+		limiter.onDropped(limiter.acquire());
+		limiter.onDropped(limiter.acquire());
+
+		//--Verify------------------------
+		assertEquals(8, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	void test_limitReached_pausesAndResumes() {
+		//-- Prepare ----------------------
+		when(listenerRegistry.getListenerContainer(AdaptiveConcurrencyLimiter.LISTENER_ID)).thenReturn(container);
+		long[] started = new long[10];
+
+		//--Execute-----------------------
+		for (int i = 0; i < 9; i++) {
+			started[i] = limiter.acquire();
+		}
+		assertFalse(limiter.isPaused());
+		started[9] = limiter.acquire();
+
+		//--Verify------------------------
+		assertTrue(limiter.isPaused());
+		verify(container, times(1)).pause();
+
+		//--Execute-----------------------
+		limiter.onIgnore(started[9]);
+
+		//--Verify------------------------
+		assertFalse(limiter.isPaused());
+		verify(container, times(1)).resume();
+	}
+}
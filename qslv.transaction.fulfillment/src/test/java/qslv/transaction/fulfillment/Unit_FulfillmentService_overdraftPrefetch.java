@@ -0,0 +1,160 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import qslv.common.kafka.TraceableMessage;
+import qslv.data.Account;
+import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.ReservationResponse;
+import qslv.transaction.response.TransactionResponse;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_FulfillmentService_overdraftPrefetch {
+	FulfillmentService fulfillmentService = new FulfillmentService();
+	ConfigProperties config = new ConfigProperties();
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	@Mock
+	TransactionDao transactionDao;
+	@Mock
+	JdbcDao jdbcDao;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		config.setOverdraftPrefetch(true);
+		config.setOverdraftPrefetchThreads(2);
+		fulfillmentService.setTransactionDao(transactionDao);
+		fulfillmentService.setJdbcDao(jdbcDao);
+		fulfillmentService.setConfig(config);
+		fulfillmentService.setMeterRegistry(meterRegistry);
+		fulfillmentService.init();
+	}
+
+	@AfterEach
+	public void teardown() {
+		fulfillmentService.shutdown();
+	}
+
+	@Test
+	void test_processTransaction_prefetchUsed() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request(true);
+		TransactionResponse response = new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS, new TransactionResource());
+		ReservationResponse reservation = new ReservationResponse();
+		reservation.setStatus(ReservationResponse.INSUFFICIENT_FUNDS);
+		reservation.setResource(new TransactionResource());
+
+		//--Prepare----------------------
+		doReturn(response).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions()).when(jdbcDao).getOverdraftInstructions(request.getPayload().getAccountNumber());
+		doReturn(reservation).when(transactionDao).recordReservation(any(), any());
+
+		//--Execute-----------------------
+		TransactionResponse output = fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		assertEquals(TransactionResponse.INSUFFICIENT_FUNDS, output.getStatus());
+		assertEquals(2, output.getTransactions().size());
+		verify(jdbcDao, times(1)).getOverdraftInstructions(request.getPayload().getAccountNumber());
+		assertEquals(1.0, meterRegistry.get("qslv.overdraft.prefetch").tag("result", "used").counter().count());
+		assertEquals(0.0, meterRegistry.get("qslv.overdraft.prefetch").tag("result", "wasted").counter().count());
+	}
+
+	@Test
+	void test_processTransaction_prefetchWasted() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request(true);
+		TransactionResponse response = new TransactionResponse(TransactionResponse.SUCCESS, new TransactionResource());
+
+		//--Prepare----------------------
+		doReturn(response).when(transactionDao).recordTransaction(any(), any());
+		lenient().doReturn(setup_instructions()).when(jdbcDao).getOverdraftInstructions(any());
+
+		//--Execute-----------------------
+		TransactionResponse output = fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		assertSame(response, output);
+		assertEquals(0.0, meterRegistry.get("qslv.overdraft.prefetch").tag("result", "used").counter().count());
+		assertEquals(1.0, meterRegistry.get("qslv.overdraft.prefetch").tag("result", "wasted").counter().count());
+	}
+
+	@Test
+	void test_processTransaction_prefetchFails() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request(true);
+		TransactionResponse response = new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS, new TransactionResource());
+
+		//--Prepare----------------------
+		doReturn(response).when(transactionDao).recordTransaction(any(), any());
+		doThrow(new IllegalArgumentException("msg")).when(jdbcDao).getOverdraftInstructions(any());
+
+		//--Execute-----------------------
+		assertThrows(IllegalArgumentException.class, () -> {
+			fulfillmentService.processTransaction(request, request.getPayload());
+		});
+	}
+
+	@Test
+	void test_processTransaction_notProtected() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request(false);
+		TransactionResponse response = new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS, new TransactionResource());
+
+		//--Prepare----------------------
+		doReturn(response).when(transactionDao).recordTransaction(any(), any());
+
+		//--Execute-----------------------
+		fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		verify(jdbcDao, never()).getOverdraftInstructions(any());
+		assertEquals(0.0, meterRegistry.get("qslv.overdraft.prefetch").tag("result", "wasted").counter().count());
+	}
+
+	private TraceableMessage<TransactionRequest> setup_request(boolean protectAgainstOverdraft) {
+		TraceableMessage<TransactionRequest> request = new TraceableMessage<>();
+		request.setBusinessTaxonomyId("38923748273482");
+		request.setCorrelationId("2387429837428374");
+		request.setMessageCreationTime(LocalDateTime.now());
+		request.setProducerAit("2345");
+		request.setPayload(new TransactionRequest());
+		request.getPayload().setAccountNumber("23874923749823");
+		request.getPayload().setRequestUuid(UUID.randomUUID());
+		request.getPayload().setTransactionMetaDataJson("{}");
+		request.getPayload().setProtectAgainstOverdraft(protectAgainstOverdraft);
+		request.getPayload().setAuthorizeAgainstBalance(true);
+		return request;
+	}
+
+	List<OverdraftInstruction> setup_instructions() {
+		ArrayList<OverdraftInstruction> list = new ArrayList<>();
+		OverdraftInstruction instruction = new OverdraftInstruction();
+		instruction.setEffectiveEnd(LocalDateTime.now().plusYears(1L));
+		instruction.setEffectiveStart(LocalDateTime.now().minusYears(1L));
+		instruction.setInstructionLifecycleStatus("EF");
+		instruction.setOverdraftAccount(new Account());
+		instruction.getOverdraftAccount().setAccountLifeCycleStatus("EF");
+		instruction.getOverdraftAccount().setAccountNumber("Account #1");
+		list.add(instruction);
+		return list;
+	}
+}
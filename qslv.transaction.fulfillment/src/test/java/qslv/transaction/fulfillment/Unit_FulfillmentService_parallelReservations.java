@@ -0,0 +1,263 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.data.Account;
+import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.CancelReservationRequest;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.CommitReservationResponse;
+import qslv.transaction.response.ReservationResponse;
+import qslv.transaction.response.TransactionResponse;
+import qslv.transaction.response.TransferAndTransactResponse;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_FulfillmentService_parallelReservations {
+	FulfillmentService fulfillmentService = new FulfillmentService();
+	ConfigProperties config = new ConfigProperties();
+	@Mock
+	TransactionDao transactionDao;
+	@Mock
+	JdbcDao jdbcDao;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		config.setOverdraftParallelReservations(2);
+		fulfillmentService.setTransactionDao(transactionDao);
+		fulfillmentService.setJdbcDao(jdbcDao);
+		fulfillmentService.setConfig(config);
+		fulfillmentService.init();
+	}
+
+	@AfterEach
+	public void teardown() {
+		fulfillmentService.shutdown();
+	}
+
+	@Test
+	void test_processTransaction_firstWinsSecondCancelled() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse first = setup_reservation(ReservationResponse.SUCCESS);
+		ReservationResponse second = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(3)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doReturn(first).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #1".equals(r.getAccountNumber())));
+		doReturn(second).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #2".equals(r.getAccountNumber())));
+		doReturn(setupTransferAndTransactResponse()).when(transactionDao).transferAndTransact(any(), any());
+		doReturn(setupCommitResponse()).when(transactionDao).commitReservation(any(), any());
+		ArgumentCaptor<CancelReservationRequest> cancel = ArgumentCaptor.forClass(CancelReservationRequest.class);
+
+		//--Execute-----------------------
+		TransactionResponse output = fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		assertEquals(TransactionResponse.SUCCESS, output.getStatus());
+		assertSame(first.getResource(), output.getTransactions().get(1));
+		verify(transactionDao, times(2)).recordReservation(any(), any());
+		verify(transactionDao).cancelReservation(any(), cancel.capture());
+		assertEquals(second.getResource().getTransactionUuid(), cancel.getValue().getReservationUuid());
+	}
+
+	@Test
+	void test_processTransaction_firstShortSecondWins() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse first = setup_reservation(ReservationResponse.INSUFFICIENT_FUNDS);
+		ReservationResponse second = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(2)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doReturn(first).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #1".equals(r.getAccountNumber())));
+		doReturn(second).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #2".equals(r.getAccountNumber())));
+		doReturn(setupTransferAndTransactResponse()).when(transactionDao).transferAndTransact(any(), any());
+		doReturn(setupCommitResponse()).when(transactionDao).commitReservation(any(), any());
+
+		//--Execute-----------------------
+		TransactionResponse output = fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		assertEquals(TransactionResponse.SUCCESS, output.getStatus());
+		assertSame(first.getResource(), output.getTransactions().get(1));
+		assertSame(second.getResource(), output.getTransactions().get(2));
+		verify(transactionDao, never()).cancelReservation(any(), any());
+	}
+
+	@Test
+	void test_processTransaction_nextWindow() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse shortfall = setup_reservation(ReservationResponse.INSUFFICIENT_FUNDS);
+		ReservationResponse third = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(3)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doReturn(shortfall).when(transactionDao).recordReservation(any(), argThat(r -> r != null && false == "Account #3".equals(r.getAccountNumber())));
+		doReturn(third).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #3".equals(r.getAccountNumber())));
+		doReturn(setupTransferAndTransactResponse()).when(transactionDao).transferAndTransact(any(), any());
+		doReturn(setupCommitResponse()).when(transactionDao).commitReservation(any(), any());
+
+		//--Execute-----------------------
+		TransactionResponse output = fulfillmentService.processTransaction(request, request.getPayload());
+
+		//--Verify------------------------
+		assertEquals(TransactionResponse.SUCCESS, output.getStatus());
+		assertSame(third.getResource(), output.getTransactions().get(3));
+		verify(transactionDao, times(3)).recordReservation(any(), any());
+	}
+
+	@Test
+	void test_processTransaction_firstThrows() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse second = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(2)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doThrow(new IllegalStateException("msg")).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #1".equals(r.getAccountNumber())));
+		doReturn(second).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #2".equals(r.getAccountNumber())));
+
+		//--Execute-----------------------
+		assertThrows(IllegalStateException.class, () -> {
+			fulfillmentService.processTransaction(request, request.getPayload());
+		});
+
+		//--Verify------------------------
+		verify(transactionDao, never()).transferAndTransact(any(), any());
+	}
+
+	@Test
+	void test_processTransaction_firstThrowsSecondCancelled() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse second = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(2)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doThrow(new IllegalStateException("msg")).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #1".equals(r.getAccountNumber())));
+		doReturn(second).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #2".equals(r.getAccountNumber())));
+		ArgumentCaptor<CancelReservationRequest> cancel = ArgumentCaptor.forClass(CancelReservationRequest.class);
+
+		//--Execute-----------------------
+		assertThrows(IllegalStateException.class, () -> {
+			fulfillmentService.processTransaction(request, request.getPayload());
+		});
+
+		//--Verify------------------------
+		verify(transactionDao).cancelReservation(any(), cancel.capture());
+		assertEquals(second.getResource().getTransactionUuid(), cancel.getValue().getReservationUuid());
+		verify(transactionDao, never()).transferAndTransact(any(), any());
+	}
+
+	@Test
+	void test_processTransaction_cancelFailureReleasesRest() {
+		//-- Setup ------------------
+		config.setOverdraftParallelReservations(3);
+		fulfillmentService.shutdown();
+		fulfillmentService.init();
+		TraceableMessage<TransactionRequest> request = setup_request();
+		ReservationResponse second = setup_reservation(ReservationResponse.SUCCESS);
+		ReservationResponse third = setup_reservation(ReservationResponse.SUCCESS);
+
+		//--Prepare----------------------
+		doReturn(setup_response()).when(transactionDao).recordTransaction(any(), any());
+		doReturn(setup_instructions(3)).when(jdbcDao).getOverdraftInstructions(anyString());
+		doThrow(new IllegalStateException("msg")).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #1".equals(r.getAccountNumber())));
+		doReturn(second).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #2".equals(r.getAccountNumber())));
+		doReturn(third).when(transactionDao).recordReservation(any(), argThat(r -> r != null && "Account #3".equals(r.getAccountNumber())));
+		doThrow(new IllegalArgumentException("msg")).when(transactionDao).cancelReservation(any(),
+				argThat(c -> c != null && second.getResource().getTransactionUuid().equals(c.getReservationUuid())));
+
+		//--Execute-----------------------
+		assertThrows(IllegalStateException.class, () -> {
+			fulfillmentService.processTransaction(request, request.getPayload());
+		});
+
+		//--Verify------------------------
+		verify(transactionDao, times(2)).cancelReservation(any(), any());
+	}
+
+	ReservationResponse setup_reservation(int status) {
+		ReservationResponse response = new ReservationResponse();
+		response.setStatus(status);
+		response.setResource(new TransactionResource());
+		response.getResource().setTransactionUuid(UUID.randomUUID());
+		response.getResource().setTransactionTypeCode(status == ReservationResponse.SUCCESS
+				? TransactionResource.RESERVATION : TransactionResource.REJECTED_TRANSACTION);
+		return response;
+	}
+
+	TransactionResponse setup_response() {
+		return new TransactionResponse(TransactionResponse.INSUFFICIENT_FUNDS, new TransactionResource());
+	}
+
+	private TraceableMessage<TransactionRequest> setup_request() {
+		TraceableMessage<TransactionRequest> request = new TraceableMessage<>();
+		request.setBusinessTaxonomyId("38923748273482");
+		request.setCorrelationId("2387429837428374");
+		request.setMessageCreationTime(LocalDateTime.now());
+		request.setProducerAit("2345");
+		request.setPayload(new TransactionRequest());
+		request.getPayload().setAccountNumber("23874923749823");
+		request.getPayload().setRequestUuid(UUID.randomUUID());
+		request.getPayload().setTransactionMetaDataJson("{}");
+		request.getPayload().setProtectAgainstOverdraft(true);
+		request.getPayload().setAuthorizeAgainstBalance(true);
+		return request;
+	}
+
+	List<OverdraftInstruction> setup_instructions(int count) {
+		ArrayList<OverdraftInstruction> list = new ArrayList<>();
+		for (int index = 1; index <= count; index++) {
+			OverdraftInstruction instruction = new OverdraftInstruction();
+			instruction.setEffectiveEnd(LocalDateTime.now().plusYears(1L));
+			instruction.setEffectiveStart(LocalDateTime.now().minusYears(1L));
+			instruction.setInstructionLifecycleStatus("EF");
+			instruction.setOverdraftAccount(new Account());
+			instruction.getOverdraftAccount().setAccountLifeCycleStatus("EF");
+			instruction.getOverdraftAccount().setAccountNumber("Account #" + index);
+			list.add(instruction);
+		}
+		return list;
+	}
+
+	private CommitReservationResponse setupCommitResponse() {
+		CommitReservationResponse response = new CommitReservationResponse();
+		response.setStatus(CommitReservationResponse.SUCCESS);
+		response.setResource(new TransactionResource());
+		return response;
+	}
+
+	private TransferAndTransactResponse setupTransferAndTransactResponse() {
+		TransferAndTransactResponse response = new TransferAndTransactResponse();
+		response.setStatus(TransferAndTransactResponse.SUCCESS);
+		response.setTransactions(new ArrayList<>());
+		return response;
+	}
+}
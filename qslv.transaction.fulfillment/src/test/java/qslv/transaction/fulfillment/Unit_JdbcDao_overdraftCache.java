@@ -0,0 +1,107 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import qslv.data.OverdraftInstruction;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_JdbcDao_overdraftCache {
+	JdbcDao jdbcDao = new JdbcDao();
+	ConfigProperties config = new ConfigProperties();
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	@Mock
+	JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		config.setOverdraftCacheMaxEntries(100);
+		config.setOverdraftCacheTtl(60000);
+		jdbcDao.setJdbcTemplate(jdbcTemplate);
+		jdbcDao.setConfig(config);
+		jdbcDao.setStageTimers(new StageTimers());
+		jdbcDao.setMeterRegistry(meterRegistry);
+	}
+
+	@Test
+	void test_getOverdraftInstructions_cacheHit() {
+		//-- Setup ------------------
+		jdbcDao.init();
+		
+		//--Prepare----------------------
+		doReturn(setup_instructions()).when(jdbcTemplate).query(anyString(), any(RowMapper.class), eq("1234"));
+
+		//--Execute-----------------------
+		List<OverdraftInstruction> first = jdbcDao.getOverdraftInstructions("1234");
+		List<OverdraftInstruction> second = jdbcDao.getOverdraftInstructions("1234");
+
+		//--Verify------------------------
+		assertEquals(1, first.size());
+		assertSame(first, second);
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), eq("1234"));
+		assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+		assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+	}
+
+	@Test
+	void test_getOverdraftInstructions_invalidate() {
+		//-- Setup ------------------
+		jdbcDao.init();
+		
+		//--Prepare----------------------
+		doReturn(setup_instructions()).when(jdbcTemplate).query(anyString(), any(RowMapper.class), anyString());
+
+		//--Execute-----------------------
+		jdbcDao.getOverdraftInstructions("1234");
+		jdbcDao.getOverdraftInstructions("5678");
+		jdbcDao.invalidateOverdraftInstructions("1234");
+		jdbcDao.getOverdraftInstructions("1234");
+		jdbcDao.getOverdraftInstructions("5678");
+		jdbcDao.invalidateAllOverdraftInstructions();
+		jdbcDao.getOverdraftInstructions("5678");
+
+		//--Verify------------------------
+		verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq("1234"));
+		verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq("5678"));
+	}
+
+	@Test
+	void test_getOverdraftInstructions_disabled() {
+		//-- Setup ------------------
+		config.setOverdraftCacheMaxEntries(0);
+		jdbcDao.init();
+		
+		//--Prepare----------------------
+		doReturn(setup_instructions()).when(jdbcTemplate).query(anyString(), any(RowMapper.class), eq("1234"));
+
+		//--Execute-----------------------
+		jdbcDao.getOverdraftInstructions("1234");
+		jdbcDao.getOverdraftInstructions("1234");
+		jdbcDao.invalidateOverdraftInstructions("1234");
+
+		//--Verify------------------------
+		verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq("1234"));
+		assertTrue(meterRegistry.getMeters().isEmpty());
+	}
+
+	List<OverdraftInstruction> setup_instructions() {
+		List<OverdraftInstruction> instructions = new ArrayList<>();
+		instructions.add(new OverdraftInstruction());
+		return instructions;
+	}
+}
@@ -3,7 +3,9 @@ package qslv.transaction.fulfillment;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -19,6 +21,7 @@ import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 import qslv.common.kafka.ResponseMessage;
 import qslv.common.kafka.TraceableMessage;
@@ -38,6 +41,7 @@ public class Unit_KafkaDao_produceResponse {
 	{
 		config.setKafkaTransactionReplyQueue("reply.queue");
 		kafkaDao.setConfig(config);
+		kafkaDao.setStageTimers(new StageTimers());
 	}
 	
 	@BeforeEach
@@ -82,6 +86,51 @@ public class Unit_KafkaDao_produceResponse {
 		assertEquals( arg.getValue(), setup_message.getPayload().getRequest().getAccountNumber());
 	}
 	
+	@Test
+	public void test_produceResponseAsync_success() {
+		
+		//-Setup---------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> setup_message = setup_message();
+		SettableListenableFuture<SendResult<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>>> sendFuture
+			= new SettableListenableFuture<>();
+		
+		//-Prepare---------------
+		doReturn(sendFuture).when(transactionKafkaTemplate).send(anyString(), anyString(), any());
+	
+		//-Execute----------------------------		
+		CompletableFuture<Void> replied = kafkaDao.produceResponseAsync(setup_message);
+		
+		//-Verify----------------------------		
+		assertFalse(replied.isDone());
+		sendFuture.set(null);
+		assertTrue(replied.isDone());
+		assertFalse(replied.isCompletedExceptionally());
+	}
+	
+	@Test
+	public void test_produceResponseAsync_resendsOnFailure() throws Exception {
+		
+		//-Setup---------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> setup_message = setup_message();
+		config.setKafkaTimeout(10);
+		SettableListenableFuture<SendResult<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>>> failed
+			= new SettableListenableFuture<>();
+		failed.setException(new TimeoutException("broker unavailable"));
+		SettableListenableFuture<SendResult<String, TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>>> succeeded
+			= new SettableListenableFuture<>();
+		succeeded.set(null);
+		
+		//-Prepare---------------
+		doReturn(failed).doReturn(succeeded).when(transactionKafkaTemplate).send(anyString(), anyString(), any());
+	
+		//-Execute----------------------------		
+		CompletableFuture<Void> replied = kafkaDao.produceResponseAsync(setup_message);
+		
+		//-Verify----------------------------		
+		replied.get(2, TimeUnit.SECONDS);
+		verify(transactionKafkaTemplate, times(2)).send(anyString(), anyString(), any());
+	}
+	
 	@Test
 	public void test_produceResponse_throwsTransient() throws InterruptedException, ExecutionException, TimeoutException {
 		
@@ -0,0 +1,165 @@
+package qslv.transaction.fulfillment;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_KafkaTransactionBatchListener {
+	KafkaTransactionBatchListener listener = new KafkaTransactionBatchListener();
+	ConfigProperties config = new ConfigProperties();
+	@Mock
+	FulfillmentController fulfillmentController;
+	@Mock
+	Acknowledgment acknowledgment;
+
+	@BeforeEach
+	public void setup() {
+		listener.setFulfillmentController(fulfillmentController);
+		listener.setConfig(config);
+		listener.setStageTimers(new StageTimers());
+		RetryTopicPipeline retryTopics = new RetryTopicPipeline();
+		retryTopics.setConfig(config);
+		listener.setRetryTopics(retryTopics);
+	}
+
+	@Test
+	void test_onTransactionBatch_allSuccess() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(3);
+
+		//--Prepare----------------------
+		doReturn(true).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(3)).processMessage(any());
+		verify(acknowledgment).acknowledge();
+		verify(acknowledgment, never()).nack(anyInt(), anyLong());
+	}
+
+	@Test
+	void test_onTransactionBatch_partialFailure() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(4);
+
+		//--Prepare----------------------
+		doReturn(true).doReturn(true).doReturn(false).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(3)).processMessage(any());
+		verify(acknowledgment).nack(eq(2), anyLong());
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	@Test
+	void test_onTransactionBatch_firstFails() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(2);
+
+		//--Prepare----------------------
+		doReturn(false).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(1)).processMessage(any());
+		verify(acknowledgment).nack(eq(0), anyLong());
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	@Test
+	void test_onTransactionBatch_asyncReply() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(2);
+		config.setKafkaAsyncReply(true);
+
+		//--Prepare----------------------
+		doReturn(CompletableFuture.completedFuture(true)).when(fulfillmentController).processMessageAsync(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(2)).processMessageAsync(any());
+		verify(fulfillmentController, never()).processMessage(any());
+		verify(acknowledgment).acknowledge();
+	}
+
+	@Test
+	void test_onTransactionBatch_asyncReplyTransactional() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(2);
+		config.setKafkaAsyncReply(true);
+		config.setKafkaTransactionalIdPrefix("fulfillment-tx-");
+
+		//--Prepare----------------------
+		doReturn(true).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(2)).processMessage(any());
+		verify(fulfillmentController, never()).processMessageAsync(any());
+		verify(acknowledgment).acknowledge();
+	}
+
+	@Test
+	void test_onTransactionBatch_asyncReplyTimeout() {
+		//-- Setup ------------------
+		List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = setup_batch(3);
+		config.setKafkaAsyncReply(true);
+		config.setKafkaTimeout(50);
+
+		//--Prepare----------------------
+		doReturn(CompletableFuture.completedFuture(true)).doReturn(new CompletableFuture<Boolean>()).doReturn(CompletableFuture.completedFuture(true))
+			.when(fulfillmentController).processMessageAsync(any());
+
+		//--Execute-----------------------
+		listener.onTransactionBatch(batch, acknowledgment);
+
+		//--Verify------------------------
+		verify(fulfillmentController, times(3)).processMessageAsync(any());
+		verify(acknowledgment).nack(eq(1), anyLong());
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	List<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> setup_batch(int size) {
+		ArrayList<ConsumerRecord<String, TraceableMessage<TransactionRequest>>> batch = new ArrayList<>();
+		for (int index = 0; index < size; index++) {
+			TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+			message.setBusinessTaxonomyId("234234234234");
+			message.setCorrelationId("328942834234j23k4");
+			message.setMessageCreationTime(LocalDateTime.now());
+			message.setProducerAit("27834");
+			message.setPayload(new TransactionRequest());
+			message.getPayload().setAccountNumber("12345634579");
+			message.getPayload().setRequestUuid(UUID.randomUUID());
+			batch.add(new ConsumerRecord<>("transaction.request.queue", 0, index, "12345634579", message));
+		}
+		return batch;
+	}
+}
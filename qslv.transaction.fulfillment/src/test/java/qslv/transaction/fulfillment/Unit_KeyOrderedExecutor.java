@@ -0,0 +1,91 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class Unit_KeyOrderedExecutor {
+	ExecutorService workers = Executors.newFixedThreadPool(8);
+	ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	KeyOrderedExecutor executor = new KeyOrderedExecutor(workers, scheduler, 10L);
+
+	@AfterEach
+	public void teardown() {
+		scheduler.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	@Test
+	void test_execute_keepsOrderPerKey() throws InterruptedException {
+		//-- Setup ------------------
+		int keys = 4;
+		int tasksPerKey = 200;
+		List<List<Integer>> results = new ArrayList<>();
+		for (int key = 0; key < keys; key++) {
+			results.add(Collections.synchronizedList(new ArrayList<>()));
+		}
+		CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+
+		//--Execute-----------------------
+		for (int task = 0; task < tasksPerKey; task++) {
+			for (int key = 0; key < keys; key++) {
+				final int k = key;
+				final int t = task;
+				executor.execute("account-" + key, () -> {
+					results.get(k).add(t);
+					done.countDown();
+					return true;
+				});
+			}
+		}
+
+		//--Verify------------------------
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (List<Integer> result : results) {
+			for (int task = 0; task < tasksPerKey; task++) {
+				assertEquals(task, result.get(task).intValue());
+			}
+		}
+		assertEquals(0, executor.activeKeys());
+	}
+
+	@Test
+	void test_execute_retryBlocksKey() throws InterruptedException {
+		//-- Setup ------------------
+		AtomicInteger attempts = new AtomicInteger();
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(2);
+
+		//--Execute-----------------------
+		executor.execute("account", () -> {
+			if (attempts.incrementAndGet() < 3) {
+				return false;
+			}
+			order.add("first");
+			done.countDown();
+			return true;
+		});
+		executor.execute("account", () -> {
+			order.add("second");
+			done.countDown();
+			return true;
+		});
+
+		//--Verify------------------------
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(3, attempts.get());
+		assertEquals("first", order.get(0));
+		assertEquals("second", order.get(1));
+	}
+}
@@ -0,0 +1,116 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_LazyRequestDeserializer {
+	private static final String TOPIC = "transaction.request";
+	private static final byte[] BODY = new byte[] { 0, 0, 0, 0, 1, 2, 3 };
+
+	@Mock
+	Deserializer<TraceableMessage<TransactionRequest>> delegate;
+	@Mock
+	Serializer<TraceableMessage<TransactionRequest>> serializer;
+	LazyRequestDeserializer deserializer;
+	TraceableMessage<TransactionRequest> message;
+	RecordHeaders headers = new RecordHeaders();
+
+	@BeforeEach
+	public void setup() {
+		deserializer = new LazyRequestDeserializer(delegate);
+		message = new TraceableMessage<>();
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("2387429837428374");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("2345");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("23874923749823");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+	}
+
+	@Test
+	void test_envelopeHeaders_decodeDeferred() {
+		//-- Setup ------------------
+		doReturn(BODY).when(serializer).serialize(anyString(), any(), any());
+		new EnvelopeHeaderSerializer<>(serializer).serialize(TOPIC, headers, message);
+		doReturn(message).when(delegate).deserialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertTrue(read instanceof LazyTraceableMessage);
+		verifyNoInteractions(delegate);
+		assertEquals(message.getProducerAit(), read.getProducerAit());
+		assertEquals(message.getCorrelationId(), read.getCorrelationId());
+		assertEquals(message.getBusinessTaxonomyId(), read.getBusinessTaxonomyId());
+		assertEquals(message.getMessageCreationTime(), read.getMessageCreationTime());
+		assertNull(read.getMessageCompletionTime());
+
+		assertSame(message.getPayload(), read.getPayload());
+		assertSame(message.getPayload(), read.getPayload());
+		verify(delegate, times(1)).deserialize(TOPIC, headers, BODY);
+	}
+
+	@Test
+	void test_envelopeHeaders_undecodablePayload() {
+		//-- Setup ------------------
+		EnvelopeHeaders.write(headers, message);
+		doThrow(new SerializationException("poison")).when(delegate).deserialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertEquals(message.getCorrelationId(), read.getCorrelationId());
+		assertNull(read.getPayload());
+		assertNull(read.getPayload());
+		verify(delegate, times(1)).deserialize(anyString(), any(), any());
+	}
+
+	@Test
+	void test_envelopeHeaders_unreadableCreationTime() {
+		//-- Setup ------------------
+		EnvelopeHeaders.write(headers, message);
+		headers.remove(EnvelopeHeaders.MESSAGE_CREATION_TIME);
+		headers.add(EnvelopeHeaders.MESSAGE_CREATION_TIME, "yesterday".getBytes());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertNull(read.getMessageCreationTime());
+		verifyNoInteractions(delegate);
+	}
+
+	@Test
+	void test_noEnvelopeHeaders_eager() {
+		//-- Setup ------------------
+		doReturn(message).when(delegate).deserialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertSame(message, read);
+		verify(delegate).deserialize(TOPIC, headers, BODY);
+	}
+}
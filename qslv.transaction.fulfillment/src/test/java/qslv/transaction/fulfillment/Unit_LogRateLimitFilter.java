@@ -0,0 +1,128 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class Unit_LogRateLimitFilter {
+	private static final long SECOND = 1000000000L;
+
+	@Test
+	void test_bucket_burstThenRate() {
+		//-- Setup ------------------
+		LogRateLimitFilter.Bucket bucket = new LogRateLimitFilter.Bucket(5);
+		long now = System.nanoTime();
+		int passed = 0;
+
+		//--Execute-----------------------
+		for (int i = 0; i < 20; i++) {
+			passed += bucket.take(now, 10, 5, 0) ? 1 : 0;
+		}
+
+		//--Verify------------------------
+		assertEquals(5, passed);
+		assertFalse(bucket.take(now, 10, 5, 0));
+		assertTrue(bucket.take(now + SECOND / 10, 10, 5, 0));
+	}
+
+	@Test
+	void test_bucket_samplesPastLimit() {
+		//-- Setup ------------------
+		LogRateLimitFilter.Bucket bucket = new LogRateLimitFilter.Bucket(1);
+		long now = System.nanoTime();
+		int passed = 0;
+
+		//--Execute-----------------------
+		for (int i = 0; i < 31; i++) {
+			passed += bucket.take(now, 1, 1, 10) ? 1 : 0;
+		}
+
+		//--Verify------------------------
+		assertEquals(1 + 3, passed);
+	}
+
+	@Test
+	void test_decide_levels() {
+		//-- Setup ------------------
+		LoggerContext context = new LoggerContext();
+		Logger qslv = context.getLogger("qslv.transaction.fulfillment.Test");
+		qslv.setLevel(Level.INFO);
+		Logger other = context.getLogger("org.other.Test");
+		LogRateLimitFilter filter = new LogRateLimitFilter();
+		filter.setRate(1);
+		filter.setBurst(1);
+		filter.setSample(0);
+
+		//--Execute / Verify--------------
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.DEBUG, "below level", null, null));
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.WARN, "first", null, null));
+		assertEquals(FilterReply.DENY, filter.decide(null, qslv, Level.WARN, "second", null, null));
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.ERROR, "never limited", null, null));
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.WARN, "other prefix", null, null));
+	}
+
+	@Test
+	void test_payloadDebug_tracedCorrelationId() {
+		//-- Setup ------------------
+		LoggerContext context = new LoggerContext();
+		Logger qslv = context.getLogger("qslv.transaction.fulfillment.Test");
+		PayloadDebugFilter filter = new PayloadDebugFilter();
+		PayloadDebugFilter.trace("traced-id");
+
+		try {
+			//--Execute / Verify--------------
+			MDC.put(PayloadDebugFilter.MDC_KEY, "traced-id");
+			assertEquals(FilterReply.ACCEPT, filter.decide(null, qslv, Level.DEBUG, "dump", null, null));
+			assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.TRACE, "trace", null, null));
+			MDC.put(PayloadDebugFilter.MDC_KEY, "other-id");
+			assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.DEBUG, "dump", null, null));
+		} finally {
+			MDC.remove(PayloadDebugFilter.MDC_KEY);
+			PayloadDebugFilter.untrace("traced-id");
+		}
+	}
+
+	@Test
+	void test_payloadDebug_tracedIdsBounded() {
+		try {
+			//--Execute-----------------------
+			for (int index = 0; index < PayloadDebugFilter.MAX_TRACED; index++) {
+				assertTrue(PayloadDebugFilter.trace("id-" + index));
+			}
+
+			//--Verify------------------------
+			assertFalse(PayloadDebugFilter.trace("one-too-many"));
+			assertTrue(PayloadDebugFilter.trace("id-0"));
+			assertEquals(PayloadDebugFilter.MAX_TRACED, PayloadDebugFilter.traced().size());
+		} finally {
+			for (int index = 0; index < PayloadDebugFilter.MAX_TRACED; index++) {
+				PayloadDebugFilter.untrace("id-" + index);
+			}
+		}
+	}
+
+	@Test
+	void test_payloadDebug_tracedIdExpires() {
+		//-- Setup ------------------
+		LoggerContext context = new LoggerContext();
+		Logger qslv = context.getLogger("qslv.transaction.fulfillment.Test");
+		PayloadDebugFilter filter = new PayloadDebugFilter();
+		PayloadDebugFilter.trace("expired-id", System.nanoTime() - PayloadDebugFilter.TTL - 1L);
+
+		try {
+			//--Execute / Verify--------------
+			MDC.put(PayloadDebugFilter.MDC_KEY, "expired-id");
+			assertEquals(FilterReply.NEUTRAL, filter.decide(null, qslv, Level.DEBUG, "dump", null, null));
+			assertFalse(PayloadDebugFilter.traced().contains("expired-id"));
+		} finally {
+			MDC.remove(PayloadDebugFilter.MDC_KEY);
+			PayloadDebugFilter.untrace("expired-id");
+		}
+	}
+}
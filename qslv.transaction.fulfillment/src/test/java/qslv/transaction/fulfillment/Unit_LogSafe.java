@@ -0,0 +1,96 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.data.Account;
+import qslv.data.OverdraftInstruction;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+class Unit_LogSafe {
+
+	@Test
+	void test_mask() {
+		//--Verify------------------------
+		assertEquals("*************9374", LogSafe.mask("27834728934729374"));
+		assertEquals("**34", LogSafe.mask("1234"));
+		assertEquals("", LogSafe.mask(""));
+		assertNull(LogSafe.mask(null));
+	}
+
+	@Test
+	void test_payload_redacted() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+
+		//--Execute-----------------------
+		String rendered = LogSafe.payload(message).toString();
+
+		//--Verify------------------------
+		assertTrue(rendered.contains("2387429837428374"));
+		assertTrue(rendered.contains(message.getPayload().getRequestUuid().toString()));
+		assertTrue(rendered.contains("**********9823"));
+		assertFalse(rendered.contains("23874923749823"));
+		assertFalse(rendered.contains("27834728934729374"));
+		assertFalse(rendered.contains("merchant"));
+	}
+
+	@Test
+	void test_payload_reply() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		reply.getPayload().setResponse(new TransactionResponse(TransactionResponse.SUCCESS, new TransactionResource()));
+
+		//--Execute-----------------------
+		String rendered = LogSafe.payload(reply).toString();
+
+		//--Verify------------------------
+		assertTrue(rendered.contains("ResponseMessage[status="));
+		assertTrue(rendered.contains("response.status=" + TransactionResponse.SUCCESS));
+		assertFalse(rendered.contains("23874923749823"));
+	}
+
+	@Test
+	void test_instruction_redacted() {
+		//-- Setup ------------------
+		OverdraftInstruction instruction = new OverdraftInstruction();
+		instruction.setOverdraftAccount(new Account());
+		instruction.getOverdraftAccount().setAccountNumber("23874923749823");
+		instruction.getOverdraftAccount().setAccountLifeCycleStatus("EF");
+		instruction.setInstructionLifecycleStatus("EF");
+		instruction.setEffectiveStart(LocalDateTime.now());
+
+		//--Execute-----------------------
+		String rendered = LogSafe.instruction(instruction).toString();
+
+		//--Verify------------------------
+		assertTrue(rendered.contains("**********9823"));
+		assertFalse(rendered.contains("23874923749823"));
+		assertEquals("**********9823", LogSafe.account("23874923749823").toString());
+	}
+
+	TraceableMessage<TransactionRequest> setup_message() {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("2387429837428374");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("2345");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("23874923749823");
+		message.getPayload().setDebitCardNumber("27834728934729374");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{\"merchant\":\"acme\"}");
+		message.getPayload().setTransactionAmount(-2300L);
+		return message;
+	}
+}
@@ -0,0 +1,84 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class Unit_MessageAgeMetrics {
+
+	MessageAgeMetrics metrics = new MessageAgeMetrics();
+	ConfigProperties config = new ConfigProperties();
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	public void setup() {
+		config.setSloMessageAge(1000);
+		config.setSloTarget(99.0);
+		config.setSloWindow(10000);
+		metrics.setConfig(config);
+		metrics.setMeterRegistry(registry);
+		metrics.init();
+	}
+
+	@Test
+	void test_replied_recordsQueueProcessingAge() {
+		//-- Setup ------------------
+		LocalDateTime created = LocalDateTime.now().minusSeconds(2L);
+
+		//--Execute-----------------------
+		long entered = metrics.received(created);
+		metrics.replied(created, entered);
+
+		//--Verify------------------------
+		assertEquals(1L, registry.find("qslv.fulfillment.queue.time").timer().count());
+		assertEquals(1L, registry.find("qslv.fulfillment.processing.time").timer().count());
+		assertEquals(1L, registry.find("qslv.fulfillment.age").timer().count());
+		assertTrue(registry.find("qslv.fulfillment.age").timer().totalTime(TimeUnit.MILLISECONDS) >= 2000.0);
+		// the only reply breached the SLO: 100% bad over a 1% budget
+		assertEquals(100.0, registry.find("qslv.fulfillment.slo.burn.rate").gauge().value(), 0.001);
+	}
+
+	@Test
+	void test_burnRate_onBudget() {
+		//-- Setup ------------------
+		long now = 1000000L;
+
+		//--Execute-----------------------
+		for (int i = 0; i < 99; i++) {
+			metrics.count(now, false);
+		}
+		metrics.count(now, true);
+
+		//--Verify------------------------
+		assertEquals(1.0, metrics.burnRate(now), 0.001);
+	}
+
+	@Test
+	void test_burnRate_oldBucketsExpire() {
+		//-- Setup ------------------
+		long now = 1000000L;
+		metrics.count(now, true);
+
+		//--Execute-----------------------
+		metrics.count(now + 11000L, false);
+
+		//--Verify------------------------
+		assertEquals(0.0, metrics.burnRate(now + 11000L), 0.001);
+		assertEquals(0.0, metrics.burnRate(now + 30000L), 0.001);
+	}
+
+	@Test
+	void test_notInitialized_noop() {
+		//-- Setup ------------------
+		MessageAgeMetrics uninitialized = new MessageAgeMetrics();
+
+		//--Execute / Verify--------------
+		assertDoesNotThrow(() -> uninitialized.replied(LocalDateTime.now(), uninitialized.received(LocalDateTime.now())));
+	}
+}
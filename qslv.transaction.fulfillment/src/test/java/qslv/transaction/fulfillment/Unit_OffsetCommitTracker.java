@@ -0,0 +1,94 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_OffsetCommitTracker {
+	OffsetCommitTracker tracker = new OffsetCommitTracker();
+	TopicPartition partition = new TopicPartition("transaction.request.queue", 0);
+	@Mock
+	Acknowledgment ack10;
+	@Mock
+	Acknowledgment ack11;
+	@Mock
+	Acknowledgment ack12;
+
+	@BeforeEach
+	public void setup() {
+		tracker.setStageTimers(new StageTimers());
+	}
+
+	@Test
+	void test_complete_inOrder() {
+		//--Prepare----------------------
+		tracker.register(partition, 10L, ack10);
+		tracker.register(partition, 11L, ack11);
+
+		//--Execute-----------------------
+		assertEquals(10L, tracker.complete(partition, 10L));
+		assertEquals(11L, tracker.complete(partition, 11L));
+
+		//--Verify------------------------
+		verify(ack10).acknowledge();
+		verify(ack11).acknowledge();
+		assertEquals(0, tracker.pending(partition));
+	}
+
+	@Test
+	void test_complete_outOfOrder() {
+		//--Prepare----------------------
+		tracker.register(partition, 10L, ack10);
+		tracker.register(partition, 11L, ack11);
+		tracker.register(partition, 12L, ack12);
+
+		//--Execute-----------------------
+		assertEquals(-1L, tracker.complete(partition, 12L));
+		assertEquals(-1L, tracker.complete(partition, 11L));
+		assertEquals(12L, tracker.complete(partition, 10L));
+
+		//--Verify------------------------
+		verify(ack10, never()).acknowledge();
+		verify(ack11, never()).acknowledge();
+		verify(ack12).acknowledge();
+		assertEquals(0, tracker.pending(partition));
+	}
+
+	@Test
+	void test_complete_afterRevoke() {
+		//--Prepare----------------------
+		tracker.register(partition, 10L, ack10);
+		tracker.revoke(Collections.singletonList(partition));
+
+		//--Execute-----------------------
+		assertEquals(-1L, tracker.complete(partition, 10L));
+
+		//--Verify------------------------
+		verify(ack10, never()).acknowledge();
+	}
+
+	@Test
+	void test_isPending_afterRevokeAndRedelivery() {
+		//--Prepare----------------------
+		tracker.register(partition, 10L, ack10);
+		assertTrue(tracker.isPending(partition, 10L, ack10));
+		tracker.revoke(Collections.singletonList(partition));
+
+		//--Execute-----------------------
+		tracker.register(partition, 10L, ack11);
+
+		//--Verify------------------------
+		assertFalse(tracker.isPending(partition, 10L, ack10));
+		assertTrue(tracker.isPending(partition, 10L, ack11));
+	}
+}
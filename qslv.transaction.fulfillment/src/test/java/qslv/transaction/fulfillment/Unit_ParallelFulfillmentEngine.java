@@ -0,0 +1,256 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_ParallelFulfillmentEngine {
+	ParallelFulfillmentEngine engine = new ParallelFulfillmentEngine();
+	ConfigProperties config = new ConfigProperties();
+	OffsetCommitTracker offsetTracker = new OffsetCommitTracker();
+	RetryTopicPipeline retryTopics = new RetryTopicPipeline();
+	TopicPartition partition = new TopicPartition("transaction.request.queue", 0);
+	@Mock
+	FulfillmentController fulfillmentController;
+	@Mock
+	KafkaProducerDao kafkaDao;
+	@Mock
+	Acknowledgment ack10;
+	@Mock
+	Acknowledgment ack11;
+	@Mock
+	Acknowledgment ack12;
+	@Mock
+	KafkaListenerEndpointRegistry listenerRegistry;
+	@Mock
+	MessageListenerContainer container;
+
+	@BeforeEach
+	public void setup() {
+		config.setKafkaTransactionRequestQueue("transaction.request.queue");
+		config.setKafkaParallelWorkers(2);
+		config.setKafkaParallelMaxInFlight(4);
+		config.setKafkaTimeout(10);
+		offsetTracker.setStageTimers(new StageTimers());
+		retryTopics.setConfig(config);
+		retryTopics.setKafkaDao(kafkaDao);
+		engine.setConfig(config);
+		engine.setFulfillmentController(fulfillmentController);
+		engine.setOffsetTracker(offsetTracker);
+		engine.setRetryTopics(retryTopics);
+		engine.setListenerRegistry(listenerRegistry);
+	}
+
+	@AfterEach
+	public void teardown() {
+		engine.stop();
+	}
+
+	@Test
+	void test_submit_keepsOrderPerKey() {
+		//-- Setup ------------------
+		engine.start();
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		when(fulfillmentController.processMessage(any())).thenAnswer(invocation -> {
+			TraceableMessage<?> message = invocation.getArgument(0);
+			if ("10".equals(message.getCorrelationId())) {
+				Thread.sleep(50L);
+			}
+			order.add(message.getCorrelationId());
+			return true;
+		});
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account"), ack10);
+		engine.submit(record(11L, "account"), ack11);
+		engine.submit(record(12L, "account"), ack12);
+
+		//--Verify------------------------
+		verify(ack12, timeout(5000)).acknowledge();
+		assertEquals(Arrays.asList("10", "11", "12"), order);
+	}
+
+	@Test
+	void test_submit_watermarkWaitsForLowestOffset() throws InterruptedException {
+		//-- Setup ------------------
+		engine.start();
+		CountDownLatch slow = new CountDownLatch(1);
+		when(fulfillmentController.processMessage(any())).thenAnswer(invocation -> {
+			TraceableMessage<?> message = invocation.getArgument(0);
+			if ("10".equals(message.getCorrelationId())) {
+				slow.await(5, TimeUnit.SECONDS);
+			}
+			return true;
+		});
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account-1"), ack10);
+		engine.submit(record(11L, "account-2"), ack11);
+
+		//--Verify------------------------
+		verify(fulfillmentController, timeout(5000).times(2)).processMessage(any());
+		verify(ack11, after(100).never()).acknowledge();
+		slow.countDown();
+		verify(ack11, timeout(5000)).acknowledge();
+		verify(ack10, never()).acknowledge();
+		awaitInFlight(0);
+	}
+
+	@Test
+	void test_submit_pausesAtMaxInFlight() throws InterruptedException {
+		//-- Setup ------------------
+		config.setKafkaParallelMaxInFlight(2);
+		engine.start();
+		when(listenerRegistry.getListenerContainer(AdaptiveConcurrencyLimiter.LISTENER_ID)).thenReturn(container);
+		CountDownLatch blocked = new CountDownLatch(1);
+		when(fulfillmentController.processMessage(any())).thenAnswer(invocation -> {
+			blocked.await(5, TimeUnit.SECONDS);
+			return true;
+		});
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account-1"), ack10);
+		engine.submit(record(11L, "account-2"), ack11);
+		engine.submit(record(12L, "account-3"), ack12);
+
+		//--Verify------------------------
+		verify(container, atLeastOnce()).pause();
+		assertTrue(engine.isPaused());
+		assertEquals(3, engine.getInFlight());
+		blocked.countDown();
+		verify(container, timeout(5000)).resume();
+		verify(ack12, timeout(5000)).acknowledge();
+		awaitInFlight(0);
+		assertFalse(engine.isPaused());
+	}
+
+	@Test
+	void test_submit_revokedPartitionLeavesLane() throws InterruptedException {
+		//-- Setup ------------------
+		engine.start();
+		when(fulfillmentController.processMessage(any())).thenReturn(false);
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account"), ack10);
+		verify(fulfillmentController, timeout(5000).atLeast(2)).processMessage(any());
+		offsetTracker.onPartitionsRevoked(Collections.singletonList(partition));
+
+		//--Verify------------------------
+		awaitInFlight(0);
+		int attempts = mockingDetails(fulfillmentController).getInvocations().size();
+		Thread.sleep(100L);
+		assertEquals(attempts, mockingDetails(fulfillmentController).getInvocations().size());
+		verify(ack10, never()).acknowledge();
+	}
+
+	@Test
+	void test_submit_failedReplyReleasesPermit() throws InterruptedException {
+		//-- Setup ------------------
+		config.setKafkaAsyncReply(true);
+		engine.start();
+		CompletableFuture<Boolean> reply = new CompletableFuture<>();
+		when(fulfillmentController.processMessageAsync(any())).thenReturn(reply);
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account"), ack10);
+		verify(fulfillmentController, timeout(5000)).processMessageAsync(any());
+		reply.completeExceptionally(new IllegalStateException("producer closed"));
+
+		//--Verify------------------------
+		awaitInFlight(0);
+		verify(ack10, never()).acknowledge();
+		assertEquals(1, offsetTracker.pending(partition));
+	}
+
+	@Test
+	void test_submit_recoverableRetriedInLane() {
+		//-- Setup ------------------
+		engine.start();
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = record(10L, "account");
+		when(fulfillmentController.processMessage(any())).thenReturn(false, false, true);
+
+		//--Execute-----------------------
+		engine.submit(record, ack10);
+
+		//--Verify------------------------
+		verify(ack10, timeout(5000)).acknowledge();
+		verify(fulfillmentController, times(3)).processMessage(any());
+		verify(kafkaDao, never()).produceRetry(anyString(), any(), any(), anyInt(), anyLong());
+		assertEquals(0, offsetTracker.pending(partition));
+	}
+
+	@Test
+	void test_submit_recoverableForwardedToRetryTopic() {
+		//-- Setup ------------------
+		config.setKafkaRetryDelays(Arrays.asList(1000L, 10000L));
+		engine.start();
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = record(10L, "account");
+		when(fulfillmentController.processMessage(any())).thenReturn(false);
+
+		//--Execute-----------------------
+		engine.submit(record, ack10);
+
+		//--Verify------------------------
+		verify(ack10, timeout(5000)).acknowledge();
+		verify(fulfillmentController, times(1)).processMessage(any());
+		verify(kafkaDao).produceRetry(eq("transaction.request.queue-retry-1000"), eq("account"), any(), eq(1), anyLong());
+		assertEquals(0, offsetTracker.pending(partition));
+	}
+
+	@Test
+	void test_submit_nonBlockingLaneWaitsForReply() {
+		//-- Setup ------------------
+		config.setReactiveRest(true);
+		engine.start();
+		CompletableFuture<Boolean> first = new CompletableFuture<>();
+		when(fulfillmentController.processMessageNonBlocking(any())).thenReturn(first, CompletableFuture.completedFuture(true));
+
+		//--Execute-----------------------
+		engine.submit(record(10L, "account"), ack10);
+		engine.submit(record(11L, "account"), ack11);
+
+		//--Verify------------------------
+		verify(fulfillmentController, after(200).times(1)).processMessageNonBlocking(any());
+		first.complete(true);
+		verify(ack11, timeout(5000)).acknowledge();
+		verify(fulfillmentController, times(2)).processMessageNonBlocking(any());
+		assertEquals(0, offsetTracker.pending(partition));
+	}
+
+	void awaitInFlight(int expected) throws InterruptedException {
+		for (int wait = 0; wait < 500 && engine.getInFlight() != expected; wait++) {
+			Thread.sleep(10L);
+		}
+		assertEquals(expected, engine.getInFlight());
+	}
+
+	ConsumerRecord<String, TraceableMessage<TransactionRequest>> record(long offset, String key) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setCorrelationId(String.valueOf(offset));
+		return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, key, message);
+	}
+}
@@ -0,0 +1,122 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+class Unit_ProcessedRequestIndex {
+
+	ConfigProperties config = new ConfigProperties();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void test_get_afterPut() throws IOException {
+		//-- Setup ------------------
+		ProcessedRequestIndex index = setup_index(16);
+		UUID requestUuid = UUID.randomUUID();
+		TransactionResponse reply = setup_reply();
+
+		//--Execute-----------------------
+		index.put(requestUuid, reply);
+
+		//--Verify------------------------
+		assertSame(reply, index.get(requestUuid));
+		assertSame(reply, index.get(new UUID(requestUuid.getMostSignificantBits(), requestUuid.getLeastSignificantBits())));
+		assertNull(index.get(UUID.randomUUID()));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void test_put_replacesDuplicate() throws IOException {
+		//-- Setup ------------------
+		ProcessedRequestIndex index = setup_index(16);
+		UUID requestUuid = UUID.randomUUID();
+		TransactionResponse reply = setup_reply();
+
+		//--Execute-----------------------
+		index.put(requestUuid, setup_reply());
+		index.put(requestUuid, reply);
+
+		//--Verify------------------------
+		assertSame(reply, index.get(requestUuid));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void test_put_agesOutAfterTwoGenerations() throws IOException {
+		//-- Setup ------------------
+		ProcessedRequestIndex index = setup_index(100);
+		UUID[] requests = new UUID[250];
+
+		//--Execute-----------------------
+		for (int count = 0; count < requests.length; count++) {
+			requests[count] = UUID.randomUUID();
+			index.put(requests[count], setup_reply());
+		}
+
+		//--Verify------------------------
+		assertNull(index.get(requests[0]));
+		assertNull(index.get(requests[99]));
+		assertNotNull(index.get(requests[100]));
+		assertNotNull(index.get(requests[249]));
+		assertEquals(150, index.size());
+	}
+
+	@Test
+	void test_init_reloadsSegments() throws IOException {
+		//-- Setup ------------------
+		config.setProcessedIndexFile(directory.resolve("processed").toString());
+		config.setProcessedIndexFileSize(64 * 1024);
+		ProcessedRequestIndex index = setup_index(10);
+		UUID[] requests = new UUID[25];
+		for (int count = 0; count < requests.length; count++) {
+			requests[count] = UUID.randomUUID();
+			index.put(requests[count], setup_reply());
+		}
+		index.close();
+
+		//--Execute-----------------------
+		ProcessedRequestIndex reloaded = setup_index(10);
+
+		//--Verify------------------------
+		assertEquals(15, reloaded.size());
+		assertNull(reloaded.get(requests[9]));
+		TransactionResponse reply = reloaded.get(requests[24]);
+		assertNotNull(reply);
+		assertEquals(TransactionResponse.SUCCESS, reply.getStatus());
+		assertEquals("12345634579", reply.getTransactions().get(0).getAccountNumber());
+	}
+
+	@Test
+	void test_isEnabled() {
+		config.setProcessedIndexCapacity(0);
+		ProcessedRequestIndex index = new ProcessedRequestIndex();
+		index.setConfig(config);
+		assertFalse(index.isEnabled());
+	}
+
+	ProcessedRequestIndex setup_index(int capacity) throws IOException {
+		config.setProcessedIndexCapacity(capacity);
+		ProcessedRequestIndex index = new ProcessedRequestIndex();
+		index.setConfig(config);
+		index.init();
+		return index;
+	}
+
+	TransactionResponse setup_reply() {
+		TransactionResource tx = new TransactionResource();
+		tx.setAccountNumber("12345634579");
+		tx.setTransactionUuid(UUID.randomUUID());
+		return new TransactionResponse(TransactionResponse.SUCCESS, tx);
+	}
+}
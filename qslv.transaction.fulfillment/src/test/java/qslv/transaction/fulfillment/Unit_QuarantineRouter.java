@@ -0,0 +1,218 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_QuarantineRouter {
+	private static final String TOPIC = "transaction.request.queue";
+	private static final byte[] BODY = new byte[] { 0, 0, 0, 0, 1, 2, 3 };
+
+	@Mock
+	Deserializer<TraceableMessage<TransactionRequest>> delegate;
+	@Mock
+	KafkaProducerDao kafkaDao;
+	QuarantineRouter router = new QuarantineRouter();
+	ConfigProperties config = new ConfigProperties();
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	RecordHeaders headers = new RecordHeaders();
+
+	@BeforeEach
+	public void setup() {
+		config.setKafkaTransactionRequestQueue(TOPIC);
+		router.setConfig(config);
+		router.setKafkaDao(kafkaDao);
+		router.setMeterRegistry(registry);
+	}
+
+	@Test
+	void test_deserialize_decodable() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		doReturn(message).when(delegate).deserialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = new PoisonPillDeserializer(delegate).deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertSame(message, read);
+	}
+
+	@Test
+	void test_deserialize_poisonPill() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> envelope = new TraceableMessage<>();
+		envelope.setCorrelationId("2387429837428374");
+		envelope.setBusinessTaxonomyId("234234234234");
+		envelope.setMessageCreationTime(LocalDateTime.now());
+		EnvelopeHeaders.write(headers, envelope);
+		doThrow(new SerializationException("poison")).when(delegate).deserialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = new PoisonPillDeserializer(delegate).deserialize(TOPIC, headers, BODY);
+
+		//--Verify------------------------
+		assertTrue(read instanceof UndecodableMessage);
+		assertSame(BODY, ((UndecodableMessage) read).rawValue());
+		assertTrue(((UndecodableMessage) read).failure().contains("poison"));
+		assertEquals(envelope.getCorrelationId(), read.getCorrelationId());
+		assertEquals(envelope.getMessageCreationTime(), read.getMessageCreationTime());
+		assertNull(read.getPayload());
+	}
+
+	@Test
+	void test_route_withKey() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = poisonPill("1234");
+
+		//--Execute-----------------------
+		assertTrue(QuarantineRouter.isPoisonPill(record));
+		boolean routed = router.route(record);
+
+		//--Verify------------------------
+		assertTrue(routed);
+		verify(kafkaDao).produceQuarantine(eq(TOPIC + "-quarantine"), same(record), same(BODY), contains("poison"));
+		verify(kafkaDao).produceResponse(eq("1234"), argThat(reply -> reply.getPayload().getStatus() == ResponseMessage.MALFORMED_MESSAGE
+				&& reply.getPayload().getRequest() == null && "2387429837428374".equals(reply.getCorrelationId())));
+		assertEquals(1.0, registry.get("qslv.fulfillment.quarantined").counter().count());
+	}
+
+	@Test
+	void test_route_withoutKey() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = poisonPill(null);
+
+		//--Execute-----------------------
+		boolean routed = router.route(record);
+
+		//--Verify------------------------
+		assertTrue(routed);
+		verify(kafkaDao).produceQuarantine(eq(TOPIC + "-quarantine"), same(record), same(BODY), anyString());
+		verify(kafkaDao, never()).produceResponse(anyString(), any());
+	}
+
+	@Test
+	void test_route_quarantineUnavailable() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = poisonPill("1234");
+		doThrow(new TransientDataAccessResourceException("down")).when(kafkaDao).produceQuarantine(anyString(), any(), any(), anyString());
+
+		//--Execute-----------------------
+		boolean routed = router.route(record);
+
+		//--Verify------------------------
+		assertFalse(routed);
+		verify(kafkaDao, never()).produceResponse(anyString(), any());
+	}
+
+	@Test
+	void test_route_lazyDecodeFailure() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = undecodableBody("1234");
+		LazyTraceableMessage message = (LazyTraceableMessage) record.value();
+
+		//--Prepare----------------------
+		assertFalse(QuarantineRouter.isUndecodable(message));
+		assertNull(message.getPayload());
+		assertTrue(QuarantineRouter.isUndecodable(message));
+
+		//--Execute-----------------------
+		boolean routed = router.route(message);
+
+		//--Verify------------------------
+		assertTrue(routed);
+		verify(kafkaDao).produceQuarantine(eq(TOPIC + "-quarantine"), same(record), same(BODY), contains("poison"));
+		verify(kafkaDao).produceResponse(eq("1234"), argThat(reply -> reply.getPayload().getStatus() == ResponseMessage.MALFORMED_MESSAGE
+				&& reply.getPayload().getRequest() == null && "2387429837428374".equals(reply.getCorrelationId())));
+		assertEquals(1.0, registry.get("qslv.fulfillment.quarantined").counter().count());
+	}
+
+	@Test
+	void test_processMessage_lazyDecodeFailureQuarantined() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = undecodableBody("1234");
+		FulfillmentController controller = new FulfillmentController();
+		StaleMessageFilter staleFilter = new StaleMessageFilter();
+		staleFilter.setConfig(config);
+		controller.setConfig(config);
+		controller.setStageTimers(new StageTimers());
+		controller.setAgeMetrics(new MessageAgeMetrics());
+		controller.setStaleFilter(staleFilter);
+		controller.setKafkaDao(kafkaDao);
+		controller.setQuarantine(router);
+
+		//--Execute-----------------------
+		boolean done = controller.processMessage(record.value());
+
+		//--Verify------------------------
+		assertTrue(done);
+		verify(kafkaDao).produceQuarantine(eq(TOPIC + "-quarantine"), same(record), same(BODY), contains("poison"));
+		verify(kafkaDao).produceResponse(eq("1234"), any());
+		verify(kafkaDao, never()).produceResponse(any());
+	}
+
+	@Test
+	void test_processMessage_lazyDecodeFailureQuarantineUnavailable() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = undecodableBody("1234");
+		// decoded, and failed, on the worker thread
+		assertNull(record.value().getPayload());
+		doThrow(new TransientDataAccessResourceException("down")).when(kafkaDao).produceQuarantine(anyString(), any(), any(), anyString());
+		RetryTopicPipeline retryTopics = new RetryTopicPipeline();
+		config.setKafkaRetryDelays(Arrays.asList(1000L));
+		retryTopics.setConfig(config);
+		retryTopics.setKafkaDao(kafkaDao);
+
+		//--Execute-----------------------
+		assertFalse(router.route((LazyTraceableMessage) record.value()));
+		boolean forwarded = retryTopics.forward(record, 1);
+
+		//--Verify------------------------
+		assertFalse(forwarded);
+		verify(kafkaDao, never()).produceRetry(anyString(), any(), any(), anyInt(), anyLong());
+	}
+
+	@Test
+	void test_isPoisonPill_decoded() {
+		assertFalse(QuarantineRouter.isPoisonPill(new ConsumerRecord<>(TOPIC, 0, 17L, "1234", new TraceableMessage<>())));
+	}
+
+	private ConsumerRecord<String, TraceableMessage<TransactionRequest>> undecodableBody(String key) {
+		LazyTraceableMessage message = new LazyTraceableMessage(BODY, () -> {
+			throw new SerializationException("poison");
+		});
+		message.setProducerAit("234234");
+		message.setCorrelationId("2387429837428374");
+		message.setBusinessTaxonomyId("234234234234");
+		message.setMessageCreationTime(LocalDateTime.now());
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = new ConsumerRecord<>(TOPIC, 3, 17L, key, message);
+		QuarantineRouter.track(record);
+		return record;
+	}
+
+	private ConsumerRecord<String, TraceableMessage<TransactionRequest>> poisonPill(String key) {
+		UndecodableMessage message = new UndecodableMessage(BODY, "SerializationException: poison");
+		message.setCorrelationId("2387429837428374");
+		return new ConsumerRecord<>(TOPIC, 3, 17L, key, message);
+	}
+}
@@ -0,0 +1,206 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.TimedResponse;
+import qslv.common.TraceableRequest;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+import reactor.core.publisher.Mono;
+
+class Unit_ReactiveTransactionDao {
+	ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+	ConfigProperties config = new ConfigProperties();
+	ReactiveTransactionDao reactiveDao = new ReactiveTransactionDao();
+	CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+	List<ClientRequest> requests = new ArrayList<>();
+
+	{
+		config.setAitid("723842");
+		config.setPostTransactionUrl("http://localhost:9091/Transaction");
+		config.setRestAttempts(3);
+		config.setRestBackoffDelay(1);
+		config.setRestBackoffDelayMax(5);
+		config.setRestTimeout(1000);
+		reactiveDao.setConfig(config);
+		reactiveDao.setCircuitBreakerRegistry(circuitBreakerRegistry);
+		reactiveDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
+		reactiveDao.setStageTimers(new StageTimers());
+	}
+
+	@Test
+	void test_recordTransaction_success() throws Exception {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		String body = mapper.writeValueAsString(new TimedResponse<>(123456L, setup_response()));
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(0), HttpStatus.CREATED, body);
+
+		//-Execute----------------
+		TransactionResponse callresult = reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+
+		//-Verify----------------
+		assertEquals(TransactionResponse.SUCCESS, callresult.getStatus());
+		assertEquals("12345679", callresult.getTransactions().get(0).getAccountNumber());
+		assertEquals(1, requests.size());
+		HttpHeaders headers = requests.get(0).headers();
+		assertEquals("723842", headers.getFirst(TraceableRequest.AIT_ID));
+		assertEquals(message.getCorrelationId(), headers.getFirst(TraceableRequest.CORRELATION_ID));
+		assertEquals(message.getBusinessTaxonomyId(), headers.getFirst(TraceableRequest.BUSINESS_TAXONOMY_ID));
+		assertNotNull(headers.getFirst(TraceableRequest.ACCEPT_VERSION));
+	}
+
+	@Test
+	void test_recordTransaction_failsTwice() throws Exception {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		String body = mapper.writeValueAsString(new TimedResponse<>(123456L, setup_response()));
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(2), HttpStatus.CREATED, body);
+
+		//-Execute----------------
+		TransactionResponse callresult = reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+
+		//-Verify----------------
+		assertEquals(TransactionResponse.SUCCESS, callresult.getStatus());
+		assertEquals(3, requests.size());
+	}
+
+	@Test
+	void test_recordTransaction_failsThrice() {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(3), HttpStatus.CREATED, "{}");
+
+		//-Execute----------------
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+			reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+		});
+
+		//-Verify----------------
+		assertTrue(ex.getCause() instanceof TransientDataAccessResourceException);
+		assertEquals(3, requests.size());
+	}
+
+	@Test
+	void test_recordTransaction_serverErrorRetried() throws Exception {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		String body = mapper.writeValueAsString(new TimedResponse<>(234567L, setup_response()));
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(0), HttpStatus.INTERNAL_SERVER_ERROR, body);
+
+		//-Execute----------------
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+			reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+		});
+
+		//-Verify----------------
+		assertTrue(ex.getCause() instanceof HttpServerErrorException);
+		assertEquals(3, requests.size());
+		assertEquals(3, circuitBreakerRegistry.circuitBreaker(config.getPostTransactionUrl()).getMetrics().getNumberOfFailedCalls());
+	}
+
+	@Test
+	void test_recordTransaction_unexpectedStatusNotRetried() throws Exception {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		String body = mapper.writeValueAsString(new TimedResponse<>(234567L, setup_response()));
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(0), HttpStatus.OK, body);
+
+		//-Execute----------------
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+			reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+		});
+
+		//-Verify----------------
+		assertTrue(ex.getCause() instanceof NonTransientDataAccessResourceException);
+		assertEquals(1, requests.size());
+	}
+
+	@Test
+	void test_recordTransaction_breakerOpen() {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+
+		//-Prepare----------------
+		setup_webClient(new AtomicInteger(0), HttpStatus.CREATED, "{}");
+		circuitBreakerRegistry.circuitBreaker(config.getPostTransactionUrl()).transitionToOpenState();
+
+		//-Execute----------------
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> {
+			reactiveDao.recordTransaction(message, message.getPayload()).get(5, TimeUnit.SECONDS);
+		});
+
+		//-Verify----------------
+		assertTrue(ex.getCause() instanceof TransientDataAccessResourceException);
+		assertTrue(ex.getCause().getCause() instanceof CallNotPermittedException);
+		assertEquals(0, requests.size());
+	}
+
+	void setup_webClient(AtomicInteger failures, HttpStatus status, String body) {
+		reactiveDao.setTransactionWebClient(WebClient.builder().exchangeFunction(request -> {
+			requests.add(request);
+			if (failures.getAndDecrement() > 0) {
+				return Mono.error(new IOException("connection reset"));
+			}
+			return Mono.just(ClientResponse.create(status)
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.body(body)
+					.build());
+		}).build());
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable_message() {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<TransactionRequest>();
+		message.setBusinessTaxonomyId("jskdfjsdjfls");
+		message.setCorrelationId("sdjfsjdlfjslkdfj");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("234234");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		return message;
+	}
+	TransactionResponse setup_response() {
+		TransactionResponse resourceResponse = new TransactionResponse(TransactionResponse.SUCCESS, new TransactionResource());
+		resourceResponse.getTransactions().get(0).setAccountNumber("12345679");
+		resourceResponse.getTransactions().get(0).setDebitCardNumber("7823478239467");
+		return resourceResponse;
+	}
+}
@@ -0,0 +1,162 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+class Unit_RequestBatcher {
+	ExecutorService executor = Executors.newCachedThreadPool();
+	ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+	@AfterEach
+	public void teardown() {
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void test_submit_fullBatch() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(this::echo, 3, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		List<CompletableFuture<String>> responses = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			responses.add(batcher.submit(i));
+		}
+
+		//--Verify------------------------
+		for (int i = 0; i < 6; i++) {
+			assertEquals("response-" + i, responses.get(i).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(2, batches.size());
+		assertEquals(3, batches.get(0).size());
+	}
+
+	@Test
+	void test_submit_window() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(this::echo, 100, 20L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		CompletableFuture<String> second = batcher.submit(2);
+
+		//--Verify------------------------
+		assertEquals("response-1", first.get(5, TimeUnit.SECONDS));
+		assertEquals("response-2", second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, batches.size());
+	}
+
+	@Test
+	void test_submit_senderFails() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(requests -> {
+			throw new TransientDataAccessResourceException("down");
+		}, 2, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		CompletableFuture<String> second = batcher.submit(2);
+
+		//--Verify------------------------
+		CompletionException ex = assertThrows(CompletionException.class, () -> first.join());
+		assertTrue(ex.getCause() instanceof TransientDataAccessResourceException);
+		assertThrows(CompletionException.class, () -> second.join());
+	}
+
+	@Test
+	void test_submit_oneRequestRejected() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(requests -> {
+			if (requests.contains(2)) {
+				batches.add(new ArrayList<>(requests));
+				throw new NonTransientDataAccessResourceException("rejected");
+			}
+			return echo(requests);
+		}, 3, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		CompletableFuture<String> second = batcher.submit(2);
+		CompletableFuture<String> third = batcher.submit(3);
+
+		//--Verify------------------------
+		assertEquals("response-1", first.get(5, TimeUnit.SECONDS));
+		assertEquals("response-3", third.get(5, TimeUnit.SECONDS));
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof NonTransientDataAccessResourceException);
+		assertEquals(4, batches.size());
+		assertEquals(3, batches.get(0).size());
+	}
+
+	@Test
+	void test_submit_senderFailsTransientNotResent() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(requests -> {
+			batches.add(new ArrayList<>(requests));
+			throw new TransientDataAccessResourceException("down");
+		}, 2, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		CompletableFuture<String> second = batcher.submit(2);
+
+		//--Verify------------------------
+		assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, batches.size());
+	}
+
+	@Test
+	void test_submit_senderError() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(requests -> {
+			throw new AssertionError("broken");
+		}, 2, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		batcher.submit(2);
+
+		//--Verify------------------------
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof AssertionError);
+	}
+
+	@Test
+	void test_submit_responseCountMismatch() throws Exception {
+		//-- Setup ------------------
+		RequestBatcher<Integer, String> batcher = new RequestBatcher<>(requests -> Collections.singletonList("only"),
+				2, 60000L, executor, scheduler);
+
+		//--Execute-----------------------
+		CompletableFuture<String> first = batcher.submit(1);
+		batcher.submit(2);
+
+		//--Verify------------------------
+		CompletionException ex = assertThrows(CompletionException.class, () -> first.join());
+		assertTrue(ex.getCause() instanceof NonTransientDataAccessResourceException);
+	}
+
+	List<String> echo(List<Integer> requests) {
+		batches.add(new ArrayList<>(requests));
+		return requests.stream().map(request -> "response-" + request).collect(Collectors.toList());
+	}
+}
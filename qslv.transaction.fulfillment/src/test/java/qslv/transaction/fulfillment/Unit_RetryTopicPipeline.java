@@ -0,0 +1,164 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_RetryTopicPipeline {
+	RetryTopicPipeline pipeline = new RetryTopicPipeline();
+	ConfigProperties config = new ConfigProperties();
+	@Mock
+	FulfillmentController fulfillmentController;
+	@Mock
+	KafkaProducerDao kafkaDao;
+	@Mock
+	MessageListenerContainer container;
+	@Mock
+	Consumer<?, ?> consumer;
+	@Mock
+	Acknowledgment acknowledgment;
+
+	@BeforeEach
+	public void setup() {
+		MockitoAnnotations.initMocks(this);
+		config.setKafkaTransactionRequestQueue("transaction.request.queue");
+		config.setKafkaRetryDelays(Arrays.asList(1000L, 10000L));
+		config.setKafkaTimeout(1000);
+		pipeline.setConfig(config);
+		pipeline.setStageTimers(new StageTimers());
+		pipeline.setFulfillmentController(fulfillmentController);
+		pipeline.setKafkaDao(kafkaDao);
+	}
+
+	@AfterEach
+	public void teardown() {
+		pipeline.stop();
+	}
+
+	@Test
+	void test_forward_firstTier() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue", null, null);
+
+		//--Execute-----------------------
+		boolean forwarded = pipeline.forward(record, 1);
+
+		//--Verify------------------------
+		assertTrue(forwarded);
+		verify(kafkaDao).produceRetry(eq("transaction.request.queue-retry-1000"), eq("1234"), same(record.value()), eq(1), longThat(due -> due > System.currentTimeMillis()));
+	}
+
+	@Test
+	void test_forward_deadLetter() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue-retry-10000", null, null);
+
+		//--Execute-----------------------
+		boolean forwarded = pipeline.forward(record, 3);
+
+		//--Verify------------------------
+		assertTrue(forwarded);
+		verify(kafkaDao).produceRetry(eq("transaction.request.queue-dlt"), eq("1234"), same(record.value()), eq(3), eq(0L));
+	}
+
+	@Test
+	void test_forward_producerFails() {
+		//-- Setup ------------------
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue", null, null);
+
+		//--Prepare----------------------
+		doThrow(new TransientDataAccessResourceException("msg")).when(kafkaDao).produceRetry(anyString(), anyString(), any(), anyInt(), anyLong());
+
+		//--Execute-----------------------
+		assertFalse(pipeline.forward(record, 1));
+	}
+
+	@Test
+	void test_tier_notDue() {
+		//-- Setup ------------------
+		RetryTopicPipeline.TierListener listener = pipeline.newTierListener(container);
+		long due = System.currentTimeMillis() + 60000L;
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue-retry-1000", 1, due);
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> later = new ConsumerRecord<>(record.topic(), 0, 8L, "1234", record.value());
+
+		//--Execute-----------------------
+		listener.onMessage(record, acknowledgment, consumer);
+		listener.onMessage(later, acknowledgment, consumer);
+
+		//--Verify------------------------
+		verify(consumer).seek(new TopicPartition(record.topic(), 0), 7L);
+		verify(container).pause();
+		verify(fulfillmentController, never()).processMessage(any());
+		verify(acknowledgment, never()).acknowledge();
+	}
+
+	@Test
+	void test_tier_dueSuccess() {
+		//-- Setup ------------------
+		RetryTopicPipeline.TierListener listener = pipeline.newTierListener(container);
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue-retry-1000", 1, System.currentTimeMillis() - 1L);
+
+		//--Prepare----------------------
+		doReturn(true).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onMessage(record, acknowledgment, consumer);
+
+		//--Verify------------------------
+		verify(acknowledgment).acknowledge();
+		verify(container, never()).pause();
+		verify(kafkaDao, never()).produceRetry(anyString(), anyString(), any(), anyInt(), anyLong());
+	}
+
+	@Test
+	void test_tier_dueFailsMovesOn() {
+		//-- Setup ------------------
+		RetryTopicPipeline.TierListener listener = pipeline.newTierListener(container);
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = setup_record("transaction.request.queue-retry-1000", 1, System.currentTimeMillis() - 1L);
+
+		//--Prepare----------------------
+		doReturn(false).when(fulfillmentController).processMessage(any());
+
+		//--Execute-----------------------
+		listener.onMessage(record, acknowledgment, consumer);
+
+		//--Verify------------------------
+		verify(kafkaDao).produceRetry(eq("transaction.request.queue-retry-10000"), eq("1234"), same(record.value()), eq(2), anyLong());
+		verify(acknowledgment).acknowledge();
+	}
+
+	ConsumerRecord<String, TraceableMessage<TransactionRequest>> setup_record(String topic, Integer attempt, Long due) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("1234");
+		ConsumerRecord<String, TraceableMessage<TransactionRequest>> record = new ConsumerRecord<>(topic, 0, 7L, "1234", message);
+		if (attempt != null) {
+			record.headers().add(RetryTopicPipeline.ATTEMPT_HEADER, attempt.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		if (due != null) {
+			record.headers().add(RetryTopicPipeline.DUE_HEADER, due.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		return record;
+	}
+}
@@ -0,0 +1,81 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_StageTimers {
+
+	StageTimers stageTimers = new StageTimers();
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	@Mock
+	Acknowledgment acknowledgment;
+
+	@BeforeEach
+	public void setup() {
+		stageTimers.setMeterRegistry(registry);
+	}
+
+	@Test
+	void test_record_tagsStageEndpointOutcome() {
+		//--Execute-----------------------
+		stageTimers.record(StageTimers.RECORD_TRANSACTION, "POST /Transaction", StageTimers.SUCCESS, System.nanoTime());
+		stageTimers.record(StageTimers.RECORD_TRANSACTION, "POST /Transaction", StageTimers.SUCCESS, System.nanoTime());
+		stageTimers.record(StageTimers.RECORD_TRANSACTION, "POST /Transaction", "transient", System.nanoTime());
+
+		//--Verify------------------------
+		Timer success = registry.find(StageTimers.NAME).tags("stage", StageTimers.RECORD_TRANSACTION,
+				"endpoint", "POST /Transaction", "outcome", StageTimers.SUCCESS).timer();
+		assertNotNull(success);
+		assertEquals(2L, success.count());
+		Timer failed = registry.find(StageTimers.NAME).tags("outcome", "transient").timer();
+		assertNotNull(failed);
+		assertEquals(1L, failed.count());
+	}
+
+	@Test
+	void test_acknowledge_timed() {
+		//--Execute-----------------------
+		stageTimers.acknowledge(acknowledgment, "transaction.request");
+
+		//--Verify------------------------
+		verify(acknowledgment).acknowledge();
+		assertEquals(1L, registry.find(StageTimers.NAME).tags("stage", StageTimers.ACKNOWLEDGE, "endpoint", "transaction.request").timer().count());
+	}
+
+	@Test
+	void test_outcome() {
+		//--Verify------------------------
+		assertEquals("transient", StageTimers.outcome(new TransientDataAccessResourceException("test")));
+		assertEquals("error", StageTimers.outcome(new NonTransientDataAccessResourceException("test")));
+		assertEquals("rejected", StageTimers.outcome(CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("test"))));
+	}
+
+	@Test
+	void test_noRegistry_noop() {
+		//-- Setup ------------------
+		StageTimers unregistered = new StageTimers();
+
+		//--Execute-----------------------
+		unregistered.record(StageTimers.VALIDATE, "local", StageTimers.SUCCESS, System.nanoTime());
+		unregistered.acknowledge(acknowledgment, "transaction.request");
+
+		//--Verify------------------------
+		verify(acknowledgment).acknowledge();
+		assertTrue(registry.getMeters().isEmpty());
+	}
+}
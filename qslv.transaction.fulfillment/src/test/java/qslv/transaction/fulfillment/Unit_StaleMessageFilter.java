@@ -0,0 +1,172 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_StaleMessageFilter {
+
+	StaleMessageFilter filter = new StaleMessageFilter();
+	FulfillmentController controller = new FulfillmentController();
+	ConfigProperties config = new ConfigProperties();
+	@Mock
+	FulfillmentService fulfillmentService;
+	@Mock
+	KafkaProducerDao kafkaDao;
+	@Mock
+	ProcessedRequestIndex processedIndex;
+	@Mock
+	AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+	@BeforeEach
+	public void setup() {
+		config.setAitid("723842");
+		config.setStaleMessageMaxAge(60000L);
+		config.getStaleMessageMaxAgeByTaxonomy().put("card-authorization", 5000L);
+		filter.setConfig(config);
+		controller.setConfig(config);
+		controller.setStageTimers(new StageTimers());
+		controller.setAgeMetrics(new MessageAgeMetrics());
+		controller.setFulfillmentService(fulfillmentService);
+		controller.setKafkaDao(kafkaDao);
+		controller.setProcessedIndex(processedIndex);
+		controller.setConcurrencyLimiter(concurrencyLimiter);
+		controller.setStaleFilter(filter);
+	}
+
+	@Test
+	void test_isExpired_perTaxonomy() {
+		//--Verify------------------------
+		assertFalse(filter.isExpired("card-authorization", 100000L, 104000L));
+		assertTrue(filter.isExpired("card-authorization", 100000L, 106000L));
+		assertFalse(filter.isExpired("transfer", 100000L, 106000L));
+		assertTrue(filter.isExpired("transfer", 100000L, 161000L));
+		assertTrue(filter.isExpired(null, 100000L, 161000L));
+	}
+
+	@Test
+	void test_isExpired_disabled() {
+		//-- Setup ------------------
+		config.setStaleMessageMaxAge(0L);
+		config.getStaleMessageMaxAgeByTaxonomy().clear();
+
+		//--Verify------------------------
+		assertFalse(filter.isEnabled());
+		assertFalse(filter.isExpired("transfer", 0L, Long.MAX_VALUE));
+	}
+
+	@Test
+	void test_processMessage_expired() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message("card-authorization", LocalDateTime.now().minusSeconds(10L));
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> reply = ArgumentCaptor.forClass(TraceableMessage.class);
+		doNothing().when(kafkaDao).produceResponse(reply.capture());
+
+		//--Execute-----------------------
+		assertTrue(controller.processMessage(message));
+
+		//--Verify------------------------
+		verifyNoInteractions(fulfillmentService);
+		assertEquals(StaleMessageFilter.EXPIRED, reply.getValue().getPayload().getStatus());
+		assertNull(reply.getValue().getPayload().getRequest());
+		assertEquals(message.getCorrelationId(), reply.getValue().getCorrelationId());
+	}
+
+	@Test
+	void test_processMessage_expiredNotDecoded() {
+		//-- Setup ------------------
+		AtomicInteger decoded = new AtomicInteger();
+		TraceableMessage<TransactionRequest> fresh = setup_message("card-authorization", LocalDateTime.now().minusSeconds(10L));
+		LazyTraceableMessage message = new LazyTraceableMessage(() -> {
+			decoded.incrementAndGet();
+			return fresh.getPayload();
+		});
+		message.setBusinessTaxonomyId(fresh.getBusinessTaxonomyId());
+		message.setCorrelationId(fresh.getCorrelationId());
+		message.setMessageCreationTime(fresh.getMessageCreationTime());
+		message.setProducerAit(fresh.getProducerAit());
+		doNothing().when(kafkaDao).produceResponse(any());
+
+		//--Execute-----------------------
+		assertTrue(controller.processMessage(message));
+
+		//--Verify------------------------
+		assertEquals(0, decoded.get());
+		verifyNoInteractions(fulfillmentService, processedIndex);
+	}
+
+	@Test
+	void test_processMessage_malformedEnvelopeNotDecoded() {
+		//-- Setup ------------------
+		AtomicInteger decoded = new AtomicInteger();
+		TraceableMessage<TransactionRequest> fresh = setup_message("card-authorization", LocalDateTime.now());
+		LazyTraceableMessage message = new LazyTraceableMessage(() -> {
+			decoded.incrementAndGet();
+			return fresh.getPayload();
+		});
+		message.setBusinessTaxonomyId(fresh.getBusinessTaxonomyId());
+		message.setCorrelationId(fresh.getCorrelationId());
+		message.setMessageCreationTime(fresh.getMessageCreationTime());
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> captor = ArgumentCaptor.forClass(TraceableMessage.class);
+		doNothing().when(kafkaDao).produceResponse(captor.capture());
+
+		//--Execute-----------------------
+		assertTrue(controller.processMessage(message));
+
+		//--Verify------------------------
+		assertEquals(0, decoded.get());
+		assertEquals(ResponseMessage.MALFORMED_MESSAGE, captor.getValue().getPayload().getStatus());
+		assertNull(captor.getValue().getPayload().getRequest());
+		assertEquals(fresh.getCorrelationId(), captor.getValue().getCorrelationId());
+		verifyNoInteractions(fulfillmentService);
+	}
+
+	@Test
+	void test_processMessage_fresh() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message("card-authorization", LocalDateTime.now());
+		TransactionResource resource = new TransactionResource();
+		doReturn(new TransactionResponse(TransactionResponse.SUCCESS, resource)).when(fulfillmentService).processTransaction(any(), any());
+		doNothing().when(kafkaDao).produceResponse(any());
+
+		//--Execute-----------------------
+		assertTrue(controller.processMessage(message));
+
+		//--Verify------------------------
+		verify(fulfillmentService).processTransaction(any(), any());
+	}
+
+	TraceableMessage<TransactionRequest> setup_message(String businessTaxonomyId, LocalDateTime created) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setBusinessTaxonomyId(businessTaxonomyId);
+		message.setCorrelationId("2387429837428374");
+		message.setMessageCreationTime(created);
+		message.setProducerAit("2345");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("23874923749823");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setTransactionAmount(-2300L);
+		return message;
+	}
+}
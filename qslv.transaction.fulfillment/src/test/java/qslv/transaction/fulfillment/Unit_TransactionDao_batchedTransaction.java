@@ -0,0 +1,121 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+class Unit_TransactionDao_batchedTransaction {
+	ConfigProperties config = new ConfigProperties();
+	TransactionDao transactionDao = new TransactionDao();
+	RetryTemplate retryTemplate = new RetryTemplate();
+	ExecutorService callers = Executors.newFixedThreadPool(10);
+	TransactionServiceStub stub;
+
+	{
+		SimpleRetryPolicy srp = new SimpleRetryPolicy();
+		srp.setMaxAttempts(3);
+		retryTemplate.setThrowLastExceptionOnExhausted(true);
+		retryTemplate.setRetryPolicy(srp);
+		transactionDao.setRetryTemplate(retryTemplate);
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
+		RestTemplateProxy restTemplateProxy = new RestTemplateProxy();
+		restTemplateProxy.setRestTemplate(new RestTemplate());
+		transactionDao.setRestTemplateProxy(restTemplateProxy);
+		config.setAitid("723842");
+		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
+	}
+
+	@BeforeEach
+	public void init() throws Exception {
+		stub = new TransactionServiceStub(10L).start();
+		config.setPostTransactionUrl(stub.url("/Transaction"));
+	}
+
+	@AfterEach
+	public void teardown() {
+		transactionDao.shutdown();
+		callers.shutdownNow();
+		stub.stop();
+	}
+
+	@Test
+	void test_recordTransaction_batched() throws Exception {
+		//-Setup -----------
+		config.setPostTransactionBatchUrl(stub.url("/Transaction/batch"));
+		config.setTransactionBatchMaxSize(5);
+		config.setTransactionBatchWindow(1000);
+		transactionDao.init();
+
+		//-Execute----------------
+		List<CompletableFuture<TransactionResponse>> responses = record(10);
+
+		//-Verify----------------
+		for (int i = 0; i < 10; i++) {
+			TransactionResponse response = responses.get(i).get(10, TimeUnit.SECONDS);
+			assertEquals(TransactionResponse.SUCCESS, response.getStatus());
+			assertEquals("account-" + i, response.getTransactions().get(0).getAccountNumber());
+		}
+		assertEquals(2, stub.calls.get());
+		assertEquals(10, stub.requests.get());
+	}
+
+	@Test
+	void test_recordTransaction_noBatchUrl() throws Exception {
+		//-Setup -----------
+		transactionDao.init();
+
+		//-Execute----------------
+		List<CompletableFuture<TransactionResponse>> responses = record(3);
+
+		//-Verify----------------
+		for (int i = 0; i < 3; i++) {
+			assertEquals("account-" + i, responses.get(i).get(10, TimeUnit.SECONDS).getTransactions().get(0).getAccountNumber());
+		}
+		assertEquals(3, stub.calls.get());
+	}
+
+	List<CompletableFuture<TransactionResponse>> record(int count) {
+		List<CompletableFuture<TransactionResponse>> responses = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TraceableMessage<TransactionRequest> message = setup_traceable_message("account-" + i);
+			responses.add(CompletableFuture.supplyAsync(() -> transactionDao.recordTransaction(message, message.getPayload()), callers));
+		}
+		return responses;
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable_message(String accountNumber) {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<TransactionRequest>();
+		message.setBusinessTaxonomyId("jskdfjsdjfls");
+		message.setCorrelationId("sdjfsjdlfjslkdfj");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("234234");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber(accountNumber);
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setTransactionAmount(-2300L);
+		return message;
+	}
+}
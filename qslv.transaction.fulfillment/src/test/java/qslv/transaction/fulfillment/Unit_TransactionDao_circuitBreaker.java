@@ -0,0 +1,131 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import qslv.common.TimedResponse;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.response.TransactionResponse;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_TransactionDao_circuitBreaker {
+
+	@Mock
+	RestTemplateProxy restTemplateProxy;
+	
+	ConfigProperties config = new ConfigProperties();
+	TransactionDao transactionDao = new TransactionDao();
+	RetryTemplate retryTemplate = new RetryTemplate() ;
+	CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+			.slidingWindowType(SlidingWindowType.COUNT_BASED)
+			.slidingWindowSize(4)
+			.minimumNumberOfCalls(3)
+			.failureRateThreshold(50)
+			.waitDurationInOpenState(Duration.ofMinutes(1))
+			.recordExceptions(ResourceAccessException.class)
+			.build());
+	
+	{
+		SimpleRetryPolicy srp = new SimpleRetryPolicy();
+		srp.setMaxAttempts(3);
+		retryTemplate.setThrowLastExceptionOnExhausted(true);
+		retryTemplate.setRetryPolicy(srp);
+		transactionDao.setRetryTemplate(retryTemplate);
+		transactionDao.setCircuitBreakerRegistry(circuitBreakerRegistry);
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
+		config.setAitid("723842");
+		config.setPostTransactionUrl("http://localhost:9091/Transaction");
+		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
+	}
+	
+	@BeforeEach
+	public void init() {
+		transactionDao.setRestTemplateProxy(restTemplateProxy);			
+	}
+	
+	@Test
+	void test_recordTransaction_breakerOpens() {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		
+		//-Prepare----------------
+		doThrow(new ResourceAccessException("message", new SocketTimeoutException()) )
+		.when(restTemplateProxy).exchange(anyString(), eq(HttpMethod.POST), 
+			ArgumentMatchers.<HttpEntity<TraceableMessage<TransactionRequest>>>any(), 
+			ArgumentMatchers.<ParameterizedTypeReference<TimedResponse<TransactionResponse>>>any());
+		
+		//-Execute----------------
+		assertThrows(TransientDataAccessResourceException.class, () -> {
+			transactionDao.recordTransaction(message, message.getPayload());
+		});
+		TransientDataAccessResourceException refused = assertThrows(TransientDataAccessResourceException.class, () -> {
+			transactionDao.recordTransaction(message, message.getPayload());
+		});
+
+		//-Verify----------------
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("http://localhost:9091/Transaction").getState());
+		assertTrue(refused.getCause() instanceof CallNotPermittedException);
+		verify(restTemplateProxy, times(3)).exchange(anyString(), eq(HttpMethod.POST), 
+				ArgumentMatchers.<HttpEntity<TraceableMessage<TransactionRequest>>>any(), 
+				ArgumentMatchers.<ParameterizedTypeReference<TimedResponse<TransactionResponse>>>any());
+	}
+
+	@Test
+	void test_recordTransaction_bulkheadFull() {
+		//-Setup -----------
+		TraceableMessage<TransactionRequest> message = setup_traceable_message();
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.of(BulkheadConfig.custom().maxConcurrentCalls(0).maxWaitDuration(Duration.ZERO).build()));
+
+		//-Execute----------------
+		TransientDataAccessResourceException refused = assertThrows(TransientDataAccessResourceException.class, () -> {
+			transactionDao.recordTransaction(message, message.getPayload());
+		});
+
+		//-Verify----------------
+		assertTrue(refused.getCause() instanceof BulkheadFullException);
+		verifyNoInteractions(restTemplateProxy);
+	}
+
+	TraceableMessage<TransactionRequest> setup_traceable_message() {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<TransactionRequest>();
+		message.setBusinessTaxonomyId("jskdfjsdjfls");
+		message.setCorrelationId("sdjfsjdlfjslkdfj");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("234234");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("12345679");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{}");
+		message.getPayload().setTransactionAmount(-2300L);
+		return message;
+	}
+}
@@ -23,6 +23,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.ResourceAccessException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import qslv.common.TimedResponse;
 import qslv.common.kafka.TraceableMessage;
 import qslv.transaction.request.CommitReservationRequest;
@@ -46,9 +48,12 @@ class Unit_TransactionDao_commitReservation {
 		retryTemplate.setThrowLastExceptionOnExhausted(true);
 		retryTemplate.setRetryPolicy(srp);
 		transactionDao.setRetryTemplate(retryTemplate);
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
 		config.setAitid("723842");
 		config.setCommitReservationUrl("http://localhost:9091/CommitTransaction");
 		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
 	}
 	
 	@BeforeEach
@@ -24,6 +24,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.ResourceAccessException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import qslv.common.TimedResponse;
 import qslv.common.kafka.TraceableMessage;
 import qslv.transaction.request.TransactionRequest;
@@ -48,9 +50,12 @@ class Unit_TransactionDao_transferAndTransact {
 		retryTemplate.setThrowLastExceptionOnExhausted(true);
 		retryTemplate.setRetryPolicy(srp);
 		transactionDao.setRetryTemplate(retryTemplate);
+		transactionDao.setCircuitBreakerRegistry(CircuitBreakerRegistry.ofDefaults());
+		transactionDao.setBulkheadRegistry(BulkheadRegistry.ofDefaults());
 		config.setAitid("723842");
 		config.setTransferAndTransactUrl("http://localhost:9091/CommitTransaction");
 		transactionDao.setConfig(config);
+		transactionDao.setStageTimers(new StageTimers());
 	}
 	
 	@BeforeEach
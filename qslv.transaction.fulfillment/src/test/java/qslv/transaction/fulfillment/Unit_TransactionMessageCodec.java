@@ -0,0 +1,243 @@
+package qslv.transaction.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import qslv.common.kafka.ResponseMessage;
+import qslv.common.kafka.TraceableMessage;
+import qslv.transaction.request.TransactionRequest;
+import qslv.transaction.resource.TransactionResource;
+import qslv.transaction.response.TransactionResponse;
+
+@ExtendWith(MockitoExtension.class)
+class Unit_TransactionMessageCodec {
+
+	@Mock
+	Deserializer<TraceableMessage<TransactionRequest>> fallback;
+	@Mock
+	Serializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> fullSerializer;
+	@Mock
+	Deserializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> replyFallback;
+
+	@Test
+	void test_request_roundTrip() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = TransactionMessageCodec.readRequest(TransactionMessageCodec.writeRequest(message));
+
+		//--Verify------------------------
+		assertEquals(message.getProducerAit(), read.getProducerAit());
+		assertEquals(message.getCorrelationId(), read.getCorrelationId());
+		assertEquals(message.getBusinessTaxonomyId(), read.getBusinessTaxonomyId());
+		assertEquals(message.getMessageCreationTime(), read.getMessageCreationTime());
+		assertNull(read.getMessageCompletionTime());
+		assertEquals(message.getPayload().getRequestUuid(), read.getPayload().getRequestUuid());
+		assertEquals(message.getPayload().getAccountNumber(), read.getPayload().getAccountNumber());
+		assertEquals(message.getPayload().getDebitCardNumber(), read.getPayload().getDebitCardNumber());
+		assertEquals(message.getPayload().getTransactionAmount(), read.getPayload().getTransactionAmount());
+		assertEquals(message.getPayload().getTransactionMetaDataJson(), read.getPayload().getTransactionMetaDataJson());
+		assertTrue(read.getPayload().isProtectAgainstOverdraft());
+		assertTrue(read.getPayload().isAuthorizeAgainstBalance());
+	}
+
+	@Test
+	void test_reply_roundTrip() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		TransactionResource resource = new TransactionResource();
+		resource.setAccountNumber(message.getPayload().getAccountNumber());
+		resource.setTransactionUuid(UUID.randomUUID());
+		resource.setTransactionAmount(-2300L);
+		reply.getPayload().setResponse(new TransactionResponse(TransactionResponse.SUCCESS, resource));
+		reply.setMessageCompletionTime(LocalDateTime.now());
+
+		//--Execute-----------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> read =
+				TransactionMessageCodec.readReply(TransactionMessageCodec.writeReply(reply));
+
+		//--Verify------------------------
+		assertEquals(reply.getCorrelationId(), read.getCorrelationId());
+		assertEquals(reply.getMessageCompletionTime(), read.getMessageCompletionTime());
+		assertEquals(reply.getPayload().getStatus(), read.getPayload().getStatus());
+		assertEquals(message.getPayload().getRequestUuid(), read.getPayload().getRequest().getRequestUuid());
+		assertEquals(TransactionResponse.SUCCESS, read.getPayload().getResponse().getStatus());
+		assertEquals(resource.getTransactionUuid(), read.getPayload().getResponse().getResource().getTransactionUuid());
+	}
+
+	@Test
+	void test_reply_error() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		reply.getPayload().setStatus(ResponseMessage.MALFORMED_MESSAGE);
+		reply.getPayload().setErrorMessage("Malformed message payload.");
+
+		//--Execute-----------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> read =
+				TransactionMessageCodec.readReply(TransactionMessageCodec.writeReply(reply));
+
+		//--Verify------------------------
+		assertEquals(ResponseMessage.MALFORMED_MESSAGE, read.getPayload().getStatus());
+		assertEquals("Malformed message payload.", read.getPayload().getErrorMessage());
+		assertNull(read.getPayload().getResponse());
+	}
+
+	@Test
+	void test_deserializer_dispatchesOnHeader() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+		RecordHeaders headers = new RecordHeaders();
+		byte[] data = new TransactionMessageSerializer<TraceableMessage<TransactionRequest>>(TransactionMessageCodec::writeRequest)
+				.serialize("transaction.request", headers, message);
+		TransactionMessageDeserializer<TraceableMessage<TransactionRequest>> deserializer =
+				new TransactionMessageDeserializer<>(TransactionMessageCodec::readRequest, fallback);
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize("transaction.request", headers, data);
+
+		//--Verify------------------------
+		assertEquals(message.getCorrelationId(), read.getCorrelationId());
+		verifyNoInteractions(fallback);
+	}
+
+	@Test
+	void test_deserializer_fallsBackWithoutHeader() {
+		//-- Setup ------------------
+		TraceableMessage<TransactionRequest> message = setup_message();
+		RecordHeaders headers = new RecordHeaders();
+		doReturn(message).when(fallback).deserialize(anyString(), any(), any());
+		TransactionMessageDeserializer<TraceableMessage<TransactionRequest>> deserializer =
+				new TransactionMessageDeserializer<>(TransactionMessageCodec::readRequest, fallback);
+
+		//--Execute-----------------------
+		TraceableMessage<TransactionRequest> read = deserializer.deserialize("transaction.request", headers, new byte[] { 0, 0, 0, 0, 1 });
+
+		//--Verify------------------------
+		assertSame(message, read);
+	}
+
+	@Test
+	void test_compactReply_roundTrip() {
+		//-- Setup ------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply = setup_reply(setup_message());
+
+		//--Execute-----------------------
+		byte[] compact = TransactionMessageCodec.writeCompactReply(reply);
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> read = TransactionMessageCodec.readReply(compact);
+
+		//--Verify------------------------
+		assertTrue(compact.length < TransactionMessageCodec.writeReply(reply).length);
+		assertFalse(new String(compact, StandardCharsets.UTF_8).contains("acme"));
+		assertEquals(reply.getCorrelationId(), read.getCorrelationId());
+		assertEquals(reply.getPayload().getStatus(), read.getPayload().getStatus());
+		assertEquals(reply.getPayload().getRequest().getRequestUuid(), read.getPayload().getRequest().getRequestUuid());
+		assertNull(read.getPayload().getRequest().getAccountNumber());
+		assertEquals(reply.getPayload().getResponse().getResource().getTransactionUuid(),
+				read.getPayload().getResponse().getResource().getTransactionUuid());
+	}
+
+	@Test
+	void test_compactReplySerializer_negotiatedByAit() {
+		//-- Setup ------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply = setup_reply(setup_message());
+		CompactReplySerializer serializer = new CompactReplySerializer(fullSerializer, Arrays.asList("2345"));
+		RecordHeaders headers = new RecordHeaders();
+
+		//--Execute-----------------------
+		byte[] data = serializer.serialize("transaction.reply", headers, reply);
+
+		//--Verify------------------------
+		verifyNoInteractions(fullSerializer);
+		assertArrayEquals(TransactionMessageCodec.writeCompactReply(reply), data);
+		assertEquals(TransactionMessageCodec.COMPACT_REPLY,
+				new String(headers.lastHeader(TransactionMessageCodec.REPLY_FORMAT_HEADER).value(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void test_compactReplySerializer_readThroughHeaders() {
+		//-- Setup ------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply = setup_reply(setup_message());
+		CompactReplySerializer serializer = new CompactReplySerializer(fullSerializer, Arrays.asList("2345"));
+		TransactionMessageDeserializer<TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>>> deserializer =
+				new TransactionMessageDeserializer<>(TransactionMessageCodec::readReply, replyFallback);
+		RecordHeaders headers = new RecordHeaders();
+
+		//--Execute-----------------------
+		byte[] data = serializer.serialize("transaction.reply", headers, reply);
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> read = deserializer.deserialize("transaction.reply", headers, data);
+
+		//--Verify------------------------
+		verifyNoInteractions(replyFallback);
+		assertEquals(TransactionMessageCodec.CODEC,
+				new String(headers.lastHeader(TransactionMessageCodec.CODEC_HEADER).value(), StandardCharsets.UTF_8));
+		assertEquals(reply.getCorrelationId(), read.getCorrelationId());
+		assertEquals(reply.getPayload().getRequest().getRequestUuid(), read.getPayload().getRequest().getRequestUuid());
+		assertEquals(reply.getPayload().getResponse().getResource().getTransactionUuid(),
+				read.getPayload().getResponse().getResource().getTransactionUuid());
+	}
+
+	@Test
+	void test_compactReplySerializer_otherAit() {
+		//-- Setup ------------------
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply = setup_reply(setup_message());
+		CompactReplySerializer serializer = new CompactReplySerializer(fullSerializer, Arrays.asList("9999"));
+		RecordHeaders headers = new RecordHeaders();
+		byte[] full = new byte[] { 0, 0, 0, 0, 1 };
+		doReturn(full).when(fullSerializer).serialize(anyString(), any(), any());
+
+		//--Execute-----------------------
+		byte[] data = serializer.serialize("transaction.reply", headers, reply);
+
+		//--Verify------------------------
+		assertSame(full, data);
+		assertNull(headers.lastHeader(TransactionMessageCodec.REPLY_FORMAT_HEADER));
+	}
+
+	TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> setup_reply(TraceableMessage<TransactionRequest> message) {
+		TraceableMessage<ResponseMessage<TransactionRequest,TransactionResponse>> reply =
+				new TraceableMessage<>(message, new ResponseMessage<TransactionRequest,TransactionResponse>(message.getPayload()));
+		TransactionResource resource = new TransactionResource();
+		resource.setAccountNumber(message.getPayload().getAccountNumber());
+		resource.setTransactionUuid(UUID.randomUUID());
+		resource.setTransactionAmount(-2300L);
+		reply.getPayload().setResponse(new TransactionResponse(TransactionResponse.SUCCESS, resource));
+		reply.setMessageCompletionTime(LocalDateTime.now());
+		return reply;
+	}
+
+	TraceableMessage<TransactionRequest> setup_message() {
+		TraceableMessage<TransactionRequest> message = new TraceableMessage<>();
+		message.setBusinessTaxonomyId("234234234234");
+		message.setCorrelationId("2387429837428374");
+		message.setMessageCreationTime(LocalDateTime.now());
+		message.setProducerAit("2345");
+		message.setPayload(new TransactionRequest());
+		message.getPayload().setAccountNumber("23874923749823");
+		message.getPayload().setDebitCardNumber("27834728934729374");
+		message.getPayload().setRequestUuid(UUID.randomUUID());
+		message.getPayload().setTransactionMetaDataJson("{\"merchant\":\"acme\"}");
+		message.getPayload().setTransactionAmount(-2300L);
+		message.getPayload().setProtectAgainstOverdraft(true);
+		message.getPayload().setAuthorizeAgainstBalance(true);
+		return message;
+	}
+}